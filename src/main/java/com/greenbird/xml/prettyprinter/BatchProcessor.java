@@ -0,0 +1,168 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter;
+
+import java.util.List;
+
+/**
+ *
+ * Batch loop shared by pretty-printers and their decorators: each document is pretty-printed in turn
+ * by the given {@linkplain PrettyPrinter}, and its output offset and result recorded.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class BatchProcessor {
+
+	/** largest array size which is safe to request from the VM */
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	private BatchProcessor() {
+	}
+
+	/**
+	 * Pretty print a batch of XML documents to a single output StringBuilder.
+	 *
+	 * @param prettyPrinter pretty printer for each of the documents
+	 * @param documents characters containing XML to be pretty printed
+	 * @param output the buffer to which indented XML is appended
+	 * @param offsets array of at least <code>documents.size() + 1</code> elements, to which the output offsets are written
+	 * @param results array of at least <code>documents.size()</code> elements, to which the result of each document is written. May be null.
+	 * @return the number of documents which were successfully pretty printed
+	 * @see PrettyPrinter#processBatch(List, StringBuilder, int[], boolean[])
+	 */
+
+	public static int processBatch(PrettyPrinter prettyPrinter, List<? extends CharSequence> documents, StringBuilder output, int[] offsets, boolean[] results) {
+		final int count = documents.size();
+		checkBatch(count, offsets, results);
+
+		long total = 0;
+		int max = 0;
+		for(int i = 0; i < count; i++) {
+			int length = documents.get(i).length();
+
+			total += length;
+			if(length > max) {
+				max = length;
+			}
+		}
+		ensureBatchCapacity(output, total);
+
+		// one array for all documents
+		char[] chars = new char[max];
+
+		int successes = 0;
+		for(int i = 0; i < count; i++) {
+			CharSequence document = documents.get(i);
+			int length = document.length();
+			if(document instanceof String) {
+				((String)document).getChars(0, length, chars, 0);
+			} else if(document instanceof StringBuilder) {
+				((StringBuilder)document).getChars(0, length, chars, 0);
+			} else {
+				for(int k = 0; k < length; k++) {
+					chars[k] = document.charAt(k);
+				}
+			}
+
+			offsets[i] = output.length();
+			if(prettyPrinter.process(chars, 0, length, output)) {
+				successes++;
+				if(results != null) {
+					results[i] = true;
+				}
+			} else if(results != null) {
+				results[i] = false;
+			}
+		}
+		offsets[count] = output.length();
+
+		return successes;
+	}
+
+	/**
+	 * Pretty print a batch of XML documents to a single output StringBuilder.
+	 *
+	 * @param prettyPrinter pretty printer for each of the documents
+	 * @param documents characters containing XML to be pretty printed
+	 * @param documentOffsets the offset within each of the documents where the XML starts
+	 * @param documentLengths the length of the XML within each of the documents
+	 * @param output the buffer to which indented XML is appended
+	 * @param offsets array of at least <code>documents.length + 1</code> elements, to which the output offsets are written
+	 * @param results array of at least <code>documents.length</code> elements, to which the result of each document is written. May be null.
+	 * @return the number of documents which were successfully pretty printed
+	 * @see PrettyPrinter#processBatch(char[][], int[], int[], StringBuilder, int[], boolean[])
+	 */
+
+	public static int processBatch(PrettyPrinter prettyPrinter, char[][] documents, int[] documentOffsets, int[] documentLengths, StringBuilder output, int[] offsets, boolean[] results) {
+		final int count = documents.length;
+		checkBatch(count, offsets, results);
+		if(documentOffsets.length < count || documentLengths.length < count) {
+			throw new IllegalArgumentException("Expected offset and length for each of the " + count + " documents");
+		}
+
+		long total = 0;
+		for(int i = 0; i < count; i++) {
+			total += documentLengths[i];
+		}
+		ensureBatchCapacity(output, total);
+
+		int successes = 0;
+		for(int i = 0; i < count; i++) {
+			offsets[i] = output.length();
+			if(prettyPrinter.process(documents[i], documentOffsets[i], documentLengths[i], output)) {
+				successes++;
+				if(results != null) {
+					results[i] = true;
+				}
+			} else if(results != null) {
+				results[i] = false;
+			}
+		}
+		offsets[count] = output.length();
+
+		return successes;
+	}
+
+	private static void checkBatch(int count, int[] offsets, boolean[] results) {
+		if(offsets.length < count + 1) {
+			throw new IllegalArgumentException("Expected at least " + (count + 1) + " offsets, got " + offsets.length);
+		}
+		if(results != null && results.length < count) {
+			throw new IllegalArgumentException("Expected at least " + count + " results, got " + results.length);
+		}
+	}
+
+	/**
+	 * Grow the output buffer once for the whole batch, rather than repeatedly while processing.
+	 *
+	 * @param output output buffer
+	 * @param total total length of the input documents
+	 */
+
+	private static void ensureBatchCapacity(StringBuilder output, long total) {
+		// indentation typically adds a fraction of the input size
+		long capacity = output.length() + total + (total >> 2);
+
+		output.ensureCapacity((int)Math.min(capacity, MAX_CAPACITY));
+	}
+}
@@ -0,0 +1,271 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ *
+ * Pool of output buffers, so that pretty-printing does not allocate a new {@linkplain StringBuilder} for every message.
+ * <br>
+ * Buffers are kept in power-of-two size classes, starting at {@linkplain #MIN_CAPACITY}. Each size class is striped
+ * by thread, and each stripe holds a few buffers in lock-free slots, so that concurrent threads rarely compete for the same slot.
+ * Unlike a thread-local, the number of retained buffers does not grow with the number of threads (i.e. virtual threads).
+ * <br>
+ * Buffers which have grown beyond the max retained capacity are not taken back, so that a rare huge message is not retained.
+ * A released buffer must not be used by the caller afterwards.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class BufferPool {
+
+	/** capacity of the smallest size class */
+	public static final int MIN_CAPACITY = 4 * 1024;
+	public static final int DEFAULT_MAX_RETAINED_CAPACITY = 256 * 1024;
+	public static final int DEFAULT_SLOTS = 4;
+
+	/** references per cache line, assuming compressed references */
+	private static final int PADDING = 16;
+
+	private static final BufferPool defaultPool = new BufferPool(DEFAULT_MAX_RETAINED_CAPACITY, Runtime.getRuntime().availableProcessors(), DEFAULT_SLOTS);
+
+	/**
+	 * Get the pool shared by the pretty-printers of this library.
+	 *
+	 * @return the default pool
+	 */
+
+	public static BufferPool getDefault() {
+		return defaultPool;
+	}
+
+	protected final int maxRetainedCapacity;
+	protected final int sizeClasses;
+	protected final int stripeMask;
+	protected final int slots;
+	/** slots per stripe, padded to whole cache lines */
+	private final int stride;
+
+	private final AtomicReferenceArray<StringBuilder> builders;
+	private final AtomicReferenceArray<char[]> arrays;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxRetainedCapacity buffers above this capacity are not retained; rounded down to a power of two size class
+	 * @param stripes number of stripes per size class, rounded up to a power of two
+	 * @param slots number of buffers per stripe and size class
+	 */
+
+	public BufferPool(int maxRetainedCapacity, int stripes, int slots) {
+		if(maxRetainedCapacity < MIN_CAPACITY) {
+			throw new IllegalArgumentException("Expected max retained capacity of at least " + MIN_CAPACITY + ", not " + maxRetainedCapacity);
+		}
+		if(stripes <= 0) {
+			throw new IllegalArgumentException("Expected positive number of stripes, not " + stripes);
+		}
+		if(slots <= 0) {
+			throw new IllegalArgumentException("Expected positive number of slots, not " + slots);
+		}
+		this.sizeClasses = Integer.numberOfTrailingZeros(Integer.highestOneBit(maxRetainedCapacity / MIN_CAPACITY)) + 1;
+		this.maxRetainedCapacity = MIN_CAPACITY << (sizeClasses - 1);
+
+		int powerOfTwo = Integer.highestOneBit(stripes);
+		if(powerOfTwo < stripes) {
+			powerOfTwo = powerOfTwo << 1;
+		}
+		this.stripeMask = Math.min(powerOfTwo, 64) - 1;
+		this.slots = slots;
+		this.stride = ((slots + PADDING - 1) / PADDING) * PADDING;
+
+		int length = sizeClasses * (stripeMask + 1) * stride;
+		this.builders = new AtomicReferenceArray<StringBuilder>(length);
+		this.arrays = new AtomicReferenceArray<char[]>(length);
+	}
+
+	/**
+	 * Get an empty buffer.
+	 *
+	 * @param capacity minimum capacity
+	 * @return a pooled buffer, or a new buffer if none was available
+	 */
+
+	public StringBuilder acquireBuilder(int capacity) {
+		int sizeClass = getSizeClassAtLeast(capacity);
+		if(sizeClass >= sizeClasses) {
+			return new StringBuilder(capacity);
+		}
+		int stripe = getStripe();
+		for(int i = sizeClass; i < sizeClasses; i++) {
+			int index = getIndex(i, stripe);
+			for(int k = index; k < index + slots; k++) {
+				StringBuilder builder = builders.get(k);
+				if(builder != null && builders.compareAndSet(k, builder, null)) {
+					return builder;
+				}
+			}
+		}
+		return new StringBuilder(MIN_CAPACITY << sizeClass);
+	}
+
+	/**
+	 * Return a buffer to the pool.
+	 *
+	 * @param builder buffer previously acquired, or any other buffer
+	 */
+
+	public void release(StringBuilder builder) {
+		int capacity = builder.capacity();
+		if(capacity < MIN_CAPACITY || capacity > maxRetainedCapacity) {
+			return;
+		}
+		builder.setLength(0);
+
+		int index = getIndex(getSizeClassAtMost(capacity), getStripe());
+		for(int k = index; k < index + slots; k++) {
+			if(builders.get(k) == null && builders.compareAndSet(k, null, builder)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get a character array.
+	 *
+	 * @param length minimum length
+	 * @return a pooled array, or a new array if none was available. The content is undefined.
+	 */
+
+	public char[] acquireChars(int length) {
+		int sizeClass = getSizeClassAtLeast(length);
+		if(sizeClass >= sizeClasses) {
+			return new char[length];
+		}
+		int stripe = getStripe();
+		for(int i = sizeClass; i < sizeClasses; i++) {
+			int index = getIndex(i, stripe);
+			for(int k = index; k < index + slots; k++) {
+				char[] chars = arrays.get(k);
+				if(chars != null && arrays.compareAndSet(k, chars, null)) {
+					return chars;
+				}
+			}
+		}
+		return new char[MIN_CAPACITY << sizeClass];
+	}
+
+	/**
+	 * Return a character array to the pool.
+	 *
+	 * @param chars array previously acquired, or any other array
+	 */
+
+	public void release(char[] chars) {
+		int length = chars.length;
+		if(length < MIN_CAPACITY || length > maxRetainedCapacity) {
+			return;
+		}
+		int index = getIndex(getSizeClassAtMost(length), getStripe());
+		for(int k = index; k < index + slots; k++) {
+			if(arrays.get(k) == null && arrays.compareAndSet(k, null, chars)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Pretty-print to a pooled buffer, i.e. for logging.
+	 *
+	 * @param prettyPrinter pretty-printer
+	 * @param xml XML to be pretty printed
+	 * @return the pretty-printed XML, or null if not pretty-printed
+	 */
+
+	public String process(PrettyPrinter prettyPrinter, String xml) {
+		StringBuilder builder = acquireBuilder(xml.length() + (xml.length() >> 1));
+		try {
+			if(prettyPrinter.process(xml, builder)) {
+				return builder.toString();
+			}
+			return null;
+		} finally {
+			release(builder);
+		}
+	}
+
+	/**
+	 * Pretty-print to a pooled buffer, i.e. for logging.
+	 *
+	 * @param prettyPrinter pretty-printer
+	 * @param chars characters containing XML to be pretty printed
+	 * @param offset the offset within the chars where the XML starts
+	 * @param length the length of the XML within the chars
+	 * @return the pretty-printed XML, or null if not pretty-printed
+	 */
+
+	public String process(PrettyPrinter prettyPrinter, char[] chars, int offset, int length) {
+		StringBuilder builder = acquireBuilder(length + (length >> 1));
+		try {
+			if(prettyPrinter.process(chars, offset, length, builder)) {
+				return builder.toString();
+			}
+			return null;
+		} finally {
+			release(builder);
+		}
+	}
+
+	private int getIndex(int sizeClass, int stripe) {
+		return (sizeClass * (stripeMask + 1) + stripe) * stride;
+	}
+
+	private int getStripe() {
+		long id = Thread.currentThread().getId();
+		// spread sequential thread ids
+		int hash = (int)(id * 0x9E3779B97F4A7C15L >>> 32);
+
+		return hash & stripeMask;
+	}
+
+	/** smallest size class which holds the capacity */
+	protected static int getSizeClassAtLeast(int capacity) {
+		if(capacity <= MIN_CAPACITY) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros((capacity - 1) / MIN_CAPACITY);
+	}
+
+	/** largest size class whose capacity is within the capacity */
+	protected static int getSizeClassAtMost(int capacity) {
+		return 31 - Integer.numberOfLeadingZeros(capacity / MIN_CAPACITY);
+	}
+
+	public int getMaxRetainedCapacity() {
+		return maxRetainedCapacity;
+	}
+
+	@Override
+	public String toString() {
+		return "BufferPool [maxRetainedCapacity=" + maxRetainedCapacity + ", stripes=" + (stripeMask + 1) + ", slots=" + slots + "]";
+	}
+}
@@ -0,0 +1,156 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/**
+ * Growable byte buffer, the byte equivalent of a {@linkplain StringBuilder}. Not thread-safe.
+ * <br>
+ * Unlike {@linkplain java.io.ByteArrayOutputStream}, the length can be set back, so that output can be rolled back.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class ByteArrayBuilder {
+
+	private byte[] buffer;
+	private int length;
+
+	public ByteArrayBuilder() {
+		this(1024);
+	}
+
+	public ByteArrayBuilder(int capacity) {
+		this.buffer = new byte[capacity];
+	}
+
+	public ByteArrayBuilder append(byte b) {
+		if(length == buffer.length) {
+			expand(length + 1);
+		}
+		buffer[length++] = b;
+
+		return this;
+	}
+
+	public ByteArrayBuilder append(byte[] bytes) {
+		return append(bytes, 0, bytes.length);
+	}
+
+	public ByteArrayBuilder append(byte[] bytes, int offset, int count) {
+		if(length + count > buffer.length) {
+			expand(length + count);
+		}
+		System.arraycopy(bytes, offset, buffer, length, count);
+		length += count;
+
+		return this;
+	}
+
+	public void ensureCapacity(int capacity) {
+		if(capacity > buffer.length) {
+			expand(capacity);
+		}
+	}
+
+	private void expand(int minimumCapacity) {
+		int capacity = buffer.length * 2 + 2;
+		if(capacity < minimumCapacity) {
+			capacity = minimumCapacity;
+		}
+		byte[] next = new byte[capacity];
+		System.arraycopy(buffer, 0, next, 0, length);
+		buffer = next;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Set the length of the content. Shortening discards the trailing bytes, lengthening appends zero bytes.
+	 *
+	 * @param length new length
+	 */
+
+	public void setLength(int length) {
+		if(length < 0) {
+			throw new IndexOutOfBoundsException("Negative length " + length);
+		}
+		if(length > buffer.length) {
+			expand(length);
+		}
+		if(length > this.length) {
+			for(int i = this.length; i < length; i++) {
+				buffer[i] = 0;
+			}
+		}
+		this.length = length;
+	}
+
+	public int capacity() {
+		return buffer.length;
+	}
+
+	/**
+	 * Get the backing array. Only the first {@linkplain #length()} bytes are content.
+	 *
+	 * @return the backing array, which is replaced if the capacity is increased
+	 */
+
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[length];
+		System.arraycopy(buffer, 0, bytes, 0, length);
+		return bytes;
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buffer, 0, length);
+	}
+
+	public void writeTo(ByteBuffer out) {
+		out.put(buffer, 0, length);
+	}
+
+	/**
+	 * Decode content as UTF-8.
+	 *
+	 * @return the content as string
+	 */
+
+	@Override
+	public String toString() {
+		try {
+			return new String(buffer, 0, length, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e); // UTF-8 is always supported
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter;
+
+import java.io.IOException;
+
+/**
+ * Pretty-printing session for a single XML document which arrives in chunks, for example from a chunked transport.
+ * <br>
+ * Each chunk is pretty printed as far as possible and the result is appended to the output of the session, 
+ * constructs which cross chunk boundaries are completed by the next chunk. 
+ * Since output is written as the chunks arrive, the output contains partial output if the document turns out to be invalid. 
+ * <br>
+ * Not thread-safe.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public interface IncrementalPrettyPrinter {
+
+	/**
+	 * Pretty print the next chunk of XML characters.
+	 * 
+	 * @param chars characters containing XML
+	 * @param offset the offset within the chars where the chunk starts
+	 * @param length the length of the chunk
+	 * @throws IOException from output
+	 * @return false if the XML is known to be invalid
+	 */
+
+	boolean feed(char[] chars, int offset, int length) throws IOException;
+
+	/**
+	 * Pretty print the next chunk of UTF-8 encoded XML. Multi-byte characters may be split between chunks.
+	 * 
+	 * @param bytes bytes containing XML
+	 * @param offset the offset within the bytes where the chunk starts
+	 * @param length the length of the chunk
+	 * @throws IOException from output
+	 * @return false if the XML is known to be invalid
+	 */
+
+	boolean feed(byte[] bytes, int offset, int length) throws IOException;
+
+	/**
+	 * Complete the document. Afterwards the session can be reused for another document.
+	 * 
+	 * @throws IOException from output
+	 * @return true if pretty printing was successful. 
+	 */
+
+	boolean finish() throws IOException;
+}
@@ -22,6 +22,7 @@ package com.greenbird.xml.prettyprinter;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.List;
 
 /**
  * Interface for pretty-printing operations on XML as text.
@@ -65,4 +66,108 @@ public interface PrettyPrinter {
 	 */
 
 	boolean process(Reader reader, int length, StringBuilder output) throws IOException;
+
+	/**
+	 * Pretty print XML characters to an output StringBuilder, reading the reader until end of stream.
+	 * <br>
+	 * Pretty printers which support incremental processing read the XML in fixed-size chunks, so that input memory use does not depend on the document size.
+	 * Others read the whole document before pretty printing. 
+	 * 
+	 * @param reader reader containing XML characters to be pretty printed
+	 * @param output the buffer to which indented XML is appended
+	 * @throws IOException from reader
+	 * @return true if pretty printing was successful. If false, the output buffer is unaffected.
+	 */
+
+	boolean process(Reader reader, StringBuilder output) throws IOException;
+
+	/**
+	 * Pretty print XML characters to an output Appendable, for example a Writer, reading the reader until end of stream.
+	 * <br>
+	 * Pretty printers which support incremental processing read the XML in fixed-size chunks and write the result of each chunk to the output, 
+	 * so that memory use does not depend on the document size. In that case, the output might contain partial output if pretty printing was not successful.
+	 * 
+	 * @param reader reader containing XML characters to be pretty printed
+	 * @param output the target to which indented XML is appended
+	 * @throws IOException from reader or output
+	 * @return true if pretty printing was successful.
+	 */
+
+	boolean process(Reader reader, Appendable output) throws IOException;
+
+	/**
+	 * Pretty print XML characters to an output Appendable, for example a Writer.
+	 * <br>
+	 * Pretty printers which support incremental processing pretty print the XML in fixed-size chunks and write the result of each chunk to the output, 
+	 * so that no full-size copy of the result is made. In that case, the output might contain partial output if pretty printing was not successful.
+	 * Others buffer the result internally and only write it to the output if pretty printing was successful.
+	 * 
+	 * @param chars characters containing XML to be pretty printed
+	 * @param output the target to which indented XML is appended
+	 * @throws IOException from output
+	 * @return true if pretty printing was successful.
+	 */
+
+	boolean process(String chars, Appendable output) throws IOException;
+
+	/**
+	 * Pretty print XML characters to an output Appendable, for example a Writer.
+	 * <br>
+	 * Pretty printers which support incremental processing pretty print the XML in fixed-size chunks and write the result of each chunk to the output, 
+	 * so that no full-size copy of the result is made. In that case, the output might contain partial output if pretty printing was not successful.
+	 * Others buffer the result internally and only write it to the output if pretty printing was successful.
+	 * 
+	 * @param chars characters containing XML to be pretty printed
+	 * @param offset the offset within the chars where the XML starts
+	 * @param length the length of the XML within the chars
+	 * @param output the target to which indented XML is appended
+	 * @throws IOException from output
+	 * @return true if pretty printing was successful.
+	 */
+
+	boolean process(char[] chars, int offset, int length, Appendable output) throws IOException;
+
+	/**
+	 * Pretty print a batch of XML documents to a single output StringBuilder.
+	 * <br>
+	 * The output of document <code>i</code> is found between <code>offsets[i]</code> and <code>offsets[i + 1]</code>. 
+	 * If pretty printing of a document was not successful, its output is empty.
+	 * 
+	 * @param documents characters containing XML to be pretty printed
+	 * @param output the buffer to which indented XML is appended
+	 * @param offsets array of at least <code>documents.size() + 1</code> elements, to which the output offsets are written
+	 * @param results array of at least <code>documents.size()</code> elements, to which the result of each document is written. May be null.
+	 * @return the number of documents which were successfully pretty printed
+	 */
+
+	int processBatch(List<? extends CharSequence> documents, StringBuilder output, int[] offsets, boolean[] results);
+
+	/**
+	 * Pretty print a batch of XML documents to a single output StringBuilder.
+	 * 
+	 * @param documents characters containing XML to be pretty printed
+	 * @param documentOffsets the offset within each of the documents where the XML starts
+	 * @param documentLengths the length of the XML within each of the documents
+	 * @param output the buffer to which indented XML is appended
+	 * @param offsets array of at least <code>documents.length + 1</code> elements, to which the output offsets are written
+	 * @param results array of at least <code>documents.length</code> elements, to which the result of each document is written. May be null.
+	 * @return the number of documents which were successfully pretty printed
+	 * @see #processBatch(List, StringBuilder, int[], boolean[])
+	 */
+
+	int processBatch(char[][] documents, int[] documentOffsets, int[] documentLengths, StringBuilder output, int[] offsets, boolean[] results);
+
+	/**
+	 * Estimate the length of the pretty-printed XML, i.e. for sizing output buffers. 
+	 * <br>
+	 * The estimate is an upper bound for plain pretty-printing of valid XML. Filtering and truncating
+	 * pretty printers might produce shorter or, for very short anonymized nodes, slightly longer output.
+	 * 
+	 * @param chars characters containing XML
+	 * @param offset the offset within the chars where the XML starts
+	 * @param length the length of the XML within the chars
+	 * @return estimated number of output characters
+	 */
+
+	int estimateOutputLength(char[] chars, int offset, int length);
 }
@@ -20,6 +20,8 @@
 
 package com.greenbird.xml.prettyprinter;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class PrettyPrinterBuilder {
 
 	public static PrettyPrinterBuilder newPrettyPrinter() {
@@ -31,6 +33,14 @@ public class PrettyPrinterBuilder {
 	public PrettyPrinter build() {
 		return factory.newPrettyPrinter();
 	}
+
+	public Utf8PrettyPrinter buildUtf8() {
+		return factory.newUtf8PrettyPrinter();
+	}
+
+	public IncrementalPrettyPrinter buildIncremental(Appendable output) {
+		return factory.newIncrementalPrettyPrinter(output);
+	}
 	
 	public PrettyPrinterBuilder robust() {
 		factory.setRobustness(true);
@@ -44,6 +54,12 @@ public class PrettyPrinterBuilder {
 		return this;
 	}
 
+	public PrettyPrinterBuilder minify() {
+		factory.setMinify(true);
+		
+		return this;
+	}
+
 	public PrettyPrinterBuilder prettyPrintCData() {
 		factory.setPrettyPrintCData(true);
 		
@@ -99,6 +115,33 @@ public class PrettyPrinterBuilder {
 		return this;
 	}
 
+	public PrettyPrinterBuilder specialize() {
+		factory.setSpecialize(true);
+		
+		return this;
+	}
+
+	public PrettyPrinterBuilder flightRecorderEvents() {
+		factory.setFlightRecorderEvents(true);
+		
+		return this;
+	}
+
+	public PrettyPrinterBuilder parallel() {
+		factory.setParallel(true);
+		
+		return this;
+	}
+
+	public PrettyPrinterBuilder parallel(int depth, int segmentLength, ForkJoinPool pool) {
+		factory.setParallel(true);
+		factory.setParallelDepth(depth);
+		factory.setParallelSegmentLength(segmentLength);
+		factory.setParallelPool(pool);
+		
+		return this;
+	}
+
 	public PrettyPrinterBuilder indentate(char indentationCharacter, int indentationMultiplier) {
 		factory.setIndentationCharacter(indentationCharacter);
 		factory.setIndentationMultiplier(indentationMultiplier);
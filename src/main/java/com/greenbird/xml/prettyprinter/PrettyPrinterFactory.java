@@ -21,16 +21,31 @@
 package com.greenbird.xml.prettyprinter;
 
 import java.util.List;
-
+import java.util.concurrent.ForkJoinPool;
+
+import com.greenbird.xml.prettyprinter.cache.CachingPrettyPrinter;
+import com.greenbird.xml.prettyprinter.cache.PrefixCachingPrettyPrinter;
+import com.greenbird.xml.prettyprinter.cache.ResultCache;
+import com.greenbird.xml.prettyprinter.log.LogStreamFormatter;
+import com.greenbird.xml.prettyprinter.metrics.InstrumentedPrettyPrinter;
+import com.greenbird.xml.prettyprinter.metrics.PrettyPrinterMetrics;
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.DefaultIncrementalPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.ParallelPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterForCDataAndComments;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterForTextNodesWithXML;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterWithMaxNodeLength;
+import com.greenbird.xml.prettyprinter.plain.PrettyPrinterSpecializer;
 import com.greenbird.xml.prettyprinter.plain.RobustPlainPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.filter.AbstractFilterPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+import com.greenbird.xml.prettyprinter.plain.filter.FilterListener;
+import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterMinifyingPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainIndentedPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinterForCDataAndComments;
 import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength;
@@ -41,13 +56,19 @@ import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterRobustPlainPretty
 import com.greenbird.xml.prettyprinter.plain.filter.SingleFilterPlainPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.filter.SingleFilterPlainPrettyPrinterWithMaxNodeLength;
 import com.greenbird.xml.prettyprinter.plain.ws.PlainIndentedPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.ws.PlainMinifyingPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.utf8.PlainUtf8PrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.ws.RobustPlainIndentedPrettyPrinter;
 
 public class PrettyPrinterFactory {
 	
+	private static final String FLIGHT_RECORDER_PRETTY_PRINTER = "com.greenbird.xml.prettyprinter.jfr.FlightRecorderPrettyPrinter";
+	
 	private boolean robustness = false;
 	
 	private boolean ignoreWhitespace = false;
+	
+	private boolean minify = false;
 
 	private boolean prettyPrintCData = false;
 	private boolean prettyPrintComments = false;
@@ -62,11 +83,24 @@ public class PrettyPrinterFactory {
 	private String[] anonymizeFilters;
 	private String[] pruneFilters;
 	
+	private boolean specialize = false;
+	
+	private FilterListener filterListener;
+	
+	private boolean flightRecorderEvents = false;
+	
+	private boolean parallel = false;
+	private int parallelDepth = ParallelPrettyPrinter.DEFAULT_DEPTH;
+	private int parallelSegmentLength = ParallelPrettyPrinter.DEFAULT_SEGMENT_LENGTH;
+	private ForkJoinPool parallelPool;
+
 	protected char indentationCharacter = AbstractFilterPrettyPrinter.defaultIndentationCharacter;
 	protected int indentationMultiplier = AbstractFilterPrettyPrinter.defaultIndentationMultiplier;
 
 	/** cached instance */
 	private PrettyPrinter prettyPrinter;
+	private Utf8PrettyPrinter utf8PrettyPrinter;
+	private AbstractPrettyPrinter incrementalPrettyPrinter;
 
 	/**
 	 * Spawn a factory instance. Equivalent to using the default constructor.
@@ -86,15 +120,165 @@ public class PrettyPrinterFactory {
 	
 	public PrettyPrinter newPrettyPrinter() {
 		if(prettyPrinter == null) {
-			prettyPrinter = configurePrettyPrinter();
+			PrettyPrinter prettyPrinter = configurePrettyPrinter();
+			if(flightRecorderEvents) {
+				prettyPrinter = newFlightRecorderPrettyPrinter(prettyPrinter);
+			}
+			this.prettyPrinter = prettyPrinter;
 		}
 		
 		return prettyPrinter;
 	}
 
+	/**
+	 * Spawn a pretty printer which records metrics for each operation. 
+	 * Filter matches are recorded for multi-filter pretty printers, in place of any configured filter listener.
+	 * 
+	 * @param metrics the metrics to record to
+	 * @return new, thread-safe pretty printer
+	 */
+	
+	public PrettyPrinter newInstrumentedPrettyPrinter(PrettyPrinterMetrics metrics) {
+		// new instance, as the filter listener is per instance
+		PrettyPrinter prettyPrinter = configurePrettyPrinter();
+		if(prettyPrinter instanceof AbstractMultiFilterPrettyPrinter) {
+			((AbstractMultiFilterPrettyPrinter)prettyPrinter).setFilterListener(metrics);
+		}
+		
+		return new InstrumentedPrettyPrinter(prettyPrinter, metrics);
+	}
+
+	/**
+	 * Spawn a pretty printer which returns cached output for repeated inputs.
+	 *
+	 * @param cache the cache, which may be shared with other pretty printers
+	 * @return new, thread-safe pretty printer
+	 */
+
+	public PrettyPrinter newCachingPrettyPrinter(ResultCache cache) {
+		return new CachingPrettyPrinter(newPrettyPrinter(), cache);
+	}
+
+	/**
+	 * Spawn a formatter which pretty prints XML documents embedded within lines of log text.
+	 *
+	 * @return new, thread-safe log stream formatter
+	 */
+
+	public LogStreamFormatter newLogStreamFormatter() {
+		return new LogStreamFormatter(newPrettyPrinter());
+	}
+
+	/**
+	 * Spawn a pretty printer for UTF-8 encoded XML. 
+	 * Only the plain configuration is supported, i.e. XML declaration and indentation.
+	 * 
+	 * @return new, or previously created, thread-safe pretty printer
+	 */
+	
+	public Utf8PrettyPrinter newUtf8PrettyPrinter() {
+		if(utf8PrettyPrinter == null) {
+			utf8PrettyPrinter = configureUtf8PrettyPrinter();
+		}
+		
+		return utf8PrettyPrinter;
+	}
+
+	/**
+	 * Spawn a pretty printer session for a document which arrives in chunks.
+	 * Only the plain configuration, optionally with anonymize and/or prune filters, is supported.
+	 * 
+	 * @param output the target to which indented XML is appended as the chunks are pretty printed
+	 * @return new session, which is not thread-safe
+	 */
+	
+	public IncrementalPrettyPrinter newIncrementalPrettyPrinter(Appendable output) {
+		if(incrementalPrettyPrinter == null) {
+			// not decorated, i.e. by flight recorder events, which do not apply to sessions
+			incrementalPrettyPrinter = toIncrementalPrettyPrinter(configurePrettyPrinter());
+		}
+		
+		return new DefaultIncrementalPrettyPrinter(incrementalPrettyPrinter.newIncrementalProcessor(), output);
+	}
+
+	/**
+	 * Spawn a pretty printer which remembers recent document prefixes up to the start tag of a boundary element, 
+	 * i.e. SOAP envelopes with common headers, so that only the remainder of documents with a known prefix is scanned.
+	 * Only the plain configuration, optionally with anonymize and/or prune filters, is supported.
+	 * 
+	 * @param boundaryElement local name of the element whose start tag ends the prefix, i.e. {@value PrefixCachingPrettyPrinter#DEFAULT_BOUNDARY_ELEMENT}
+	 * @return new, thread-safe pretty printer
+	 */
+	
+	public PrettyPrinter newPrefixCachingPrettyPrinter(String boundaryElement) {
+		AbstractPrettyPrinter prettyPrinter = toIncrementalPrettyPrinter(configurePrettyPrinter());
+		
+		return new PrefixCachingPrettyPrinter(prettyPrinter, boundaryElement, PrefixCachingPrettyPrinter.DEFAULT_MAX_PREFIX_LENGTH, PrefixCachingPrettyPrinter.DEFAULT_SLOTS);
+	}
+
+	private AbstractPrettyPrinter toIncrementalPrettyPrinter(PrettyPrinter prettyPrinter) {
+		if(prettyPrinter instanceof SingleFilterPlainPrettyPrinter) {
+			// equivalent
+			prettyPrinter = setFilterListener(construct(MultiFilterPlainPrettyPrinter.class, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier));
+		}
+		
+		if(!(prettyPrinter instanceof AbstractPrettyPrinter) || ((AbstractPrettyPrinter)prettyPrinter).newIncrementalProcessor() == null) {
+			throw new IllegalArgumentException("Incremental pretty printing not supported for " + prettyPrinter);
+		}
+		return (AbstractPrettyPrinter)prettyPrinter;
+	}
+
+	private PrettyPrinter configureParallelPrettyPrinter() {
+		if((anonymizeFilters != null && anonymizeFilters.length > 0) || (pruneFilters != null && pruneFilters.length > 0)) {
+			throw new IllegalArgumentException("No filtering in parallel");
+		}
+		if(robustness || ignoreWhitespace || minify || prettyPrintCData || prettyPrintComments || prettyPrintTextNodes) {
+			throw new IllegalArgumentException("Only plain pretty printing in parallel");
+		}
+		if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
+			throw new IllegalArgumentException("Max CDATA or text node length not supported in parallel");
+		}
+		// not specialized, segments are pretty printed by the superclass
+		return new ParallelPrettyPrinter(xmlDeclaration, indentationCharacter, indentationMultiplier, parallelDepth, parallelSegmentLength, parallelPool);
+	}
+
+	private Utf8PrettyPrinter configureUtf8PrettyPrinter() {
+		if((anonymizeFilters != null && anonymizeFilters.length > 0) || (pruneFilters != null && pruneFilters.length > 0)) {
+			throw new IllegalArgumentException("No filtering of UTF-8 bytes");
+		}
+		if(robustness || ignoreWhitespace || minify || prettyPrintCData || prettyPrintComments || prettyPrintTextNodes) {
+			throw new IllegalArgumentException("Only plain pretty printing of UTF-8 bytes");
+		}
+		if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
+			throw new IllegalArgumentException("Max CDATA or text node length not supported for UTF-8 bytes");
+		}
+		return new PlainUtf8PrettyPrinter(xmlDeclaration, indentationCharacter, indentationMultiplier);
+	}
+
+	private static PrettyPrinter newFlightRecorderPrettyPrinter(PrettyPrinter prettyPrinter) {
+		try {
+			Class<?> type = Class.forName(FLIGHT_RECORDER_PRETTY_PRINTER);
+			
+			return (PrettyPrinter)type.getConstructor(PrettyPrinter.class).newInstance(prettyPrinter);
+		} catch(Exception e) {
+			// not compiled or not JDK 11+
+		} catch(LinkageError e) {
+			// not JDK 11+
+		}
+		return prettyPrinter;
+	}
+
 	private PrettyPrinter configurePrettyPrinter() {
+		if(parallel) {
+			return configureParallelPrettyPrinter();
+		}
+		
+		if(minify) {
+			return configureMinifyingPrettyPrinter();
+		}
+		
 		if((anonymizeFilters != null && anonymizeFilters.length > 0) || (pruneFilters != null && pruneFilters.length > 0)) {
-			return configurePrettyPrinterWithFilters();
+			return setFilterListener(configurePrettyPrinterWithFilters());
 		}
 		
 		if(robustness && !prettyPrintCData && !prettyPrintComments && !prettyPrintTextNodes) {
@@ -103,55 +287,91 @@ public class PrettyPrinterFactory {
 		
 		if(ignoreWhitespace) {
 			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-				throw new IllegalArgumentException("Max CDATA or text node length not supported while removing existing indentation");
+				// filter engine without filters, so same restrictions as with filters
+				if(robustness || prettyPrintCData || prettyPrintComments || prettyPrintTextNodes) {
+					throw new IllegalArgumentException("No pretty printing of CDATA, text or comment nodes while removing existing indentation with max CDATA or text node length");
+				}
+				return construct(MultiFilterPlainIndentedPrettyPrinter.class, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, null, null, indentationCharacter, indentationMultiplier);
 			}
 
 			if(prettyPrintComments|| prettyPrintCData || prettyPrintTextNodes) {
-				return new RobustPlainIndentedPrettyPrinter(prettyPrintTextNodes, robustness, prettyPrintCData, robustness, prettyPrintComments, robustness, xmlDeclaration, indentationCharacter, indentationMultiplier);
+				return construct(RobustPlainIndentedPrettyPrinter.class, prettyPrintTextNodes, robustness, prettyPrintCData, robustness, prettyPrintComments, robustness, xmlDeclaration, indentationCharacter, indentationMultiplier);
 			}
-			
-			return new PlainIndentedPrettyPrinter(xmlDeclaration, indentationCharacter, indentationMultiplier);
+
+			return construct(PlainIndentedPrettyPrinter.class, xmlDeclaration, indentationCharacter, indentationMultiplier);
 		}
 
 		if(robustness) {
 			if(!prettyPrintCData && !prettyPrintComments) {
 				// pretty print xml in text nodes
 				if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-					return new PlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength(false, false, true, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
+					return construct(PlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength.class, false, false, true, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
 				}
-				return new PlainPrettyPrinterForTextNodesWithXML(false, false, true, xmlDeclaration, indentationCharacter, indentationMultiplier);
+				return construct(PlainPrettyPrinterForTextNodesWithXML.class, false, false, true, xmlDeclaration, indentationCharacter, indentationMultiplier);
 			}
 
 			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-				return new RobustPlainPrettyPrinter(prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
+				return construct(RobustPlainPrettyPrinter.class, prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
 			} else {
-				return new RobustPlainPrettyPrinter(prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, indentationCharacter, indentationMultiplier);
+				return construct(RobustPlainPrettyPrinter.class, prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, indentationCharacter, indentationMultiplier);
 			}
 		}
 
 		if(prettyPrintTextNodes) {
 			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-				return new PlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength(prettyPrintCData, prettyPrintComments, false, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
+				return construct(PlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength.class, prettyPrintCData, prettyPrintComments, false, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
 			}
-			return new PlainPrettyPrinterForTextNodesWithXML(prettyPrintCData, prettyPrintComments, false, xmlDeclaration, indentationCharacter, indentationMultiplier);
+			return construct(PlainPrettyPrinterForTextNodesWithXML.class, prettyPrintCData, prettyPrintComments, false, xmlDeclaration, indentationCharacter, indentationMultiplier);
 		}
 
 		if(prettyPrintCData || prettyPrintComments) {
 			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-				return new PlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength(prettyPrintCData, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
+				return construct(PlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength.class, prettyPrintCData, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
 			}
-			return new PlainPrettyPrinterForCDataAndComments(prettyPrintCData, prettyPrintComments, xmlDeclaration, indentationCharacter, indentationMultiplier);
+			return construct(PlainPrettyPrinterForCDataAndComments.class, prettyPrintCData, prettyPrintComments, xmlDeclaration, indentationCharacter, indentationMultiplier);
 		}
 
 		if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-			return new PlainPrettyPrinterWithMaxNodeLength(xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
+			return construct(PlainPrettyPrinterWithMaxNodeLength.class, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
 		}
-		return new PlainPrettyPrinter(xmlDeclaration, indentationCharacter, indentationMultiplier);
+		return construct(PlainPrettyPrinter.class, xmlDeclaration, indentationCharacter, indentationMultiplier);
 	}
 	
+	private PrettyPrinter configureMinifyingPrettyPrinter() {
+		if(robustness || prettyPrintCData || prettyPrintComments || prettyPrintTextNodes) {
+			throw new IllegalArgumentException("No pretty printing of CDATA, text or comment nodes while minifying");
+		}
+
+		if((anonymizeFilters != null && anonymizeFilters.length > 0) || (pruneFilters != null && pruneFilters.length > 0) || maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
+			PrettyPrinter prettyPrinter;
+			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
+				prettyPrinter = construct(MultiFilterMinifyingPrettyPrinter.class, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters);
+			} else {
+				prettyPrinter = construct(MultiFilterMinifyingPrettyPrinter.class, xmlDeclaration, anonymizeFilters, pruneFilters);
+			}
+			return setFilterListener(prettyPrinter);
+		}
+		
+		return construct(PlainMinifyingPrettyPrinter.class, xmlDeclaration);
+	}
+
+	private PrettyPrinter setFilterListener(PrettyPrinter prettyPrinter) {
+		if(filterListener != null && prettyPrinter instanceof AbstractMultiFilterPrettyPrinter) {
+			((AbstractMultiFilterPrettyPrinter)prettyPrinter).setFilterListener(filterListener);
+		}
+		return prettyPrinter;
+	}
+
 	private PrettyPrinter configurePrettyPrinterWithFilters() {
 		if(ignoreWhitespace) {
-			throw new IllegalArgumentException("No ignore of whitespace with filtering");
+			if(robustness || prettyPrintCData || prettyPrintComments || prettyPrintTextNodes) {
+				throw new IllegalArgumentException("No pretty printing of CDATA, text or comment nodes while removing existing indentation with filtering");
+			}
+
+			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
+				return construct(MultiFilterPlainIndentedPrettyPrinter.class, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+			}
+			return construct(MultiFilterPlainIndentedPrettyPrinter.class, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 		}
 
 		if(robustness && !prettyPrintCData && !prettyPrintComments && !prettyPrintTextNodes) {
@@ -162,57 +382,66 @@ public class PrettyPrinterFactory {
 			if(!prettyPrintCData && !prettyPrintComments) {
 				// pretty print text nodes
 				if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-					return new MultiFilterPlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength(false, false, true, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+					return construct(MultiFilterPlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength.class, false, false, true, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 				}
-				return new MultiFilterPlainPrettyPrinterForTextNodesWithXML(false, false, true, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+				return construct(MultiFilterPlainPrettyPrinterForTextNodesWithXML.class, false, false, true, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 			}
 			
 			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-				return new MultiFilterRobustPlainPrettyPrinter(prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+				return construct(MultiFilterRobustPlainPrettyPrinter.class, prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 			} else {
-				return new MultiFilterRobustPlainPrettyPrinter(prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+				return construct(MultiFilterRobustPlainPrettyPrinter.class, prettyPrintTextNodes, prettyPrintTextNodes, prettyPrintCData, prettyPrintCData, prettyPrintComments, prettyPrintComments, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 			}
 		}
 
 		if(prettyPrintTextNodes) {
 			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-				return new MultiFilterPlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength(prettyPrintCData, prettyPrintComments, robustness, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+				return construct(MultiFilterPlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength.class, prettyPrintCData, prettyPrintComments, robustness, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 			}
-			return new MultiFilterPlainPrettyPrinterForTextNodesWithXML(prettyPrintCData, prettyPrintComments, robustness, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+			return construct(MultiFilterPlainPrettyPrinterForTextNodesWithXML.class, prettyPrintCData, prettyPrintComments, robustness, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 		}
 
 		if(prettyPrintCData || prettyPrintComments) {
 			if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
-				return new MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength(prettyPrintCData, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+				return construct(MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength.class, prettyPrintCData, prettyPrintComments, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 			}
-			return new MultiFilterPlainPrettyPrinterForCDataAndComments(prettyPrintCData, prettyPrintComments, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+			return construct(MultiFilterPlainPrettyPrinterForCDataAndComments.class, prettyPrintCData, prettyPrintComments, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 		}
 
 		if(maxCDATANodeLength != -1 || maxTextNodeLength != -1) {
 			
 			// check for single prune/anon filter
 			if((anonymizeFilters == null || anonymizeFilters.length == 0) && pruneFilters.length == 1 && !pruneFilters[0].startsWith(AbstractFilterPrettyPrinter.ANY_PREFIX)) {
-				return new SingleFilterPlainPrettyPrinterWithMaxNodeLength(xmlDeclaration, pruneFilters[0], FilterType.PRUNE, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
+				return construct(SingleFilterPlainPrettyPrinterWithMaxNodeLength.class, xmlDeclaration, pruneFilters[0], FilterType.PRUNE, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
 			} else if((pruneFilters == null || pruneFilters.length == 0)  && anonymizeFilters.length == 1 && !anonymizeFilters[0].startsWith(AbstractFilterPrettyPrinter.ANY_PREFIX)) {
-				return new SingleFilterPlainPrettyPrinterWithMaxNodeLength(xmlDeclaration, anonymizeFilters[0], FilterType.ANON, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
+				return construct(SingleFilterPlainPrettyPrinterWithMaxNodeLength.class, xmlDeclaration, anonymizeFilters[0], FilterType.ANON, maxTextNodeLength, maxCDATANodeLength, indentationCharacter, indentationMultiplier);
 			}
 			
-			return new MultiFilterPlainPrettyPrinterWithMaxNodeLength(xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+			return construct(MultiFilterPlainPrettyPrinterWithMaxNodeLength.class, xmlDeclaration, maxTextNodeLength, maxCDATANodeLength, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 		}
 		
 		// check for single prune/anon filter
 		if((anonymizeFilters == null || anonymizeFilters.length == 0) && pruneFilters.length == 1 && !pruneFilters[0].startsWith(AbstractFilterPrettyPrinter.ANY_PREFIX)) {
-			return new SingleFilterPlainPrettyPrinter(xmlDeclaration, pruneFilters[0], FilterType.PRUNE, indentationCharacter, indentationMultiplier);
+			return construct(SingleFilterPlainPrettyPrinter.class, xmlDeclaration, pruneFilters[0], FilterType.PRUNE, indentationCharacter, indentationMultiplier);
 		} else if((pruneFilters == null || pruneFilters.length == 0)  && anonymizeFilters.length == 1 && !anonymizeFilters[0].startsWith(AbstractFilterPrettyPrinter.ANY_PREFIX)) {
-			return new SingleFilterPlainPrettyPrinter(xmlDeclaration, anonymizeFilters[0], FilterType.ANON, indentationCharacter, indentationMultiplier);
+			return construct(SingleFilterPlainPrettyPrinter.class, xmlDeclaration, anonymizeFilters[0], FilterType.ANON, indentationCharacter, indentationMultiplier);
 		}
 
-		return new MultiFilterPlainPrettyPrinter(xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
+		return construct(MultiFilterPlainPrettyPrinter.class, xmlDeclaration, anonymizeFilters, pruneFilters, indentationCharacter, indentationMultiplier);
 
 	}
 
+	private PrettyPrinter construct(Class<? extends PrettyPrinter> type, Object ... arguments) {
+		if(specialize) {
+			return PrettyPrinterSpecializer.newPrettyPrinter(type, arguments);
+		}
+		return PrettyPrinterSpecializer.newRegularPrettyPrinter(type, arguments);
+	}
+
 	private void clearPrettyPrinter() {
 		prettyPrinter = null;
+		utf8PrettyPrinter = null;
+		incrementalPrettyPrinter = null;
 	}
 
 	public boolean isIgnoreWhitespace() {
@@ -231,6 +460,22 @@ public class PrettyPrinterFactory {
 		this.ignoreWhitespace = ignore;
 	}
 
+	public boolean isMinify() {
+		return minify;
+	}
+
+	/**
+	 * Minify rather than pretty print, i.e. remove any 'ignorable' whitespace already present in the input XML 
+	 * and do not indent. Supports anonymize and prune filters and max text and CDATA node length.
+	 * 
+	 * @param minify true if the output should be compact
+	 */
+	
+	public void setMinify(boolean minify) {
+		clearPrettyPrinter();
+		this.minify = minify;
+	}
+
 	public boolean isPrettyPrintCData() {
 		return prettyPrintCData;
 	}
@@ -429,4 +674,113 @@ public class PrettyPrinterFactory {
 	public char getIndentationCharacter() {
 		return indentationCharacter;
 	}
+
+	public boolean isSpecialize() {
+		return specialize;
+	}
+
+	/**
+	 * Generate a pretty printer class specialized for the current configuration, in which the configuration is constant. 
+	 * Requires ASM on the classpath, otherwise a regular pretty printer is used.
+	 * 
+	 * @param specialize true if enabled
+	 */
+
+	public void setSpecialize(boolean specialize) {
+		clearPrettyPrinter();
+		this.specialize = specialize;
+	}
+
+	public FilterListener getFilterListener() {
+		return filterListener;
+	}
+
+	/**
+	 * Listen for filter matches, for multi-filter pretty printers.
+	 * 
+	 * @param filterListener listener, or null for none
+	 */
+
+	public void setFilterListener(FilterListener filterListener) {
+		clearPrettyPrinter();
+		this.filterListener = filterListener;
+	}
+
+	public boolean isFlightRecorderEvents() {
+		return flightRecorderEvents;
+	}
+
+	/**
+	 * Emit Java Flight Recorder events for each operation. Requires JDK 11 or later, otherwise ignored.
+	 * When the events are not enabled in a recording, the overhead is a single check per operation.
+	 * 
+	 * @param flightRecorderEvents true if enabled
+	 */
+
+	public void setFlightRecorderEvents(boolean flightRecorderEvents) {
+		clearPrettyPrinter();
+		this.flightRecorderEvents = flightRecorderEvents;
+	}
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Pretty print very large documents by splitting them into segments of sibling subtrees, which are pretty printed in parallel.
+	 * Only the plain configuration is supported, i.e. XML declaration and indentation.
+	 * 
+	 * @param parallel true if enabled
+	 */
+
+	public void setParallel(boolean parallel) {
+		clearPrettyPrinter();
+		this.parallel = parallel;
+	}
+
+	public int getParallelDepth() {
+		return parallelDepth;
+	}
+
+	/**
+	 * Set the depth at which documents are split when pretty printing in parallel, i.e. 1 for the children of the root element.
+	 * 
+	 * @param parallelDepth split depth
+	 */
+
+	public void setParallelDepth(int parallelDepth) {
+		clearPrettyPrinter();
+		this.parallelDepth = parallelDepth;
+	}
+
+	public int getParallelSegmentLength() {
+		return parallelSegmentLength;
+	}
+
+	/**
+	 * Set the approximate number of characters per segment when pretty printing in parallel. 
+	 * Documents shorter than two segments are pretty printed sequentially.
+	 * 
+	 * @param parallelSegmentLength segment length
+	 */
+
+	public void setParallelSegmentLength(int parallelSegmentLength) {
+		clearPrettyPrinter();
+		this.parallelSegmentLength = parallelSegmentLength;
+	}
+
+	public ForkJoinPool getParallelPool() {
+		return parallelPool;
+	}
+
+	/**
+	 * Set the pool on which segments are pretty printed in parallel.
+	 * 
+	 * @param parallelPool pool, or null for a shared default pool
+	 */
+
+	public void setParallelPool(ForkJoinPool parallelPool) {
+		clearPrettyPrinter();
+		this.parallelPool = parallelPool;
+	}
 }
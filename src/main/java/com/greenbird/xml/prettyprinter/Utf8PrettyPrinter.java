@@ -0,0 +1,77 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Interface for pretty-printing operations on XML as UTF-8 encoded bytes.
+ * <br>
+ * As all markup characters are ASCII, the structure is found without decoding and multi-byte characters are passed through as-is.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public interface Utf8PrettyPrinter {
+
+	/**
+	 * Pretty print UTF-8 encoded XML to an output buffer.
+	 *
+	 * @param bytes bytes containing XML to be pretty printed
+	 * @param offset the offset within the bytes where the XML starts
+	 * @param length the length of the XML within the bytes
+	 * @param output the buffer to which indented XML is appended
+	 * @return true if pretty printing was successful. If false, the output buffer is unaffected.
+	 */
+
+	boolean process(byte[] bytes, int offset, int length, ByteArrayBuilder output);
+
+	/**
+	 * Pretty print UTF-8 encoded XML to an output buffer.
+	 * <br>
+	 * The remaining bytes of the buffer are processed, the position of the buffer is not changed.
+	 * Buffers without an accessible array are copied.
+	 *
+	 * @param buffer buffer containing XML to be pretty printed
+	 * @param output the buffer to which indented XML is appended
+	 * @return true if pretty printing was successful. If false, the output buffer is unaffected.
+	 */
+
+	boolean process(ByteBuffer buffer, ByteArrayBuilder output);
+
+	/**
+	 * Pretty print an UTF-8 encoded XML file to another file, i.e. for huge documents.
+	 * <br>
+	 * The input file is memory-mapped a window at a time and scanned as bytes, and the output is written in large blocks,
+	 * so the document is never held in memory.
+	 *
+	 * @param input file containing XML to be pretty printed
+	 * @param output file to which indented XML is written, created or truncated
+	 * @return true if pretty printing was successful. If false, the output file is empty.
+	 * @throws IOException if the input file could not be read or the output file written
+	 */
+
+	boolean process(Path input, Path output) throws IOException;
+
+}
@@ -0,0 +1,427 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+
+/**
+ *
+ * Asynchronous pretty-printing - moves pretty-printing off the submitting thread.
+ * <br>
+ * Submissions are added to a bounded queue and pretty-printed by a number of worker threads,
+ * which deliver the result to a {@linkplain PrettyPrinterCallback} or a {@linkplain Future}. If the queue is full,
+ * the {@linkplain Backpressure} policy decides whether to wait, drop the submission or deliver the XML unformatted.
+ * <br>
+ * By default, workers are virtual threads if supported by the JVM (JDK 21 or later), otherwise daemon platform threads.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class AsyncPrettyPrinter {
+
+	private static final int MAX_RETAINED_OUTPUT_CAPACITY = 1024 * 1024;
+
+	private static final Submission SHUTDOWN = new Submission(null, null);
+
+	private static class Submission {
+
+		private final String xml;
+		private final PrettyPrinterCallback callback;
+
+		public Submission(String xml, PrettyPrinterCallback callback) {
+			this.xml = xml;
+			this.callback = callback;
+		}
+	}
+
+	private static class ResultFuture implements Future<String>, PrettyPrinterCallback {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private volatile String output;
+		private volatile boolean cancelled;
+		private volatile Throwable failure;
+
+		public void onResult(String input, String output, boolean prettyPrinted) {
+			this.output = output;
+
+			latch.countDown();
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			// only dropped submissions are cancelled
+			return false;
+		}
+
+		private void drop() {
+			cancelled = true;
+
+			latch.countDown();
+		}
+
+		private void fail(Throwable failure) {
+			this.failure = failure;
+
+			latch.countDown();
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		public boolean isDone() {
+			return latch.getCount() == 0;
+		}
+
+		public String get() throws InterruptedException, ExecutionException {
+			latch.await();
+
+			return getOutput();
+		}
+
+		public String get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			if(!latch.await(timeout, unit)) {
+				throw new TimeoutException();
+			}
+			return getOutput();
+		}
+
+		private String getOutput() throws ExecutionException {
+			if(cancelled) {
+				throw new CancellationException("Submission dropped");
+			}
+			if(failure != null) {
+				throw new ExecutionException(failure);
+			}
+			return output;
+		}
+	}
+
+	private class Worker implements Runnable {
+
+		private StringBuilder output = new StringBuilder();
+
+		public void run() {
+			while(true) {
+				items.acquireUninterruptibly();
+				// an item permit is only released once the submission is in the queue
+				Submission submission = queue.poll();
+				free.release();
+
+				if(submission == SHUTDOWN) {
+					break;
+				}
+
+				String xml = submission.xml;
+
+				output.setLength(0);
+				boolean prettyPrinted;
+				try {
+					prettyPrinted = prettyPrinter.process(xml, output);
+				} catch(RuntimeException e) {
+					// keep the worker alive
+					output = new StringBuilder();
+
+					fail(submission, e);
+
+					continue;
+				}
+				String result = prettyPrinted ? output.toString() : xml;
+
+				if(output.capacity() > MAX_RETAINED_OUTPUT_CAPACITY) {
+					output = new StringBuilder();
+				}
+
+				try {
+					submission.callback.onResult(xml, result, prettyPrinted);
+				} catch(RuntimeException e) {
+					// keep the worker alive
+					report(e);
+				}
+			}
+		}
+
+		private void fail(Submission submission, RuntimeException e) {
+			if(submission.callback instanceof ResultFuture) {
+				((ResultFuture)submission.callback).fail(e);
+
+				return;
+			}
+			report(e);
+
+			// the callback is called once per accepted submission
+			try {
+				submission.callback.onResult(submission.xml, submission.xml, false);
+			} catch(RuntimeException callbackException) {
+				report(callbackException);
+			}
+		}
+
+		private void report(RuntimeException e) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+		}
+	}
+
+	/**
+	 * Get a factory for virtual threads.
+	 *
+	 * @return thread factory, or null if virtual threads are not supported.
+	 */
+
+	public static ThreadFactory newVirtualThreadFactory() {
+		try {
+			// Thread.ofVirtual().factory(), resolved reflectively for older JDKs
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+
+			return (ThreadFactory)factory.invoke(builder);
+		} catch(Exception e) {
+			return null;
+		}
+	}
+
+	public static ThreadFactory newDaemonThreadFactory() {
+		final AtomicInteger count = new AtomicInteger();
+
+		return new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "xml-pretty-printer-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	protected final PrettyPrinter prettyPrinter;
+	protected final Backpressure backpressure;
+
+	private final ArrayBlockingQueue<Submission> queue;
+	// permits for free slots and queued items, the only coordination between producers and workers, 
+	// so that the queue is never full when offered to, nor empty when polled
+	private final Semaphore free;
+	private final Semaphore items = new Semaphore(0);
+
+	private final Thread[] workers;
+
+	private volatile boolean shutdown;
+	// submissions in progress, so that no submission is queued after the workers have been told to stop
+	private final AtomicInteger submitting = new AtomicInteger();
+
+	public AsyncPrettyPrinter(PrettyPrinter prettyPrinter, int capacity, Backpressure backpressure, int workers, ThreadFactory threadFactory) {
+		if(prettyPrinter == null) {
+			throw new IllegalArgumentException("Expected pretty printer");
+		}
+		if(backpressure == null) {
+			throw new IllegalArgumentException("Expected backpressure policy");
+		}
+		if(workers <= 0) {
+			throw new IllegalArgumentException("Expected positive number of workers, not " + workers);
+		}
+		this.prettyPrinter = prettyPrinter;
+		this.backpressure = backpressure;
+		if(capacity <= 0) {
+			throw new IllegalArgumentException("Expected positive capacity, not " + capacity);
+		}
+		this.queue = new ArrayBlockingQueue<Submission>(capacity);
+		this.free = new Semaphore(capacity);
+
+		this.workers = new Thread[workers];
+		for(int i = 0; i < workers; i++) {
+			this.workers[i] = threadFactory.newThread(new Worker());
+		}
+		for(Thread worker : this.workers) {
+			worker.start();
+		}
+	}
+
+	public AsyncPrettyPrinter(PrettyPrinter prettyPrinter, int capacity, Backpressure backpressure, int workers) {
+		this(prettyPrinter, capacity, backpressure, workers, getDefaultThreadFactory());
+	}
+
+	public AsyncPrettyPrinter(PrettyPrinter prettyPrinter, int capacity, Backpressure backpressure) {
+		this(prettyPrinter, capacity, backpressure, Runtime.getRuntime().availableProcessors());
+	}
+
+	private static ThreadFactory getDefaultThreadFactory() {
+		ThreadFactory threadFactory = newVirtualThreadFactory();
+		if(threadFactory != null) {
+			return threadFactory;
+		}
+		return newDaemonThreadFactory();
+	}
+
+	/**
+	 * Submit XML for pretty-printing.
+	 *
+	 * @param xml XML to be pretty printed
+	 * @param callback receiver of the result
+	 * @return true if the submission was accepted, false if dropped (or interrupted while waiting for the queue to have room).
+	 * @throws IllegalStateException if shut down
+	 */
+
+	public boolean submit(String xml, PrettyPrinterCallback callback) {
+		submitting.incrementAndGet();
+		try {
+			if(shutdown) {
+				throw new IllegalStateException("Shut down");
+			}
+			return enqueue(xml, callback);
+		} finally {
+			submitting.decrementAndGet();
+		}
+	}
+
+	private boolean enqueue(String xml, PrettyPrinterCallback callback) {
+		if(!free.tryAcquire()) {
+			switch(backpressure) {
+				case BLOCK : {
+					try {
+						free.acquire();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+
+						return false;
+					}
+					break;
+				}
+				case DROP : {
+					return false;
+				}
+				case PASS_THROUGH : {
+					callback.onResult(xml, xml, false);
+
+					return true;
+				}
+			}
+		}
+		enqueue(new Submission(xml, callback));
+
+		return true;
+	}
+
+	/**
+	 * Submit XML for pretty-printing.
+	 *
+	 * @param xml XML to be pretty printed
+	 * @return the pretty-printed XML, or the input if not pretty-printed. The future is cancelled if the submission was dropped.
+	 * @throws IllegalStateException if shut down
+	 */
+
+	public Future<String> submit(String xml) {
+		ResultFuture future = new ResultFuture();
+		if(!submit(xml, future)) {
+			future.drop();
+		}
+		return future;
+	}
+
+	private void enqueue(Submission submission) {
+		// a free permit is only released once a submission has been removed from the queue
+		queue.offer(submission);
+		items.release();
+	}
+
+	/**
+	 * Stop accepting submissions. Already accepted submissions are still pretty-printed.
+	 */
+
+	public void shutdown() {
+		synchronized(this) {
+			if(shutdown) {
+				return;
+			}
+			shutdown = true;
+		}
+		while(submitting.get() > 0) {
+			Thread.yield();
+		}
+		for(int i = 0; i < workers.length; i++) {
+			free.acquireUninterruptibly();
+
+			enqueue(SHUTDOWN);
+		}
+	}
+
+	/**
+	 * Wait for the workers to complete after {@linkplain #shutdown()}.
+	 *
+	 * @param timeout maximum time to wait
+	 * @param unit unit of timeout
+	 * @return true if all workers completed
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for(Thread worker : workers) {
+			long remaining = deadline - System.nanoTime();
+			if(remaining <= 0) {
+				return !worker.isAlive() && isTerminated();
+			}
+			TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+		}
+		return isTerminated();
+	}
+
+	public boolean isTerminated() {
+		for(Thread worker : workers) {
+			if(worker.isAlive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+
+	public Backpressure getBackpressure() {
+		return backpressure;
+	}
+
+	public int getWorkers() {
+		return workers.length;
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncPrettyPrinter [prettyPrinter=" + prettyPrinter + ", backpressure=" + backpressure + ", workers=" + workers.length + "]";
+	}
+}
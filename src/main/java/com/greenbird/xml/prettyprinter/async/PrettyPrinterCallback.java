@@ -0,0 +1,42 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.async;
+
+/**
+ * 
+ * Receiver of the result of an asynchronous pretty-printing operation.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public interface PrettyPrinterCallback {
+
+	/**
+	 * Called once per accepted submission, from a worker thread or, when passed through, from the submitting thread.
+	 * 
+	 * @param input the submitted XML
+	 * @param output the pretty-printed XML, or the input if not pretty-printed
+	 * @param prettyPrinted true if pretty-printed, false if the XML was invalid, passed through or pretty-printing failed with an exception
+	 */
+
+	void onResult(String input, String output, boolean prettyPrinted);
+}
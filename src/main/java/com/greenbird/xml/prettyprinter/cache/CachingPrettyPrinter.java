@@ -0,0 +1,219 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.cache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.List;
+
+import com.greenbird.xml.prettyprinter.BatchProcessor;
+import com.greenbird.xml.prettyprinter.BufferPool;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+
+/**
+ *
+ * Decorator which returns the cached output for inputs which have been pretty-printed before,
+ * i.e. for services which log the same request or response over and over.
+ * <br>
+ * Only successful results are cached. Inputs from {@linkplain Reader}s are not cached, as they would have to be read in full first.
+ * The output for an {@linkplain Appendable} is pretty-printed to a pooled buffer, so that it can be cached.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class CachingPrettyPrinter implements PrettyPrinter {
+
+	protected final PrettyPrinter prettyPrinter;
+	protected final ResultCache cache;
+
+	/** hash of the configuration, i.e. the decorated pretty printer */
+	protected final long seed;
+
+	public CachingPrettyPrinter(PrettyPrinter prettyPrinter, ResultCache cache) {
+		if(prettyPrinter == null) {
+			throw new IllegalArgumentException("Expected pretty printer");
+		}
+		if(cache == null) {
+			throw new IllegalArgumentException("Expected cache");
+		}
+		this.prettyPrinter = prettyPrinter;
+		this.cache = cache;
+		this.seed = (long)prettyPrinter.toString().hashCode() << 32 | (System.identityHashCode(prettyPrinter) & 0xFFFFFFFFL);
+	}
+
+	public boolean process(String chars, StringBuilder output) {
+		int length = chars.length();
+		if(!cache.isCacheable(length)) {
+			return prettyPrinter.process(chars, output);
+		}
+		long hash = ResultCache.hash(seed, chars);
+
+		char[] cached = cache.get(hash, prettyPrinter, chars);
+		if(cached != null) {
+			output.append(cached);
+
+			return true;
+		}
+
+		int start = output.length();
+		if(prettyPrinter.process(chars, output)) {
+			cache.put(hash, prettyPrinter, chars.toCharArray(), output, start);
+
+			return true;
+		}
+		return false;
+	}
+
+	public boolean process(char[] chars, int offset, int length, StringBuilder output) {
+		if(!cache.isCacheable(length)) {
+			return prettyPrinter.process(chars, offset, length, output);
+		}
+		long hash = ResultCache.hash(seed, chars, offset, length);
+
+		char[] cached = cache.get(hash, prettyPrinter, chars, offset, length);
+		if(cached != null) {
+			output.append(cached);
+
+			return true;
+		}
+
+		int start = output.length();
+		if(prettyPrinter.process(chars, offset, length, output)) {
+			char[] input = new char[length];
+			System.arraycopy(chars, offset, input, 0, length);
+
+			cache.put(hash, prettyPrinter, input, output, start);
+
+			return true;
+		}
+		return false;
+	}
+
+	public boolean process(Reader reader, int length, StringBuilder output) throws IOException {
+		return prettyPrinter.process(reader, length, output);
+	}
+
+	public boolean process(Reader reader, StringBuilder output) throws IOException {
+		return prettyPrinter.process(reader, output);
+	}
+
+	public boolean process(Reader reader, Appendable output) throws IOException {
+		return prettyPrinter.process(reader, output);
+	}
+
+	public boolean process(String chars, Appendable output) throws IOException {
+		int length = chars.length();
+		if(!cache.isCacheable(length)) {
+			return prettyPrinter.process(chars, output);
+		}
+		long hash = ResultCache.hash(seed, chars);
+
+		char[] cached = cache.get(hash, prettyPrinter, chars);
+		if(cached != null) {
+			append(cached, output);
+
+			return true;
+		}
+
+		BufferPool pool = BufferPool.getDefault();
+		StringBuilder buffer = pool.acquireBuilder(length + (length >> 2));
+		try {
+			if(prettyPrinter.process(chars, buffer)) {
+				cache.put(hash, prettyPrinter, chars.toCharArray(), buffer, 0);
+
+				output.append(buffer);
+
+				return true;
+			}
+			return false;
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	public boolean process(char[] chars, int offset, int length, Appendable output) throws IOException {
+		if(!cache.isCacheable(length)) {
+			return prettyPrinter.process(chars, offset, length, output);
+		}
+		long hash = ResultCache.hash(seed, chars, offset, length);
+
+		char[] cached = cache.get(hash, prettyPrinter, chars, offset, length);
+		if(cached != null) {
+			append(cached, output);
+
+			return true;
+		}
+
+		BufferPool pool = BufferPool.getDefault();
+		StringBuilder buffer = pool.acquireBuilder(length + (length >> 2));
+		try {
+			if(prettyPrinter.process(chars, offset, length, buffer)) {
+				char[] input = new char[length];
+				System.arraycopy(chars, offset, input, 0, length);
+
+				cache.put(hash, prettyPrinter, input, buffer, 0);
+
+				output.append(buffer);
+
+				return true;
+			}
+			return false;
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	private static void append(char[] chars, Appendable output) throws IOException {
+		if(output instanceof Writer) {
+			((Writer)output).write(chars);
+		} else {
+			output.append(CharBuffer.wrap(chars));
+		}
+	}
+
+	public int processBatch(List<? extends CharSequence> documents, StringBuilder output, int[] offsets, boolean[] results) {
+		return BatchProcessor.processBatch(this, documents, output, offsets, results);
+	}
+
+	public int processBatch(char[][] documents, int[] documentOffsets, int[] documentLengths, StringBuilder output, int[] offsets, boolean[] results) {
+		return BatchProcessor.processBatch(this, documents, documentOffsets, documentLengths, output, offsets, results);
+	}
+
+	public int estimateOutputLength(char[] chars, int offset, int length) {
+		return prettyPrinter.estimateOutputLength(chars, offset, length);
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+
+	public ResultCache getCache() {
+		return cache;
+	}
+
+	@Override
+	public String toString() {
+		return "CachingPrettyPrinter [prettyPrinter=" + prettyPrinter + ", cache=" + cache + "]";
+	}
+}
@@ -0,0 +1,360 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.cache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.greenbird.xml.prettyprinter.BatchProcessor;
+import com.greenbird.xml.prettyprinter.BufferPool;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.metrics.StripedCounter;
+import com.greenbird.xml.prettyprinter.plain.AbstractIncrementalProcessor;
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter;
+
+/**
+ *
+ * Decorator which remembers recent document prefixes, i.e. a SOAP envelope with WS-Addressing and WS-Security headers,
+ * together with their output and the parser state at their end.
+ * <br>
+ * The prefix of a document ends with the start tag of the boundary element (by default {@value #DEFAULT_BOUNDARY_ELEMENT}, in any namespace).
+ * When a document starts with a known prefix, its output is copied and pretty-printing resumes from the stored parser state,
+ * so that only the remainder of the document is scanned. A prefix is verified character by character, so a hash collision only results in a miss.
+ * <br>
+ * Documents are pretty-printed by the {@linkplain AbstractIncrementalProcessor} of the decorated pretty printer, so only pretty printers
+ * which support incremental processing can be decorated. Filter matches within a known prefix are not reported to any filter listener.
+ * Inputs from {@linkplain Reader}s are passed directly to the decorated pretty printer.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class PrefixCachingPrettyPrinter implements PrettyPrinter {
+
+	public static final String DEFAULT_BOUNDARY_ELEMENT = "Body";
+	public static final int DEFAULT_MAX_PREFIX_LENGTH = 16 * 1024;
+	public static final int DEFAULT_SLOTS = 64;
+
+	private static final class Entry {
+
+		private final long hash;
+		private final char[] prefix;
+		private final char[] output;
+		/** parser state at the end of the prefix, never processes itself */
+		private final AbstractIncrementalProcessor state;
+
+		public Entry(long hash, char[] prefix, char[] output, AbstractIncrementalProcessor state) {
+			this.hash = hash;
+			this.prefix = prefix;
+			this.output = output;
+			this.state = state;
+		}
+
+		public boolean matches(long hash, char[] chars, int offset, int length) {
+			if(this.hash != hash || prefix.length != length) {
+				return false;
+			}
+			for(int i = 0; i < length; i++) {
+				if(prefix[i] != chars[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	protected final AbstractPrettyPrinter prettyPrinter;
+	protected final char[] boundaryElement;
+	protected final int maxPrefixLength;
+
+	/** direct-mapped by hash, so that a new prefix replaces the previous prefix in the same slot */
+	private final AtomicReferenceArray<Entry> entries;
+	private final int mask;
+
+	private final StripedCounter hits = new StripedCounter();
+	private final StripedCounter misses = new StripedCounter();
+
+	public PrefixCachingPrettyPrinter(AbstractPrettyPrinter prettyPrinter) {
+		this(prettyPrinter, DEFAULT_BOUNDARY_ELEMENT, DEFAULT_MAX_PREFIX_LENGTH, DEFAULT_SLOTS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param prettyPrinter pretty printer which supports incremental processing
+	 * @param boundaryElement local name of the element whose start tag ends the prefix
+	 * @param maxPrefixLength max prefix length, in characters. Documents with a longer prefix are pretty-printed as-is.
+	 * @param slots number of prefixes to remember, rounded up to a power of two
+	 */
+
+	public PrefixCachingPrettyPrinter(AbstractPrettyPrinter prettyPrinter, String boundaryElement, int maxPrefixLength, int slots) {
+		if(prettyPrinter == null) {
+			throw new IllegalArgumentException("Expected pretty printer");
+		}
+		if(prettyPrinter.newIncrementalProcessor() == null) {
+			throw new IllegalArgumentException("Incremental pretty printing not supported for " + prettyPrinter);
+		}
+		if(boundaryElement == null || boundaryElement.isEmpty() || boundaryElement.indexOf(':') != -1) {
+			throw new IllegalArgumentException("Expected boundary element local name, not '" + boundaryElement + "'");
+		}
+		if(maxPrefixLength <= 0) {
+			throw new IllegalArgumentException("Expected positive max prefix length, not " + maxPrefixLength);
+		}
+		if(slots <= 0) {
+			throw new IllegalArgumentException("Expected positive number of slots, not " + slots);
+		}
+		this.prettyPrinter = prettyPrinter;
+		this.boundaryElement = boundaryElement.toCharArray();
+		this.maxPrefixLength = maxPrefixLength;
+
+		int powerOfTwo = Integer.highestOneBit(slots);
+		if(powerOfTwo < slots) {
+			powerOfTwo = powerOfTwo << 1;
+		}
+		this.entries = new AtomicReferenceArray<Entry>(powerOfTwo);
+		this.mask = powerOfTwo - 1;
+	}
+
+	public boolean process(char[] chars, int offset, int length, StringBuilder output) {
+		int start = output.length();
+		int limit = offset + length;
+
+		AbstractIncrementalProcessor processor = prettyPrinter.newIncrementalProcessor();
+
+		int boundary = findBoundary(chars, offset, offset + Math.min(length, maxPrefixLength));
+		if(boundary != -1) {
+			int prefixLength = boundary - offset;
+
+			long hash = ResultCache.hash(0L, chars, offset, prefixLength);
+			int index = (int)(hash ^ (hash >>> 32)) & mask;
+
+			Entry entry = entries.get(index);
+			if(entry != null && entry.matches(hash, chars, offset, prefixLength)) {
+				hits.increment();
+
+				processor.copyState(entry.state);
+				output.append(entry.output);
+
+				offset = boundary;
+			} else {
+				misses.increment();
+
+				int processed = processor.process(chars, offset, boundary, false, output);
+				if(processed == -1) {
+					output.setLength(start);
+
+					return false;
+				}
+				if(processed == boundary) {
+					AbstractIncrementalProcessor state = prettyPrinter.newIncrementalProcessor();
+					state.copyState(processor);
+
+					char[] prefixOutput = new char[output.length() - start];
+					output.getChars(start, output.length(), prefixOutput, 0);
+
+					entries.set(index, new Entry(hash, Arrays.copyOfRange(chars, offset, boundary), prefixOutput, state));
+				}
+				// otherwise the prefix ends within a construct, i.e. anonymized text, which is completed below
+				offset = processed;
+			}
+		}
+
+		if(processor.process(chars, offset, limit, true, output) == -1) {
+			output.setLength(start);
+
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Find the end of the prefix, i.e. the first start tag of the boundary element.
+	 *
+	 * @param chars XML data
+	 * @param offset start offset within XML data
+	 * @param limit end offset for the prefix
+	 * @return offset one character past the boundary start tag, or -1 if not found within the limit
+	 */
+
+	protected int findBoundary(char[] chars, int offset, int limit) {
+		final char[] name = boundaryElement;
+
+		for(int i = offset; i < limit - name.length - 1; i++) {
+			if(chars[i] != '<') {
+				continue;
+			}
+			// skip any namespace prefix
+			int start = i + 1;
+			for(int k = start; k < limit; k++) {
+				char c = chars[k];
+				if(c == ':') {
+					start = k + 1;
+
+					break;
+				} else if(c == '>' || c == '/' || c == '<' || isWhitespace(c)) {
+					break;
+				}
+			}
+			if(start + name.length >= limit || !isBoundaryElement(chars, start, name)) {
+				continue;
+			}
+			// scan to end of start tag, ignoring > within attribute values
+			for(int k = start + name.length; k < limit; k++) {
+				char c = chars[k];
+				if(c == '>') {
+					return k + 1;
+				} else if(c == '"' || c == '\'') {
+					do {
+						k++;
+						if(k >= limit) {
+							return -1;
+						}
+					} while(chars[k] != c);
+				}
+			}
+			return -1;
+		}
+		return -1;
+	}
+
+	private static boolean isBoundaryElement(char[] chars, int offset, char[] name) {
+		for(int i = 0; i < name.length; i++) {
+			if(chars[offset + i] != name[i]) {
+				return false;
+			}
+		}
+		char c = chars[offset + name.length];
+
+		return c == '>' || c == '/' || isWhitespace(c);
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	public boolean process(String chars, StringBuilder output) {
+		int length = chars.length();
+
+		BufferPool pool = BufferPool.getDefault();
+		char[] buffer = pool.acquireChars(length);
+		try {
+			chars.getChars(0, length, buffer, 0);
+
+			return process(buffer, 0, length, output);
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	public boolean process(Reader reader, int length, StringBuilder output) throws IOException {
+		return prettyPrinter.process(reader, length, output);
+	}
+
+	public boolean process(Reader reader, StringBuilder output) throws IOException {
+		return prettyPrinter.process(reader, output);
+	}
+
+	public boolean process(Reader reader, Appendable output) throws IOException {
+		return prettyPrinter.process(reader, output);
+	}
+
+	public boolean process(String chars, Appendable output) throws IOException {
+		int length = chars.length();
+
+		BufferPool pool = BufferPool.getDefault();
+		StringBuilder buffer = pool.acquireBuilder(length + (length >> 2));
+		try {
+			if(process(chars, buffer)) {
+				output.append(buffer);
+
+				return true;
+			}
+			return false;
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	public boolean process(char[] chars, int offset, int length, Appendable output) throws IOException {
+		BufferPool pool = BufferPool.getDefault();
+		StringBuilder buffer = pool.acquireBuilder(length + (length >> 2));
+		try {
+			if(process(chars, offset, length, buffer)) {
+				output.append(buffer);
+
+				return true;
+			}
+			return false;
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	public int processBatch(List<? extends CharSequence> documents, StringBuilder output, int[] offsets, boolean[] results) {
+		return BatchProcessor.processBatch(this, documents, output, offsets, results);
+	}
+
+	public int processBatch(char[][] documents, int[] documentOffsets, int[] documentLengths, StringBuilder output, int[] offsets, boolean[] results) {
+		return BatchProcessor.processBatch(this, documents, documentOffsets, documentLengths, output, offsets, results);
+	}
+
+	public int estimateOutputLength(char[] chars, int offset, int length) {
+		return prettyPrinter.estimateOutputLength(chars, offset, length);
+	}
+
+	/**
+	 * Forget all prefixes.
+	 */
+
+	public void clear() {
+		for(int i = 0; i < entries.length(); i++) {
+			entries.set(i, null);
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+
+	public String getBoundaryElement() {
+		return new String(boundaryElement);
+	}
+
+	public int getMaxPrefixLength() {
+		return maxPrefixLength;
+	}
+
+	@Override
+	public String toString() {
+		return "PrefixCachingPrettyPrinter [boundaryElement=" + getBoundaryElement() + ", maxPrefixLength=" + maxPrefixLength + ", prettyPrinter=" + prettyPrinter + "]";
+	}
+}
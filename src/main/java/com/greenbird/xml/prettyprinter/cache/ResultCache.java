@@ -0,0 +1,374 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.greenbird.xml.prettyprinter.metrics.StripedCounter;
+
+/**
+ *
+ * Size-bounded cache of pretty-printed outputs, keyed by a 64-bit hash of the input and the pretty-printer configuration.
+ * <br>
+ * Entries hold a copy of their input, so that a hash collision is detected by comparing the input before returning the output.
+ * Lookups are lock-free and only set a reference bit. Inserts are serialized, and evict entries by the CLOCK algorithm
+ * (second chance) until the total size is within the bound. Entries larger than the max entry size are not cached.
+ * <br>
+ * A cache can be shared by several {@linkplain CachingPrettyPrinter}s, also with different configurations.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class ResultCache {
+
+	/** approximate size of an entry, excluding its input and output */
+	public static final int ENTRY_OVERHEAD = 96;
+
+	private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+	/**
+	 * Get a 64-bit hash of a range of characters, four characters at a time.
+	 *
+	 * @param seed hash of the configuration
+	 * @param chars characters
+	 * @param offset offset
+	 * @param length length
+	 * @return hash
+	 */
+
+	public static long hash(long seed, char[] chars, int offset, int length) {
+		long hash = seed + length * PRIME_3;
+
+		int end = offset + length;
+		int i = offset;
+		for(; i + 4 <= end; i += 4) {
+			long word = chars[i] | (long)chars[i + 1] << 16 | (long)chars[i + 2] << 32 | (long)chars[i + 3] << 48;
+
+			hash = round(hash, word);
+		}
+		for(; i < end; i++) {
+			hash = round(hash, chars[i]);
+		}
+		return avalanche(hash);
+	}
+
+	/**
+	 * Get a 64-bit hash of a character sequence, equal to the hash of the same characters in an array.
+	 *
+	 * @param seed hash of the configuration
+	 * @param chars characters
+	 * @return hash
+	 */
+
+	public static long hash(long seed, CharSequence chars) {
+		int length = chars.length();
+		long hash = seed + length * PRIME_3;
+
+		int i = 0;
+		for(; i + 4 <= length; i += 4) {
+			long word = chars.charAt(i) | (long)chars.charAt(i + 1) << 16 | (long)chars.charAt(i + 2) << 32 | (long)chars.charAt(i + 3) << 48;
+
+			hash = round(hash, word);
+		}
+		for(; i < length; i++) {
+			hash = round(hash, chars.charAt(i));
+		}
+		return avalanche(hash);
+	}
+
+	private static long round(long hash, long word) {
+		return Long.rotateLeft(hash ^ Long.rotateLeft(word * PRIME_2, 31) * PRIME_1, 27) * PRIME_1 + PRIME_3;
+	}
+
+	private static long avalanche(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+
+		return hash;
+	}
+
+	private static final class Entry {
+
+		private final long hash;
+		private final Object configuration;
+		private final char[] input;
+		private final char[] output;
+		private final int bytes;
+
+		/** set on every hit, cleared as the clock hand passes */
+		private volatile boolean referenced;
+
+		public Entry(long hash, Object configuration, char[] input, char[] output) {
+			this.hash = hash;
+			this.configuration = configuration;
+			this.input = input;
+			this.output = output;
+			this.bytes = getBytes(input.length, output.length);
+		}
+
+		public boolean matches(Object configuration, char[] chars, int offset, int length) {
+			if(this.configuration != configuration || input.length != length) {
+				return false;
+			}
+			for(int i = 0; i < length; i++) {
+				if(input[i] != chars[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public boolean matches(Object configuration, CharSequence chars) {
+			if(this.configuration != configuration || input.length != chars.length()) {
+				return false;
+			}
+			for(int i = 0; i < input.length; i++) {
+				if(input[i] != chars.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static int getBytes(int inputLength, int outputLength) {
+		return ENTRY_OVERHEAD + 2 * (inputLength + outputLength);
+	}
+
+	protected final long maxBytes;
+	protected final int maxEntryBytes;
+
+	private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<Long, Entry>();
+
+	/** entries in clock order, guarded by this */
+	private final List<Entry> clock = new ArrayList<Entry>();
+	private int hand = 0;
+	private long bytes = 0;
+
+	private final StripedCounter hits = new StripedCounter();
+	private final StripedCounter misses = new StripedCounter();
+	private final StripedCounter collisions = new StripedCounter();
+	private final StripedCounter evictions = new StripedCounter();
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxEntryBytes max approximate size of a single entry (input and output at two bytes per character), in bytes
+	 * @param maxBytes max approximate total size of all entries, in bytes
+	 */
+
+	public ResultCache(int maxEntryBytes, long maxBytes) {
+		if(maxEntryBytes <= ENTRY_OVERHEAD) {
+			throw new IllegalArgumentException("Expected max entry size above " + ENTRY_OVERHEAD + " bytes, not " + maxEntryBytes);
+		}
+		if(maxBytes < maxEntryBytes) {
+			throw new IllegalArgumentException("Expected max total size of at least the max entry size " + maxEntryBytes + ", not " + maxBytes);
+		}
+		this.maxEntryBytes = maxEntryBytes;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Check whether an input could be cached at all, so that inputs which are too large need not be hashed.
+	 *
+	 * @param length input length
+	 * @return true if an entry for the input would not exceed the max entry size, assuming the output is at least as long as the input
+	 */
+
+	public boolean isCacheable(int length) {
+		return getBytes(length, length) <= maxEntryBytes;
+	}
+
+	/**
+	 * Get the output for an input.
+	 *
+	 * @param hash hash of the input, as seeded by the configuration
+	 * @param configuration the configuration, compared by identity
+	 * @param chars input characters
+	 * @param offset input offset
+	 * @param length input length
+	 * @return the cached output, or null if not cached. Must not be modified.
+	 */
+
+	public char[] get(long hash, Object configuration, char[] chars, int offset, int length) {
+		Entry entry = entries.get(hash);
+		if(entry != null) {
+			if(entry.matches(configuration, chars, offset, length)) {
+				entry.referenced = true;
+				hits.increment();
+
+				return entry.output;
+			}
+			collisions.increment();
+		}
+		misses.increment();
+
+		return null;
+	}
+
+	/**
+	 * Get the output for an input.
+	 *
+	 * @param hash hash of the input, as seeded by the configuration
+	 * @param configuration the configuration, compared by identity
+	 * @param chars input characters
+	 * @return the cached output, or null if not cached. Must not be modified.
+	 */
+
+	public char[] get(long hash, Object configuration, CharSequence chars) {
+		Entry entry = entries.get(hash);
+		if(entry != null) {
+			if(entry.matches(configuration, chars)) {
+				entry.referenced = true;
+				hits.increment();
+
+				return entry.output;
+			}
+			collisions.increment();
+		}
+		misses.increment();
+
+		return null;
+	}
+
+	/**
+	 * Cache an output. If another input with the same hash is already cached, the existing entry is kept.
+	 *
+	 * @param hash hash of the input, as seeded by the configuration
+	 * @param configuration the configuration, compared by identity
+	 * @param input input characters, owned by the cache from now on
+	 * @param output buffer holding the output
+	 * @param start start of the output within the buffer
+	 * @return true if the output was cached
+	 */
+
+	public boolean put(long hash, Object configuration, char[] input, StringBuilder output, int start) {
+		int outputLength = output.length() - start;
+		if(getBytes(input.length, outputLength) > maxEntryBytes || entries.containsKey(hash)) {
+			return false;
+		}
+		char[] chars = new char[outputLength];
+		output.getChars(start, output.length(), chars, 0);
+
+		Entry entry = new Entry(hash, configuration, input, chars);
+
+		synchronized(this) {
+			if(entries.putIfAbsent(hash, entry) != null) {
+				return false;
+			}
+			evict(entry.bytes);
+
+			clock.add(entry);
+			bytes += entry.bytes;
+		}
+		return true;
+	}
+
+	/**
+	 * Advance the clock hand, giving referenced entries a second chance, until there is room for an additional entry.
+	 *
+	 * @param needed size of the additional entry
+	 */
+
+	private void evict(int needed) {
+		while(bytes + needed > maxBytes && !clock.isEmpty()) {
+			if(hand >= clock.size()) {
+				hand = 0;
+			}
+			Entry entry = clock.get(hand);
+			if(entry.referenced) {
+				entry.referenced = false;
+
+				hand++;
+			} else {
+				// move the last entry into the free position, rather than shifting the rest
+				Entry last = clock.remove(clock.size() - 1);
+				if(last != entry) {
+					clock.set(hand, last);
+				}
+				entries.remove(entry.hash, entry);
+				bytes -= entry.bytes;
+
+				evictions.increment();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		clock.clear();
+		hand = 0;
+		bytes = 0;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public int getMaxEntryBytes() {
+		return maxEntryBytes;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Get the number of lookups which found an entry for the hash, but with a different input or configuration.
+	 * These are also counted as misses.
+	 *
+	 * @return number of collisions
+	 */
+
+	public long getCollisions() {
+		return collisions.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ResultCache [maxEntryBytes=" + maxEntryBytes + ", maxBytes=" + maxBytes + ", size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + "]";
+	}
+}
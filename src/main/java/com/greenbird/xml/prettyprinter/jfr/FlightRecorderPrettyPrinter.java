@@ -0,0 +1,457 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.jfr;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.metrics.StripedCounter;
+import com.greenbird.xml.prettyprinter.plain.AbstractIncrementalProcessor;
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+import com.greenbird.xml.prettyprinter.plain.filter.FilterListener;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ *
+ * Decorator which emits a {@linkplain PrettyPrintEvent} for each operation of a {@linkplain PrettyPrinter},
+ * and totals via the periodic {@linkplain PrettyPrintStatisticsEvent}.
+ * <br>
+ * If the event is not enabled, the operation is delegated directly. 
+ * Anonymized, pruned and truncated nodes are counted by a {@linkplain FilterListener} registered with 
+ * {@linkplain AbstractMultiFilterPrettyPrinter}s, chained with any previously registered listener; 
+ * for other pretty printers, the counts are not known.
+ * <br>
+ * For pretty printers which support incremental processing, characters are pretty-printed to a {@linkplain StringBuilder} 
+ * using an {@linkplain AbstractIncrementalProcessor}, which also tracks the depth of the document. 
+ * The depth is not known for other operations.
+ * Input lengths are not known for {@linkplain Reader}s, neither is the output length for {@linkplain Appendable}s.
+ * <br>
+ * Requires JDK 11 or later, see {@linkplain com.greenbird.xml.prettyprinter.PrettyPrinterFactory#setFlightRecorderEvents(boolean)}.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class FlightRecorderPrettyPrinter implements PrettyPrinter {
+
+	private static final StripedCounter operations = new StripedCounter();
+	private static final StripedCounter failures = new StripedCounter();
+	private static final StripedCounter inputCharacters = new StripedCounter();
+	private static final StripedCounter outputCharacters = new StripedCounter();
+	private static final StripedCounter duration = new StripedCounter();
+
+	static {
+		FlightRecorder.addPeriodicEvent(PrettyPrintStatisticsEvent.class, new Runnable() {
+			public void run() {
+				PrettyPrintStatisticsEvent event = new PrettyPrintStatisticsEvent();
+				event.operations = operations.sum();
+				event.failures = failures.sum();
+				event.inputCharacters = inputCharacters.sum();
+				event.outputCharacters = outputCharacters.sum();
+				event.totalDuration = duration.sum();
+				event.commit();
+			}
+		});
+	}
+
+	/**
+	 * Filter listener which counts filter matches per thread, and forwards them to the previously registered listener, if any.
+	 */
+
+	protected static class FilterCounter implements FilterListener {
+
+		private final FilterListener delegate;
+
+		/** anonymized, pruned and truncated nodes of the current operation */
+		private final ThreadLocal<int[]> counts = new ThreadLocal<int[]>() {
+			@Override
+			protected int[] initialValue() {
+				return new int[3];
+			}
+		};
+
+		public FilterCounter(FilterListener delegate) {
+			this.delegate = delegate;
+		}
+
+		public void elementFiltered(FilterType filterType) {
+			if(filterType == FilterType.PRUNE) {
+				counts.get()[1]++;
+			} else {
+				counts.get()[0]++;
+			}
+			if(delegate != null) {
+				delegate.elementFiltered(filterType);
+			}
+		}
+
+		public void attributeAnonymized() {
+			counts.get()[0]++;
+			if(delegate != null) {
+				delegate.attributeAnonymized();
+			}
+		}
+
+		public void nodeTruncated() {
+			counts.get()[2]++;
+			if(delegate != null) {
+				delegate.nodeTruncated();
+			}
+		}
+
+		public int[] reset() {
+			int[] current = counts.get();
+			current[0] = 0;
+			current[1] = 0;
+			current[2] = 0;
+			return current;
+		}
+
+		public int[] getCounts() {
+			return counts.get();
+		}
+	}
+
+	protected final PrettyPrinter prettyPrinter;
+	/** null if filter matches cannot be counted */
+	protected final FilterCounter filterCounter;
+	/** null if the depth cannot be tracked */
+	protected final AbstractPrettyPrinter incrementalPrettyPrinter;
+
+	public FlightRecorderPrettyPrinter(PrettyPrinter prettyPrinter) {
+		if(prettyPrinter == null) {
+			throw new IllegalArgumentException("Expected pretty printer");
+		}
+		this.prettyPrinter = prettyPrinter;
+		
+		if(prettyPrinter instanceof AbstractMultiFilterPrettyPrinter) {
+			AbstractMultiFilterPrettyPrinter filterPrettyPrinter = (AbstractMultiFilterPrettyPrinter)prettyPrinter;
+			
+			filterCounter = new FilterCounter(filterPrettyPrinter.getFilterListener());
+			filterPrettyPrinter.setFilterListener(filterCounter);
+		} else {
+			filterCounter = null;
+		}
+		
+		if(prettyPrinter instanceof AbstractPrettyPrinter && ((AbstractPrettyPrinter)prettyPrinter).newIncrementalProcessor() != null) {
+			incrementalPrettyPrinter = (AbstractPrettyPrinter)prettyPrinter;
+		} else {
+			incrementalPrettyPrinter = null;
+		}
+	}
+
+	public boolean process(String chars, StringBuilder output) {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.process(chars, output);
+		}
+		int outputStart = output.length();
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		boolean success;
+		int depth;
+		if(incrementalPrettyPrinter != null) {
+			AbstractIncrementalProcessor processor = incrementalPrettyPrinter.newIncrementalProcessor();
+			
+			char[] characters = chars.toCharArray();
+			success = process(processor, characters, 0, characters.length, output, outputStart);
+			depth = processor.getMaxLevel();
+		} else {
+			success = prettyPrinter.process(chars, output);
+			depth = -1;
+		}
+
+		event.end();
+		commit(event, success, chars.length(), output, outputStart, depth, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(char[] chars, int offset, int length, StringBuilder output) {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.process(chars, offset, length, output);
+		}
+		int outputStart = output.length();
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		boolean success;
+		int depth;
+		if(incrementalPrettyPrinter != null) {
+			AbstractIncrementalProcessor processor = incrementalPrettyPrinter.newIncrementalProcessor();
+			
+			success = process(processor, chars, offset, length, output, outputStart);
+			depth = processor.getMaxLevel();
+		} else {
+			success = prettyPrinter.process(chars, offset, length, output);
+			depth = -1;
+		}
+
+		event.end();
+		commit(event, success, length, output, outputStart, depth, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(Reader reader, int length, StringBuilder output) throws IOException {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.process(reader, length, output);
+		}
+		int outputStart = output.length();
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		boolean success = prettyPrinter.process(reader, length, output);
+
+		event.end();
+		commit(event, success, length, output, outputStart, -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(Reader reader, StringBuilder output) throws IOException {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.process(reader, output);
+		}
+		int outputStart = output.length();
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		boolean success = prettyPrinter.process(reader, output);
+
+		event.end();
+		commit(event, success, -1, output, outputStart, -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(Reader reader, Appendable output) throws IOException {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.process(reader, output);
+		}
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		boolean success = prettyPrinter.process(reader, output);
+
+		event.end();
+		commit(event, success, -1, null, 0, -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(String chars, Appendable output) throws IOException {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.process(chars, output);
+		}
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		boolean success = prettyPrinter.process(chars, output);
+
+		event.end();
+		commit(event, success, chars.length(), null, 0, -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(char[] chars, int offset, int length, Appendable output) throws IOException {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.process(chars, offset, length, output);
+		}
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		boolean success = prettyPrinter.process(chars, offset, length, output);
+
+		event.end();
+		commit(event, success, length, null, 0, -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public int processBatch(List<? extends CharSequence> documents, StringBuilder output, int[] offsets, boolean[] results) {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.processBatch(documents, output, offsets, results);
+		}
+		int outputStart = output.length();
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		int count = prettyPrinter.processBatch(documents, output, offsets, results);
+
+		event.end();
+
+		int inputLength = 0;
+		for(CharSequence document : documents) {
+			inputLength += document.length();
+		}
+		commit(event, count == documents.size(), inputLength, output, outputStart, -1, System.nanoTime() - start);
+
+		return count;
+	}
+
+	public int processBatch(char[][] documents, int[] documentOffsets, int[] documentLengths, StringBuilder output, int[] offsets, boolean[] results) {
+		PrettyPrintEvent event = new PrettyPrintEvent();
+		if(!event.isEnabled()) {
+			return prettyPrinter.processBatch(documents, documentOffsets, documentLengths, output, offsets, results);
+		}
+		int outputStart = output.length();
+		if(filterCounter != null) {
+			filterCounter.reset();
+		}
+		long start = System.nanoTime();
+		event.begin();
+
+		int count = prettyPrinter.processBatch(documents, documentOffsets, documentLengths, output, offsets, results);
+
+		event.end();
+
+		int inputLength = 0;
+		for(int documentLength : documentLengths) {
+			inputLength += documentLength;
+		}
+		commit(event, count == documents.length, inputLength, output, outputStart, -1, System.nanoTime() - start);
+
+		return count;
+	}
+
+	/**
+	 * Pretty-print a whole document as a single chunk, so that the processor tracks the depth.
+	 *
+	 * @param processor new processor
+	 * @param chars characters containing XML to be pretty printed
+	 * @param offset the offset within the chars where the XML starts
+	 * @param length the length of the XML within the chars
+	 * @param output the buffer to which indented XML is appended
+	 * @param outputStart the length of the output buffer before the operation
+	 * @return true if pretty printing was successful. If false, the output buffer is unaffected.
+	 */
+
+	private static boolean process(AbstractIncrementalProcessor processor, char[] chars, int offset, int length, StringBuilder output, int outputStart) {
+		if(processor.process(chars, offset, offset + length, true, output) == -1) {
+			output.setLength(outputStart);
+
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Add an operation to the totals and commit the event, if above the threshold.
+	 *
+	 * @param event the ended event
+	 * @param success the result of the operation
+	 * @param inputLength number of characters read, or -1 if unknown
+	 * @param output the output buffer, or null if unknown
+	 * @param outputStart the length of the output buffer before the operation
+	 * @param depth deepest element nesting, or -1 if unknown
+	 * @param nanos duration of the operation
+	 */
+
+	protected void commit(PrettyPrintEvent event, boolean success, int inputLength, StringBuilder output, int outputStart, int depth, long nanos) {
+		operations.increment();
+		if(!success) {
+			failures.increment();
+		}
+		if(inputLength > 0) {
+			inputCharacters.add(inputLength);
+		}
+		if(output != null) {
+			outputCharacters.add(output.length() - outputStart);
+		}
+		duration.add(nanos);
+
+		if(!event.shouldCommit()) {
+			return;
+		}
+		event.engine = prettyPrinter.getClass().getName();
+		event.success = success;
+		event.inputLength = inputLength;
+		if(output != null) {
+			event.outputLength = output.length() - outputStart;
+		} else {
+			event.outputLength = -1;
+		}
+		if(filterCounter != null) {
+			int[] counts = filterCounter.getCounts();
+			event.anonymized = counts[0];
+			event.pruned = counts[1];
+			event.truncated = counts[2];
+		} else {
+			event.anonymized = -1;
+			event.pruned = -1;
+			event.truncated = -1;
+		}
+		event.depth = depth;
+		event.commit();
+	}
+
+	public int estimateOutputLength(char[] chars, int offset, int length) {
+		return prettyPrinter.estimateOutputLength(chars, offset, length);
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+
+	@Override
+	public String toString() {
+		return "FlightRecorderPrettyPrinter [prettyPrinter=" + prettyPrinter + "]";
+	}
+}
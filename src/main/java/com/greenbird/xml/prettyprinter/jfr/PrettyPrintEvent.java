@@ -0,0 +1,80 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 
+ * Flight Recorder event for a single pretty-printing operation.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+@Name(PrettyPrintEvent.NAME)
+@Label("Pretty Print")
+@Category({"XML", "Pretty Printer"})
+@Description("XML pretty-printing operation")
+@StackTrace(false)
+public class PrettyPrintEvent extends Event {
+
+	public static final String NAME = "com.greenbird.xml.PrettyPrint";
+
+	@Label("Engine")
+	@Description("Pretty printer implementation class")
+	public String engine;
+
+	@Label("Input Length")
+	@Description("Number of characters read, or -1 if unknown")
+	@DataAmount(DataAmount.BYTES)
+	public long inputLength;
+
+	@Label("Output Length")
+	@Description("Number of characters written, or -1 if unknown")
+	@DataAmount(DataAmount.BYTES)
+	public long outputLength;
+
+	@Label("Success")
+	public boolean success;
+
+	@Label("Anonymized")
+	@Description("Number of anonymized elements or attributes, or -1 if unknown")
+	public int anonymized;
+
+	@Label("Pruned")
+	@Description("Number of pruned subtrees, or -1 if unknown")
+	public int pruned;
+
+	@Label("Truncated")
+	@Description("Number of truncated text or CDATA nodes, or -1 if unknown")
+	public int truncated;
+
+	@Label("Depth")
+	@Description("Deepest element nesting, where the root element is at depth 1, or -1 if unknown")
+	public int depth;
+}
@@ -0,0 +1,70 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 
+ * Periodic Flight Recorder event with the totals of all pretty-printing operations recorded
+ * while the {@linkplain PrettyPrintEvent} is enabled.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+@Name(PrettyPrintStatisticsEvent.NAME)
+@Label("Pretty Print Statistics")
+@Category({"XML", "Pretty Printer"})
+@Description("Totals for XML pretty-printing operations")
+@StackTrace(false)
+@Period("1 s")
+public class PrettyPrintStatisticsEvent extends Event {
+
+	public static final String NAME = "com.greenbird.xml.PrettyPrintStatistics";
+
+	@Label("Operations")
+	public long operations;
+
+	@Label("Failures")
+	public long failures;
+
+	@Label("Input Characters")
+	@DataAmount(DataAmount.BYTES)
+	public long inputCharacters;
+
+	@Label("Output Characters")
+	@DataAmount(DataAmount.BYTES)
+	public long outputCharacters;
+
+	@Label("Total Duration")
+	@Description("Total time spent pretty-printing")
+	@Timespan(Timespan.NANOSECONDS)
+	public long totalDuration;
+}
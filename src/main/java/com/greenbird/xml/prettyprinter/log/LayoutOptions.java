@@ -0,0 +1,225 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinterBuilder;
+
+/**
+ *
+ * Pretty-printing options of the logging framework layouts, as configured by name, and their mapping onto {@linkplain PrettyPrinterBuilder}.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class LayoutOptions {
+
+	private boolean xmlDeclaration = false;
+	private boolean robustness = false;
+	private boolean ignoreWhitespace = false;
+	private boolean prettyPrintTextNodes = false;
+	private boolean prettyPrintCData = false;
+	private boolean prettyPrintComments = false;
+	private int maxTextNodeLength = -1;
+	private int maxCDATANodeLength = -1;
+	private List<String> anonymizeFilters = new ArrayList<String>();
+	private List<String> pruneFilters = new ArrayList<String>();
+	private String indentationCharacter = "tab";
+	private int indentationMultiplier = 1;
+
+	/**
+	 * Map the options onto a builder.
+	 *
+	 * @return new builder
+	 * @throws IllegalArgumentException if the indentation character is not valid
+	 */
+
+	public PrettyPrinterBuilder newPrettyPrinterBuilder() {
+		PrettyPrinterBuilder builder = PrettyPrinterBuilder.newPrettyPrinter();
+		if(xmlDeclaration) {
+			builder.keepXMLDeclaration();
+		}
+		if(robustness) {
+			builder.robust();
+		}
+		if(ignoreWhitespace) {
+			builder.ignoreWhitespace();
+		}
+		if(prettyPrintTextNodes) {
+			builder.prettyPrintTextNodes();
+		}
+		if(prettyPrintCData) {
+			builder.prettyPrintCData();
+		}
+		if(prettyPrintComments) {
+			builder.prettyPrintComments();
+		}
+		builder.maxTextNodeLength(maxTextNodeLength);
+		builder.maxCDataNodeLength(maxCDATANodeLength);
+		if(!anonymizeFilters.isEmpty()) {
+			builder.anonymize(anonymizeFilters.toArray(new String[anonymizeFilters.size()]));
+		}
+		if(!pruneFilters.isEmpty()) {
+			builder.prune(pruneFilters.toArray(new String[pruneFilters.size()]));
+		}
+		builder.indentate(parseIndentationCharacter(indentationCharacter), indentationMultiplier);
+
+		return builder;
+	}
+
+	/**
+	 * Parse an indentation character.
+	 *
+	 * @param value 'tab', 'space' or a single character
+	 * @return the indentation character
+	 * @throws IllegalArgumentException if the value is not recognized
+	 */
+
+	public static char parseIndentationCharacter(String value) {
+		if(value.equals("tab")) {
+			return '\t';
+		} else if(value.equals("space")) {
+			return ' ';
+		} else if(value.length() == 1) {
+			return value.charAt(0);
+		}
+		throw new IllegalArgumentException("Expected indentation character 'tab', 'space' or a single character, not '" + value + "'");
+	}
+
+	public boolean isXmlDeclaration() {
+		return xmlDeclaration;
+	}
+
+	public void setXmlDeclaration(boolean xmlDeclaration) {
+		this.xmlDeclaration = xmlDeclaration;
+	}
+
+	public boolean isRobustness() {
+		return robustness;
+	}
+
+	public void setRobustness(boolean robustness) {
+		this.robustness = robustness;
+	}
+
+	public boolean isIgnoreWhitespace() {
+		return ignoreWhitespace;
+	}
+
+	public void setIgnoreWhitespace(boolean ignoreWhitespace) {
+		this.ignoreWhitespace = ignoreWhitespace;
+	}
+
+	public boolean isPrettyPrintTextNodes() {
+		return prettyPrintTextNodes;
+	}
+
+	public void setPrettyPrintTextNodes(boolean prettyPrintTextNodes) {
+		this.prettyPrintTextNodes = prettyPrintTextNodes;
+	}
+
+	public boolean isPrettyPrintCData() {
+		return prettyPrintCData;
+	}
+
+	public void setPrettyPrintCData(boolean prettyPrintCData) {
+		this.prettyPrintCData = prettyPrintCData;
+	}
+
+	public boolean isPrettyPrintComments() {
+		return prettyPrintComments;
+	}
+
+	public void setPrettyPrintComments(boolean prettyPrintComments) {
+		this.prettyPrintComments = prettyPrintComments;
+	}
+
+	public int getMaxTextNodeLength() {
+		return maxTextNodeLength;
+	}
+
+	public void setMaxTextNodeLength(int maxTextNodeLength) {
+		this.maxTextNodeLength = maxTextNodeLength;
+	}
+
+	public int getMaxCDATANodeLength() {
+		return maxCDATANodeLength;
+	}
+
+	public void setMaxCDATANodeLength(int maxCDATANodeLength) {
+		this.maxCDATANodeLength = maxCDATANodeLength;
+	}
+
+	public void addAnonymize(String filter) {
+		anonymizeFilters.add(filter);
+	}
+
+	public void addPrune(String filter) {
+		pruneFilters.add(filter);
+	}
+
+	/**
+	 * Add comma-separated anonymize filters.
+	 *
+	 * @param filters XPath-like filters, or null for none
+	 */
+
+	public void addAnonymizeFilters(String filters) {
+		split(filters, anonymizeFilters);
+	}
+
+	/**
+	 * Add comma-separated prune filters.
+	 *
+	 * @param filters XPath-like filters, or null for none
+	 */
+
+	public void addPruneFilters(String filters) {
+		split(filters, pruneFilters);
+	}
+
+	private static void split(String filters, List<String> target) {
+		if(filters != null) {
+			for(String filter : filters.split(",")) {
+				target.add(filter.trim());
+			}
+		}
+	}
+
+	public String getIndentationCharacter() {
+		return indentationCharacter;
+	}
+
+	public void setIndentationCharacter(String indentationCharacter) {
+		this.indentationCharacter = indentationCharacter;
+	}
+
+	public int getIndentationMultiplier() {
+		return indentationMultiplier;
+	}
+
+	public void setIndentationMultiplier(int indentationMultiplier) {
+		this.indentationMultiplier = indentationMultiplier;
+	}
+}
@@ -0,0 +1,395 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.greenbird.xml.prettyprinter.BufferPool;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.async.AsyncPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter;
+
+/**
+ *
+ * Log stream formatter - finds XML documents embedded within lines of free text, and pretty-prints them in place.
+ * <br>
+ * Each line is scanned for well-balanced XML fragments, i.e. a start element and its corresponding end element,
+ * which are then passed to the pretty printer. Fragments which cannot be pretty-printed, and all other text, are left as-is.
+ * A fragment must start and end within a single line. After {@value #MAX_UNCLOSED_START_ELEMENTS} start elements 
+ * without a corresponding end element, the rest of the line is left as-is.
+ * <br>
+ * Files are split into chunks on line boundaries, which are processed in parallel and written in the original order.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class LogStreamFormatter {
+
+	public static final int DEFAULT_CHUNK_LENGTH = 4 * 1024 * 1024;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final int READ_LENGTH = 8 * 1024;
+
+	/** max number of start elements without a corresponding end element per line, each of which is scanned to the end of the line */
+	protected static final int MAX_UNCLOSED_START_ELEMENTS = 16;
+
+	private static class Result {
+
+		private final byte[] bytes;
+		private final long count;
+
+		public Result(byte[] bytes, long count) {
+			this.bytes = bytes;
+			this.count = count;
+		}
+	}
+
+	protected final PrettyPrinter prettyPrinter;
+
+	public LogStreamFormatter(PrettyPrinter prettyPrinter) {
+		if(prettyPrinter == null) {
+			throw new IllegalArgumentException("Expected pretty printer");
+		}
+		this.prettyPrinter = prettyPrinter;
+	}
+
+	/**
+	 * Pretty print XML fragments within a single line of text.
+	 *
+	 * @param chars characters containing the line
+	 * @param offset start offset of the line
+	 * @param length length of the line, optionally including the line terminator
+	 * @param output the buffer to which the line, with pretty-printed XML, is appended
+	 * @return the number of XML fragments which were pretty-printed
+	 */
+
+	public int processLine(final char[] chars, int offset, int length, final StringBuilder output) {
+		final int limit = offset + length;
+
+		int count = 0;
+
+		int sourceStart = offset;
+
+		// a failed scan reads to the end of the line, so cap the number of failed scans,
+		// otherwise lines with many unclosed start elements take quadratic time
+		int unclosed = 0;
+
+		// a fragment is at least 4 chars, i.e. <a/>
+		while(offset < limit - 3) {
+			if(chars[offset] == '<' && isNameStartCharacter(chars[offset + 1])) {
+				int end = AbstractPrettyPrinter.scanBeyondFragment(chars, offset, limit);
+				if(end == -1) {
+					unclosed++;
+					if(unclosed >= MAX_UNCLOSED_START_ELEMENTS) {
+						break;
+					}
+				} else {
+					// flush text before the fragment
+					output.append(chars, sourceStart, offset - sourceStart);
+
+					if(prettyPrinter.process(chars, offset, end - offset, output)) {
+						count++;
+					} else {
+						// output is unaffected, keep the fragment as-is
+						output.append(chars, offset, end - offset);
+					}
+					sourceStart = offset = end;
+
+					continue;
+				}
+			}
+			offset++;
+		}
+		output.append(chars, sourceStart, limit - sourceStart);
+
+		return count;
+	}
+
+	/**
+	 * Pretty print XML fragments within one or more lines of text.
+	 *
+	 * @param chars characters containing the lines
+	 * @param offset start offset of the first line
+	 * @param length length of the lines
+	 * @param output the buffer to which the lines, with pretty-printed XML, are appended
+	 * @return the number of XML fragments which were pretty-printed
+	 */
+
+	public long processLines(final char[] chars, int offset, int length, final StringBuilder output) {
+		final int limit = offset + length;
+
+		long count = 0;
+		while(offset < limit) {
+			int end = offset;
+			while(end < limit && chars[end] != '\n') {
+				end++;
+			}
+			if(end < limit) {
+				// include the line terminator
+				end++;
+			}
+			count += processLine(chars, offset, end - offset, output);
+
+			offset = end;
+		}
+		return count;
+	}
+
+	/**
+	 * Pretty print XML fragments within a stream of lines.
+	 *
+	 * @param reader the log stream
+	 * @param output the output to which the lines, with pretty-printed XML, are appended
+	 * @return the number of XML fragments which were pretty-printed
+	 * @throws IOException if the stream could not be read or the output written
+	 */
+
+	public long process(Reader reader, Appendable output) throws IOException {
+		BufferPool pool = BufferPool.getDefault();
+
+		char[] chars = new char[READ_LENGTH];
+		StringBuilder buffer = pool.acquireBuilder(READ_LENGTH * 2);
+		try {
+			long count = 0;
+
+			int length = 0;
+			int read;
+			while((read = reader.read(chars, length, chars.length - length)) != -1) {
+				length += read;
+
+				// process complete lines, carry over the last incomplete line
+				int end = length;
+				while(end > 0 && chars[end - 1] != '\n') {
+					end--;
+				}
+				if(end > 0) {
+					count += processLines(chars, 0, end, buffer);
+
+					output.append(buffer);
+					buffer.setLength(0);
+
+					length -= end;
+					System.arraycopy(chars, end, chars, 0, length);
+				} else if(length == chars.length) {
+					// line longer than the buffer
+					char[] next = new char[chars.length * 2];
+					System.arraycopy(chars, 0, next, 0, length);
+					chars = next;
+				}
+			}
+			if(length > 0) {
+				count += processLines(chars, 0, length, buffer);
+
+				output.append(buffer);
+			}
+			return count;
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	public long process(Path input, Path output) throws IOException {
+		return process(input, output, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_LENGTH);
+	}
+
+	/**
+	 * Pretty print XML fragments within an UTF-8 encoded log file to another file. The input file is split into chunks
+	 * on line boundaries, which are memory-mapped and processed in parallel. Malformed UTF-8 input is replaced.
+	 *
+	 * @param input the log file
+	 * @param output file to which the lines, with pretty-printed XML, are written, created or truncated
+	 * @param threads number of worker threads
+	 * @param chunkLength approximate length of each chunk in bytes; a chunk always contains whole lines
+	 * @return the number of XML fragments which were pretty-printed
+	 * @throws IOException if the input file could not be read or the output file written
+	 */
+
+	public long process(Path input, Path output, int threads, int chunkLength) throws IOException {
+		if(threads <= 0) {
+			throw new IllegalArgumentException("Expected positive number of threads, not " + threads);
+		}
+		if(chunkLength <= 0) {
+			throw new IllegalArgumentException("Expected positive chunk length, not " + chunkLength);
+		}
+		final FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+		try {
+			FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				ExecutorService executor = Executors.newFixedThreadPool(threads, AsyncPrettyPrinter.newDaemonThreadFactory());
+				try {
+					final long size = in.size();
+
+					// keep a limited number of chunks in flight, so that memory use does not depend on the file size
+					ArrayDeque<Future<Result>> results = new ArrayDeque<Future<Result>>();
+
+					long count = 0;
+					for(long position = 0; position < size; position += chunkLength) {
+						final long chunkStart = position;
+						final long chunkEnd = Math.min(size, position + chunkLength);
+
+						if(results.size() >= threads * 2) {
+							count += write(results.removeFirst(), out);
+						}
+						results.addLast(executor.submit(new Callable<Result>() {
+							public Result call() throws Exception {
+								return processChunk(in, size, chunkStart, chunkEnd);
+							}
+						}));
+					}
+					while(!results.isEmpty()) {
+						count += write(results.removeFirst(), out);
+					}
+					return count;
+				} finally {
+					executor.shutdownNow();
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Process the lines which start within a chunk of the file.
+	 *
+	 * @param channel the input file
+	 * @param size the input file size
+	 * @param chunkStart the chunk start offset
+	 * @param chunkEnd the chunk end offset
+	 * @return the UTF-8 encoded output and number of pretty-printed fragments
+	 * @throws IOException if the input file could not be read
+	 */
+
+	private Result processChunk(FileChannel channel, long size, long chunkStart, long chunkEnd) throws IOException {
+		long start = nextLineStart(channel, size, chunkStart);
+		long end = nextLineStart(channel, size, chunkEnd);
+		if(start >= end) {
+			// within a line which started in a previous chunk
+			return new Result(new byte[0], 0);
+		}
+		if(end - start > Integer.MAX_VALUE) {
+			throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes at offset " + start);
+		}
+		ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+		CharBuffer chars = UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE)
+				.decode(bytes);
+
+		StringBuilder output = new StringBuilder(chars.remaining() * 2);
+		long count = processLines(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining(), output);
+
+		return new Result(output.toString().getBytes(UTF_8), count);
+	}
+
+	/**
+	 * Find the start of the first line which starts at or after a position.
+	 *
+	 * @param channel the input file
+	 * @param size the input file size
+	 * @param position the position
+	 * @return offset of the line start, or the file size if no line starts at or after the position
+	 * @throws IOException if the input file could not be read
+	 */
+
+	private static long nextLineStart(FileChannel channel, long size, long position) throws IOException {
+		if(position == 0 || position >= size) {
+			return position;
+		}
+		// a line starts after a newline, so start at the previous byte
+		position--;
+
+		ByteBuffer buffer = ByteBuffer.allocate(READ_LENGTH);
+		while(position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if(read == -1) {
+				break;
+			}
+			for(int i = 0; i < read; i++) {
+				if(buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	private static long write(Future<Result> future, FileChannel channel) throws IOException {
+		Result result;
+		try {
+			result = future.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			throw new InterruptedIOException("Interrupted while waiting for chunk");
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new IOException(cause);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(result.bytes);
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		return result.count;
+	}
+
+	private static boolean isNameStartCharacter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || c > 0x7F;
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+
+	@Override
+	public String toString() {
+		return "LogStreamFormatter [prettyPrinter=" + prettyPrinter + "]";
+	}
+
+}
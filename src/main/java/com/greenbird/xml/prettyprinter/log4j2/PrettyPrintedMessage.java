@@ -0,0 +1,100 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.log4j2;
+
+import org.apache.logging.log4j.message.AsynchronouslyFormattable;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+import com.greenbird.xml.prettyprinter.BufferPool;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+
+/**
+ *
+ * Message which pretty-prints the formatted text of another message into the layout buffer.
+ * If the text could not be pretty-printed, it is appended as-is.
+ * <br>
+ * Only used within the layout, so formatting can be deferred until the message is written.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+@AsynchronouslyFormattable
+class PrettyPrintedMessage implements Message, StringBuilderFormattable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Message message;
+	private final transient PrettyPrinter prettyPrinter;
+
+	public PrettyPrintedMessage(Message message, PrettyPrinter prettyPrinter) {
+		this.message = message;
+		this.prettyPrinter = prettyPrinter;
+	}
+
+	public void formatTo(StringBuilder buffer) {
+		if(!(message instanceof StringBuilderFormattable)) {
+			String text = message.getFormattedMessage();
+			if(!prettyPrinter.process(text, buffer)) {
+				buffer.append(text);
+			}
+			return;
+		}
+
+		// format at the end of the layout buffer, without creating a string, then copy
+		// once into a pooled array, as the pretty printers read char arrays
+		int start = buffer.length();
+		((StringBuilderFormattable)message).formatTo(buffer);
+		int length = buffer.length() - start;
+
+		BufferPool pool = BufferPool.getDefault();
+		char[] chars = pool.acquireChars(length);
+		try {
+			buffer.getChars(start, start + length, chars, 0);
+			buffer.setLength(start);
+
+			if(!prettyPrinter.process(chars, 0, length, buffer)) {
+				buffer.append(chars, 0, length);
+			}
+		} finally {
+			pool.release(chars);
+		}
+	}
+
+	public String getFormattedMessage() {
+		StringBuilder buffer = new StringBuilder();
+		formatTo(buffer);
+		return buffer.toString();
+	}
+
+	public String getFormat() {
+		return message.getFormat();
+	}
+
+	public Object[] getParameters() {
+		return message.getParameters();
+	}
+
+	public Throwable getThrowable() {
+		return message.getThrowable();
+	}
+}
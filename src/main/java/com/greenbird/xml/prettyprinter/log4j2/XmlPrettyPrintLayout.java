@@ -0,0 +1,226 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.log4j2;
+
+import java.nio.charset.Charset;
+
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.impl.MutableLogEvent;
+import org.apache.logging.log4j.core.layout.AbstractStringLayout;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterBuilder;
+import com.greenbird.xml.prettyprinter.log.LayoutOptions;
+
+/**
+ *
+ * Log4j 2 pattern layout which pretty-prints the message of XML log events.
+ * <br>
+ * An event is considered XML if it has the configured marker (by default {@value #DEFAULT_MARKER})
+ * or, if configured, the context (MDC) key. The message of other events is left as-is, as is the message of
+ * events which could not be pretty-printed. Pretty-printing options map onto {@linkplain PrettyPrinterBuilder},
+ * anonymize and prune filters are comma-separated.
+ * <br>
+ * The message is formatted into the reusable layout buffer and copied once into a pooled array, from which it is 
+ * pretty-printed back into the layout buffer. The layout buffer is encoded into the {@linkplain ByteBufferDestination} 
+ * of the appender, so that no intermediate strings are created.
+ * <pre>
+ * &lt;XmlPrettyPrintLayout pattern="%d %-5level [%t] %logger - %msg%n" anonymize="/Envelope/Body/order/creditCard"/&gt;
+ * </pre>
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+@Plugin(name = "XmlPrettyPrintLayout", category = Node.CATEGORY, elementType = Layout.ELEMENT_TYPE, printObject = true)
+public class XmlPrettyPrintLayout extends AbstractStringLayout {
+
+	public static final String DEFAULT_MARKER = "XML";
+
+	/** reusable event, one per thread */
+	private static final ThreadLocal<MutableLogEvent> mutableLogEvents = new ThreadLocal<MutableLogEvent>();
+
+	protected final PrettyPrinter prettyPrinter;
+	protected final String marker;
+	protected final String contextKey;
+	protected final String pattern;
+
+	private final Serializer serializer;
+
+	protected XmlPrettyPrintLayout(Configuration configuration, Charset charset, String pattern, PrettyPrinter prettyPrinter, String marker, String contextKey) {
+		super(configuration, charset, null, null);
+
+		if(prettyPrinter == null) {
+			throw new IllegalArgumentException("Expected pretty printer");
+		}
+		this.prettyPrinter = prettyPrinter;
+		this.marker = marker;
+		this.contextKey = contextKey;
+		this.pattern = pattern;
+		this.serializer = PatternLayout.newSerializerBuilder()
+				.setConfiguration(configuration)
+				.setPattern(pattern)
+				.setDefaultPattern(PatternLayout.DEFAULT_CONVERSION_PATTERN)
+				.setAlwaysWriteExceptions(true)
+				.build();
+	}
+
+	@PluginFactory
+	public static XmlPrettyPrintLayout createLayout(
+			@PluginConfiguration Configuration configuration,
+			@PluginAttribute(value = "pattern", defaultString = PatternLayout.DEFAULT_CONVERSION_PATTERN) String pattern,
+			@PluginAttribute(value = "charset", defaultString = "UTF-8") Charset charset,
+			@PluginAttribute(value = "marker", defaultString = DEFAULT_MARKER) String marker,
+			@PluginAttribute("contextKey") String contextKey,
+			@PluginAttribute("xmlDeclaration") boolean xmlDeclaration,
+			@PluginAttribute("robustness") boolean robustness,
+			@PluginAttribute("ignoreWhitespace") boolean ignoreWhitespace,
+			@PluginAttribute("prettyPrintTextNodes") boolean prettyPrintTextNodes,
+			@PluginAttribute("prettyPrintCData") boolean prettyPrintCData,
+			@PluginAttribute("prettyPrintComments") boolean prettyPrintComments,
+			@PluginAttribute(value = "maxTextNodeLength", defaultInt = -1) int maxTextNodeLength,
+			@PluginAttribute(value = "maxCDATANodeLength", defaultInt = -1) int maxCDATANodeLength,
+			@PluginAttribute("anonymize") String anonymize,
+			@PluginAttribute("prune") String prune,
+			@PluginAttribute(value = "indentationCharacter", defaultString = "tab") String indentationCharacter,
+			@PluginAttribute(value = "indentationMultiplier", defaultInt = 1) int indentationMultiplier) {
+
+		LayoutOptions options = new LayoutOptions();
+		options.setXmlDeclaration(xmlDeclaration);
+		options.setRobustness(robustness);
+		options.setIgnoreWhitespace(ignoreWhitespace);
+		options.setPrettyPrintTextNodes(prettyPrintTextNodes);
+		options.setPrettyPrintCData(prettyPrintCData);
+		options.setPrettyPrintComments(prettyPrintComments);
+		options.setMaxTextNodeLength(maxTextNodeLength);
+		options.setMaxCDATANodeLength(maxCDATANodeLength);
+		options.addAnonymizeFilters(anonymize);
+		options.addPruneFilters(prune);
+		options.setIndentationCharacter(indentationCharacter);
+		options.setIndentationMultiplier(indentationMultiplier);
+
+		return new XmlPrettyPrintLayout(configuration, charset, pattern, options.newPrettyPrinterBuilder().build(), marker, contextKey);
+	}
+
+	public String toSerializable(LogEvent event) {
+		if(!isXml(event)) {
+			return serializer.toSerializable(event);
+		}
+		MutableLogEvent mutableLogEvent = getMutableLogEvent(event);
+		try {
+			return serializer.toSerializable(mutableLogEvent);
+		} finally {
+			mutableLogEvent.clear();
+		}
+	}
+
+	@Override
+	public void encode(LogEvent event, ByteBufferDestination destination) {
+		if(!(serializer instanceof Serializer2)) {
+			super.encode(event, destination);
+
+			return;
+		}
+		if(!isXml(event)) {
+			encode((Serializer2)serializer, event, destination);
+
+			return;
+		}
+		MutableLogEvent mutableLogEvent = getMutableLogEvent(event);
+		try {
+			encode((Serializer2)serializer, mutableLogEvent, destination);
+		} finally {
+			mutableLogEvent.clear();
+		}
+	}
+
+	private void encode(Serializer2 serializer, LogEvent event, ByteBufferDestination destination) {
+		StringBuilder text = serializer.toSerializable(event, getStringBuilder());
+
+		getStringBuilderEncoder().encode(text, destination);
+
+		trimToMaxSize(text);
+	}
+
+	/**
+	 * Get a copy of the event, with a pretty-printing message.
+	 *
+	 * @param event log event
+	 * @return reusable event, to be cleared after use
+	 */
+
+	private MutableLogEvent getMutableLogEvent(LogEvent event) {
+		MutableLogEvent mutableLogEvent = mutableLogEvents.get();
+		if(mutableLogEvent == null) {
+			mutableLogEvent = new MutableLogEvent();
+
+			mutableLogEvents.set(mutableLogEvent);
+		}
+		mutableLogEvent.initFrom(event);
+		mutableLogEvent.setMessage(new PrettyPrintedMessage(event.getMessage(), prettyPrinter));
+
+		return mutableLogEvent;
+	}
+
+	protected boolean isXml(LogEvent event) {
+		Marker eventMarker = event.getMarker();
+		if(eventMarker != null && marker != null && eventMarker.isInstanceOf(marker)) {
+			return true;
+		}
+		if(contextKey != null) {
+			Object value = event.getContextData().getValue(contextKey);
+
+			return value != null && !"false".equals(value);
+		}
+		return false;
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+
+	public String getMarker() {
+		return marker;
+	}
+
+	public String getContextKey() {
+		return contextKey;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public String toString() {
+		return "XmlPrettyPrintLayout [pattern=" + pattern + ", marker=" + marker + ", contextKey=" + contextKey + ", prettyPrinter=" + prettyPrinter + "]";
+	}
+}
@@ -0,0 +1,110 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.logback;
+
+import java.util.Map;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+
+/**
+ *
+ * Logging event with a pretty-printed message, otherwise identical to the original event.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+class PrettyPrintedLoggingEvent implements ILoggingEvent {
+
+	private final ILoggingEvent event;
+	private final String formattedMessage;
+
+	public PrettyPrintedLoggingEvent(ILoggingEvent event, String formattedMessage) {
+		this.event = event;
+		this.formattedMessage = formattedMessage;
+	}
+
+	public String getFormattedMessage() {
+		return formattedMessage;
+	}
+
+	public String getThreadName() {
+		return event.getThreadName();
+	}
+
+	public Level getLevel() {
+		return event.getLevel();
+	}
+
+	public String getMessage() {
+		return event.getMessage();
+	}
+
+	public Object[] getArgumentArray() {
+		return event.getArgumentArray();
+	}
+
+	public String getLoggerName() {
+		return event.getLoggerName();
+	}
+
+	public LoggerContextVO getLoggerContextVO() {
+		return event.getLoggerContextVO();
+	}
+
+	public IThrowableProxy getThrowableProxy() {
+		return event.getThrowableProxy();
+	}
+
+	public StackTraceElement[] getCallerData() {
+		return event.getCallerData();
+	}
+
+	public boolean hasCallerData() {
+		return event.hasCallerData();
+	}
+
+	public Marker getMarker() {
+		return event.getMarker();
+	}
+
+	public Map<String, String> getMDCPropertyMap() {
+		return event.getMDCPropertyMap();
+	}
+
+	@SuppressWarnings("deprecation")
+	public Map<String, String> getMdc() {
+		return event.getMdc();
+	}
+
+	public long getTimeStamp() {
+		return event.getTimeStamp();
+	}
+
+	public void prepareForDeferredProcessing() {
+		event.prepareForDeferredProcessing();
+	}
+}
@@ -0,0 +1,231 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.logback;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import com.greenbird.xml.prettyprinter.BufferPool;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterBuilder;
+import com.greenbird.xml.prettyprinter.log.LayoutOptions;
+
+/**
+ *
+ * Logback pattern layout which pretty-prints the message of XML logging events.
+ * <br>
+ * An event is considered XML if it has the configured marker (by default {@value #DEFAULT_MARKER})
+ * or, if configured, the MDC key. The message of other events is left as-is, as is the message of
+ * events which could not be pretty-printed. Pretty-printing options map onto {@linkplain PrettyPrinterBuilder}.
+ * <br>
+ * Use with the {@linkplain ch.qos.logback.core.encoder.LayoutWrappingEncoder}:
+ * <pre>
+ * &lt;encoder class="ch.qos.logback.core.encoder.LayoutWrappingEncoder"&gt;
+ *   &lt;layout class="com.greenbird.xml.prettyprinter.logback.XmlPrettyPrintLayout"&gt;
+ *     &lt;pattern&gt;%d %-5level [%thread] %logger - %msg%n&lt;/pattern&gt;
+ *     &lt;anonymize&gt;/Envelope/Body/order/creditCard&lt;/anonymize&gt;
+ *   &lt;/layout&gt;
+ * &lt;/encoder&gt;
+ * </pre>
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class XmlPrettyPrintLayout extends PatternLayout {
+
+	public static final String DEFAULT_MARKER = "XML";
+
+	private String marker = DEFAULT_MARKER;
+	private String mdcKey;
+
+	private final LayoutOptions options = new LayoutOptions();
+
+	private PrettyPrinter prettyPrinter;
+
+	@Override
+	public void start() {
+		try {
+			prettyPrinter = newPrettyPrinterBuilder().build();
+		} catch(IllegalArgumentException e) {
+			addError("Unable to configure XML pretty-printer", e);
+
+			return;
+		}
+		super.start();
+	}
+
+	protected PrettyPrinterBuilder newPrettyPrinterBuilder() {
+		return options.newPrettyPrinterBuilder();
+	}
+
+	@Override
+	public String doLayout(ILoggingEvent event) {
+		if(isStarted() && isXml(event)) {
+			String message = BufferPool.getDefault().process(prettyPrinter, event.getFormattedMessage());
+			if(message != null) {
+				event = new PrettyPrintedLoggingEvent(event, message);
+			}
+		}
+		return super.doLayout(event);
+	}
+
+	protected boolean isXml(ILoggingEvent event) {
+		Marker eventMarker = event.getMarker();
+		if(eventMarker != null && marker != null && eventMarker.contains(marker)) {
+			return true;
+		}
+		if(mdcKey != null) {
+			String value = event.getMDCPropertyMap().get(mdcKey);
+
+			return value != null && !value.equals("false");
+		}
+		return false;
+	}
+
+	public String getMarker() {
+		return marker;
+	}
+
+	public void setMarker(String marker) {
+		this.marker = marker;
+	}
+
+	public String getMdcKey() {
+		return mdcKey;
+	}
+
+	public void setMdcKey(String mdcKey) {
+		this.mdcKey = mdcKey;
+	}
+
+	public boolean isXmlDeclaration() {
+		return options.isXmlDeclaration();
+	}
+
+	public void setXmlDeclaration(boolean xmlDeclaration) {
+		options.setXmlDeclaration(xmlDeclaration);
+	}
+
+	public boolean isRobustness() {
+		return options.isRobustness();
+	}
+
+	public void setRobustness(boolean robustness) {
+		options.setRobustness(robustness);
+	}
+
+	public boolean isIgnoreWhitespace() {
+		return options.isIgnoreWhitespace();
+	}
+
+	public void setIgnoreWhitespace(boolean ignoreWhitespace) {
+		options.setIgnoreWhitespace(ignoreWhitespace);
+	}
+
+	public boolean isPrettyPrintTextNodes() {
+		return options.isPrettyPrintTextNodes();
+	}
+
+	public void setPrettyPrintTextNodes(boolean prettyPrintTextNodes) {
+		options.setPrettyPrintTextNodes(prettyPrintTextNodes);
+	}
+
+	public boolean isPrettyPrintCData() {
+		return options.isPrettyPrintCData();
+	}
+
+	public void setPrettyPrintCData(boolean prettyPrintCData) {
+		options.setPrettyPrintCData(prettyPrintCData);
+	}
+
+	public boolean isPrettyPrintComments() {
+		return options.isPrettyPrintComments();
+	}
+
+	public void setPrettyPrintComments(boolean prettyPrintComments) {
+		options.setPrettyPrintComments(prettyPrintComments);
+	}
+
+	public int getMaxTextNodeLength() {
+		return options.getMaxTextNodeLength();
+	}
+
+	public void setMaxTextNodeLength(int maxTextNodeLength) {
+		options.setMaxTextNodeLength(maxTextNodeLength);
+	}
+
+	public int getMaxCDATANodeLength() {
+		return options.getMaxCDATANodeLength();
+	}
+
+	public void setMaxCDATANodeLength(int maxCDATANodeLength) {
+		options.setMaxCDATANodeLength(maxCDATANodeLength);
+	}
+
+	/**
+	 * Add an anonymize filter, i.e. once per &lt;anonymize&gt; element.
+	 *
+	 * @param filter XPath-like filter
+	 */
+
+	public void addAnonymize(String filter) {
+		options.addAnonymize(filter);
+	}
+
+	/**
+	 * Add a prune filter, i.e. once per &lt;prune&gt; element.
+	 *
+	 * @param filter XPath-like filter
+	 */
+
+	public void addPrune(String filter) {
+		options.addPrune(filter);
+	}
+
+	public String getIndentationCharacter() {
+		return options.getIndentationCharacter();
+	}
+
+	/**
+	 * Set the indentation character.
+	 *
+	 * @param indentationCharacter 'tab', 'space' or a single character
+	 */
+
+	public void setIndentationCharacter(String indentationCharacter) {
+		options.setIndentationCharacter(indentationCharacter);
+	}
+
+	public int getIndentationMultiplier() {
+		return options.getIndentationMultiplier();
+	}
+
+	public void setIndentationMultiplier(int indentationMultiplier) {
+		options.setIndentationMultiplier(indentationMultiplier);
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+}
@@ -0,0 +1,178 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.metrics;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+
+/**
+ * 
+ * Decorator which records {@linkplain PrettyPrinterMetrics} for each operation of a {@linkplain PrettyPrinter}.
+ * <br>
+ * Input lengths are not known for {@linkplain Reader}s, neither are output lengths for {@linkplain Appendable}s,
+ * so only the result and latency is recorded for these. Batches are recorded as a single operation per document.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class InstrumentedPrettyPrinter implements PrettyPrinter {
+
+	protected final PrettyPrinter prettyPrinter;
+	protected final PrettyPrinterMetrics metrics;
+
+	public InstrumentedPrettyPrinter(PrettyPrinter prettyPrinter, PrettyPrinterMetrics metrics) {
+		if(prettyPrinter == null) {
+			throw new IllegalArgumentException("Expected pretty printer");
+		}
+		if(metrics == null) {
+			throw new IllegalArgumentException("Expected metrics");
+		}
+		this.prettyPrinter = prettyPrinter;
+		this.metrics = metrics;
+	}
+
+	public boolean process(String chars, StringBuilder output) {
+		int outputLength = output.length();
+		long start = System.nanoTime();
+
+		boolean success = prettyPrinter.process(chars, output);
+
+		metrics.record(success, chars.length(), output.length() - outputLength, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(char[] chars, int offset, int length, StringBuilder output) {
+		int outputLength = output.length();
+		long start = System.nanoTime();
+
+		boolean success = prettyPrinter.process(chars, offset, length, output);
+
+		metrics.record(success, length, output.length() - outputLength, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(Reader reader, int length, StringBuilder output) throws IOException {
+		int outputLength = output.length();
+		long start = System.nanoTime();
+
+		boolean success = prettyPrinter.process(reader, length, output);
+
+		metrics.record(success, length, output.length() - outputLength, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(Reader reader, StringBuilder output) throws IOException {
+		int outputLength = output.length();
+		long start = System.nanoTime();
+
+		boolean success = prettyPrinter.process(reader, output);
+
+		metrics.record(success, -1, output.length() - outputLength, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(Reader reader, Appendable output) throws IOException {
+		long start = System.nanoTime();
+
+		boolean success = prettyPrinter.process(reader, output);
+
+		metrics.record(success, -1, -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(String chars, Appendable output) throws IOException {
+		long start = System.nanoTime();
+
+		boolean success = prettyPrinter.process(chars, output);
+
+		metrics.record(success, chars.length(), -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public boolean process(char[] chars, int offset, int length, Appendable output) throws IOException {
+		long start = System.nanoTime();
+
+		boolean success = prettyPrinter.process(chars, offset, length, output);
+
+		metrics.record(success, length, -1, System.nanoTime() - start);
+
+		return success;
+	}
+
+	public int processBatch(List<? extends CharSequence> documents, StringBuilder output, int[] offsets, boolean[] results) {
+		if(results == null) {
+			results = new boolean[documents.size()];
+		}
+		long start = System.nanoTime();
+
+		int count = prettyPrinter.processBatch(documents, output, offsets, results);
+
+		long nanos = (System.nanoTime() - start) / Math.max(1, documents.size());
+		for(int i = 0; i < documents.size(); i++) {
+			metrics.record(results[i], documents.get(i).length(), offsets[i + 1] - offsets[i], nanos);
+		}
+
+		return count;
+	}
+
+	public int processBatch(char[][] documents, int[] documentOffsets, int[] documentLengths, StringBuilder output, int[] offsets, boolean[] results) {
+		if(results == null) {
+			results = new boolean[documents.length];
+		}
+		long start = System.nanoTime();
+
+		int count = prettyPrinter.processBatch(documents, documentOffsets, documentLengths, output, offsets, results);
+
+		long nanos = (System.nanoTime() - start) / Math.max(1, documents.length);
+		for(int i = 0; i < documents.length; i++) {
+			metrics.record(results[i], documentLengths[i], offsets[i + 1] - offsets[i], nanos);
+		}
+
+		return count;
+	}
+
+	public int estimateOutputLength(char[] chars, int offset, int length) {
+		return prettyPrinter.estimateOutputLength(chars, offset, length);
+	}
+
+	public PrettyPrinter getPrettyPrinter() {
+		return prettyPrinter;
+	}
+
+	public PrettyPrinterMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public String toString() {
+		return "InstrumentedPrettyPrinter [prettyPrinter=" + prettyPrinter + "]";
+	}
+}
@@ -0,0 +1,156 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 
+ * Histogram with log-linear buckets, like a HDR histogram with one significant decimal digit: 
+ * values below 32 are recorded exactly, larger values with a precision of 1/16 of their power of two.
+ * Values above {@linkplain #MAX_VALUE} are recorded as the maximum value.
+ * <br>
+ * Recording does not allocate, and the buckets are striped like a {@linkplain StripedCounter}. 
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** largest recorded value, approximately 18 minutes in nanoseconds */
+	public static final long MAX_VALUE = (1L << 40) - 1;
+
+	private static final int BUCKETS = getIndex(MAX_VALUE) + 1;
+
+	protected static int getIndex(long value) {
+		if(value < 2 * SUB_BUCKETS) {
+			return value < 0 ? 0 : (int)value;
+		}
+		if(value > MAX_VALUE) {
+			value = MAX_VALUE;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int)(value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Get the largest value which is recorded in a bucket.
+	 * 
+	 * @param index bucket index
+	 * @return the highest value of the bucket
+	 */
+
+	protected static long getHighestValue(int index) {
+		if(index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long subBucket = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	private final AtomicLongArray buckets = new AtomicLongArray(StripedCounter.STRIPES * BUCKETS);
+
+	public void record(long value) {
+		buckets.getAndIncrement(StripedCounter.getStripe(StripedCounter.STRIPES - 1) * BUCKETS + getIndex(value));
+	}
+
+	/**
+	 * Get the counts per bucket, summed over all stripes.
+	 * 
+	 * @return bucket counts
+	 */
+
+	protected long[] getCounts() {
+		long[] counts = new long[BUCKETS];
+		for(int i = 0; i < buckets.length(); i++) {
+			counts[i % BUCKETS] += buckets.get(i);
+		}
+		return counts;
+	}
+
+	public long getCount() {
+		long count = 0;
+		for(int i = 0; i < buckets.length(); i++) {
+			count += buckets.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Get the value at a percentile.
+	 * 
+	 * @param percentile percentile, i.e. 99.9 
+	 * @return the highest value of the bucket in which the percentile is found, or 0 if no values are recorded
+	 */
+
+	public long getValueAtPercentile(double percentile) {
+		if(percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Expected percentile between 0 and 100, not " + percentile);
+		}
+		long[] counts = getCounts();
+
+		long total = 0;
+		for(long count : counts) {
+			total += count;
+		}
+		if(total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long)Math.ceil(total * percentile / 100));
+
+		long sum = 0;
+		for(int i = 0; i < counts.length; i++) {
+			sum += counts[i];
+			if(sum >= target) {
+				return getHighestValue(i);
+			}
+		}
+		return MAX_VALUE;
+	}
+
+	public long getMax() {
+		long[] counts = getCounts();
+		for(int i = counts.length - 1; i >= 0; i--) {
+			if(counts[i] != 0) {
+				return getHighestValue(i);
+			}
+		}
+		return 0;
+	}
+
+	public void reset() {
+		for(int i = 0; i < buckets.length(); i++) {
+			buckets.set(i, 0L);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram [count=" + getCount() + ", p50=" + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax() + "]";
+	}
+}
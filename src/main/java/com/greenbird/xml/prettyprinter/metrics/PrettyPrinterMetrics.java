@@ -0,0 +1,150 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.metrics;
+
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+import com.greenbird.xml.prettyprinter.plain.filter.FilterListener;
+
+/**
+ * 
+ * Metrics for pretty-printing operations, as recorded by {@linkplain InstrumentedPrettyPrinter}. 
+ * Counters are striped, so that recording from many threads does not contend.
+ * <br>
+ * A single instance can be shared between several pretty-printers.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class PrettyPrinterMetrics implements FilterListener {
+
+	protected final StripedCounter successes = new StripedCounter();
+	protected final StripedCounter failures = new StripedCounter();
+	protected final StripedCounter inputCharacters = new StripedCounter();
+	protected final StripedCounter outputCharacters = new StripedCounter();
+
+	protected final StripedCounter anonymizedElements = new StripedCounter();
+	protected final StripedCounter prunedElements = new StripedCounter();
+	protected final StripedCounter anonymizedAttributes = new StripedCounter();
+	protected final StripedCounter truncatedNodes = new StripedCounter();
+
+	/** nanoseconds per operation */
+	protected final LatencyHistogram latency = new LatencyHistogram();
+
+	/**
+	 * Record an operation.
+	 * 
+	 * @param success the result of the operation
+	 * @param inputLength number of characters read, or -1 if unknown
+	 * @param outputLength number of characters written, or -1 if unknown
+	 * @param nanos duration of the operation
+	 */
+
+	public void record(boolean success, int inputLength, int outputLength, long nanos) {
+		if(success) {
+			successes.increment();
+		} else {
+			failures.increment();
+		}
+		if(inputLength > 0) {
+			inputCharacters.add(inputLength);
+		}
+		if(outputLength > 0) {
+			outputCharacters.add(outputLength);
+		}
+		latency.record(nanos);
+	}
+
+	public void elementFiltered(FilterType filterType) {
+		if(filterType == FilterType.PRUNE) {
+			prunedElements.increment();
+		} else {
+			anonymizedElements.increment();
+		}
+	}
+
+	public void attributeAnonymized() {
+		anonymizedAttributes.increment();
+	}
+
+	public void nodeTruncated() {
+		truncatedNodes.increment();
+	}
+
+	public long getSuccesses() {
+		return successes.sum();
+	}
+
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	public long getInputCharacters() {
+		return inputCharacters.sum();
+	}
+
+	public long getOutputCharacters() {
+		return outputCharacters.sum();
+	}
+
+	public long getAnonymizedElements() {
+		return anonymizedElements.sum();
+	}
+
+	public long getPrunedElements() {
+		return prunedElements.sum();
+	}
+
+	public long getAnonymizedAttributes() {
+		return anonymizedAttributes.sum();
+	}
+
+	public long getTruncatedNodes() {
+		return truncatedNodes.sum();
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Reset all counters. Operations recorded concurrently might be partially reset.
+	 */
+
+	public void reset() {
+		successes.reset();
+		failures.reset();
+		inputCharacters.reset();
+		outputCharacters.reset();
+		anonymizedElements.reset();
+		prunedElements.reset();
+		anonymizedAttributes.reset();
+		truncatedNodes.reset();
+		latency.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "PrettyPrinterMetrics [successes=" + getSuccesses() + ", failures=" + getFailures() + ", inputCharacters=" + getInputCharacters()
+				+ ", outputCharacters=" + getOutputCharacters() + ", anonymizedElements=" + getAnonymizedElements() + ", prunedElements="
+				+ getPrunedElements() + ", anonymizedAttributes=" + getAnonymizedAttributes() + ", truncatedNodes=" + getTruncatedNodes() + ", latency=" + latency + "]";
+	}
+}
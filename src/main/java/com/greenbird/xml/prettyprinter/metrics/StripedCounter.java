@@ -0,0 +1,93 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 
+ * Counter which is spread over a number of cells, so that threads updating the counter concurrently
+ * mostly update different cells. The cells are padded to separate cache lines. 
+ * Similar to the JDK 8 <code>LongAdder</code>, but with a fixed number of cells.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class StripedCounter {
+
+	/** longs per cache line */
+	private static final int PADDING = 8;
+
+	protected static final int STRIPES = getStripes(Runtime.getRuntime().availableProcessors());
+
+	private static int getStripes(int processors) {
+		int stripes = Integer.highestOneBit(processors);
+		if(stripes < processors) {
+			stripes = stripes << 1;
+		}
+		return Math.min(stripes, 64);
+	}
+
+	/**
+	 * Get the stripe of the current thread.
+	 * 
+	 * @param mask number of stripes minus one
+	 * @return stripe index
+	 */
+
+	protected static int getStripe(int mask) {
+		long id = Thread.currentThread().getId();
+		// spread sequential thread ids
+		int hash = (int)(id * 0x9E3779B97F4A7C15L >>> 32);
+
+		return hash & mask;
+	}
+
+	private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+	public void increment() {
+		add(1L);
+	}
+
+	public void add(long value) {
+		cells.getAndAdd(getStripe(STRIPES - 1) * PADDING, value);
+	}
+
+	public long sum() {
+		long sum = 0;
+		for(int i = 0; i < cells.length(); i += PADDING) {
+			sum += cells.get(i);
+		}
+		return sum;
+	}
+
+	public void reset() {
+		for(int i = 0; i < cells.length(); i += PADDING) {
+			cells.set(i, 0L);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(sum());
+	}
+}
@@ -0,0 +1,205 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter.Type;
+
+/**
+ * 
+ * Resumable pretty-printing of a single document which arrives in chunks. The parser state (level and {@linkplain Type}) 
+ * is kept between chunks, and constructs which are incomplete at the end of a chunk are left for the caller to carry over to the next chunk.
+ * <br>
+ * Not thread-safe, use one instance per document.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public abstract class AbstractIncrementalProcessor {
+
+	protected int level = 0;
+	protected Type type = Type.NEITHER;
+	/** deepest element nesting so far, where the root element is at depth 1 */
+	protected int maxLevel = 0;
+	
+	/**
+	 * Pretty-print the next chunk of the document. 
+	 * 
+	 * @param chars XML data
+	 * @param offset start offset within XML data
+	 * @param limit end offset within XML data
+	 * @param last true if this is the last chunk of the document
+	 * @param buffer the buffer to which indented XML is appended
+	 * @return offset of the first character which was not processed, i.e. the start of an incomplete construct, or -1 if the XML is invalid.
+	 * If -1, the buffer might contain partial output.
+	 */
+	
+	public abstract int process(char[] chars, int offset, int limit, boolean last, StringBuilder buffer);
+
+	/**
+	 * Reset state, so that a new document can be processed.
+	 */
+	
+	public void reset() {
+		level = 0;
+		type = Type.NEITHER;
+		maxLevel = 0;
+	}
+
+	/**
+	 * Copy the parser state of another processor, so that processing resumes where the other processor left off.
+	 * 
+	 * @param processor processor of the same type, i.e. holding a snapshot taken at the end of a chunk
+	 */
+	
+	public void copyState(AbstractIncrementalProcessor processor) {
+		level = processor.level;
+		type = processor.type;
+		maxLevel = processor.maxLevel;
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	/*
+	 * Scan methods which return -1 if the construct is incomplete, rather than throw an exception.
+	 */
+	
+	protected static int scanBeyondEndElement(final char[] chars, int offset, int limit) {
+		// an end element must be at least 4 chars.
+		return scanBeyond(chars, offset + 3, limit);
+	}
+
+	protected static int scanBeyondStartElement(final char[] chars, int offset, int limit) {
+		// an start element must be at least 3 chars.
+		return scanBeyond(chars, offset + 2, limit);
+	}
+
+	private static int scanBeyond(final char[] chars, int offset, int limit) {
+		while(offset < limit) {
+			if(chars[offset] == '>') {
+				return offset + 1;
+			}
+			offset++;
+		}
+		return -1;
+	}
+
+	protected static int scanBeyondProcessingInstruction(final char[] chars, int offset, int limit) {
+		offset += 3; // // a processing must be at least 4 chars. <? >
+		
+		while(offset < limit) {
+			if(chars[offset] == '>' && chars[offset - 1] == '?') {
+				return offset + 1;
+			}
+			offset++;
+		}
+		return -1;
+	}
+
+	protected static int scanBeyondCData(final char[] chars, int offset, int limit) {
+		offset += 11; // // a CDATA node must be at least 12 chars. <![CDATA[]]>
+		
+		while(offset < limit) {
+			if(chars[offset] == '>' && chars[offset - 1] == ']' && chars[offset - 2] == ']') {
+				return offset + 1;
+			}
+			offset++;
+		}
+		return -1;
+	}
+
+	protected static int scanBeyondComment(final char[] chars, int offset, int limit) {
+		offset += 6; // a comment must be at least 7 chars. <!-- -->
+		
+		while(offset < limit) {
+			if(chars[offset] == '>' && chars[offset - 1] == '-' && chars[offset - 2] == '-') {
+				return offset + 1;
+			}
+			offset++;
+		}
+		return -1;
+	}
+
+	protected static int scanBeyondDTDEnd(final char[] chars, int offset, int limit) {
+		// assume DTD are nested structures
+		// simplified scan loop
+		int level = 1;
+		
+		while(++offset < limit) {
+			if(chars[offset] == '<') {
+				level++;
+			} else if(chars[offset] == '>') {
+				level--;
+				
+				if(level == 0) {
+					return offset + 1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	protected static int scanBeyondCDataEnd(final char[] chars, int offset, int limit) {
+		while(offset < limit) {
+			if(chars[offset] == '>' && chars[offset - 1] == ']' && chars[offset - 2] == ']') {
+				return offset + 1;
+			}
+			offset++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Scan to the end of a start element, ignoring any end of element character within attribute values.
+	 * 
+	 * @param chars XML data
+	 * @param offset start offset within XML data
+	 * @param limit end offset within XML data
+	 * @return offset one character past the start element, or -1 if incomplete
+	 */
+
+	protected static int scanBeyondStartElementAttributes(final char[] chars, int offset, int limit) {
+		offset += 2; // an start element must be at least 3 chars.
+		
+		while(offset < limit) {
+			char c = chars[offset];
+			if(c == '>') {
+				return offset + 1;
+			} else if(c == '"' || c == '\'') {
+				do {
+					offset++;
+					if(offset >= limit) {
+						return -1;
+					}
+				} while(chars[offset] != c);
+			}
+			offset++;
+		}
+		return -1;
+	}
+
+}
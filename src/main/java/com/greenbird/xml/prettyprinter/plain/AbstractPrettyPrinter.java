@@ -23,7 +23,12 @@ package com.greenbird.xml.prettyprinter.plain;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
 
+import com.greenbird.xml.prettyprinter.BatchProcessor;
+import com.greenbird.xml.prettyprinter.BufferPool;
 import com.greenbird.xml.prettyprinter.PrettyPrinter;
 
 public abstract class AbstractPrettyPrinter implements PrettyPrinter {
@@ -45,6 +50,26 @@ public abstract class AbstractPrettyPrinter implements PrettyPrinter {
 		}
 	}
 
+	/** max number of characters written to an {@linkplain Appendable} at a time */
+	protected static final int OUTPUT_CHUNK_LENGTH = 4 * 1024;
+	/** internal buffers which grow above this capacity are not kept, so that a rare huge document is not retained */
+	protected static final int MAX_RETAINED_OUTPUT_CAPACITY = BufferPool.DEFAULT_MAX_RETAINED_CAPACITY;
+	/** documents below this length are not pre-scanned to size the output buffer, as growing the buffer is cheap */
+	protected static final int MIN_ESTIMATED_LENGTH = 32 * 1024;
+
+	/** number of characters read from a {@linkplain Reader}, or pretty printed to an {@linkplain Appendable}, at a time */
+	protected static final int INPUT_CHUNK_LENGTH = 8 * 1024;
+	/** unescape arrays above this length are not kept, as they are kept per level and thread */
+	protected static final int MAX_RETAINED_UNESCAPE_LENGTH = 16 * 1024;
+
+	/** name of the SIMD {@linkplain DelimiterScanner}, which is only available on newer JDKs */
+	protected static final String VECTOR_DELIMITER_SCANNER = "com.greenbird.xml.prettyprinter.plain.vector.VectorDelimiterScanner";
+	/** scanner for large text, CDATA and comment nodes */
+	protected static final DelimiterScanner delimiterScanner = newDelimiterScanner();
+
+	/** unescaped text node XML, one array per thread and level, so that nested payloads do not share an array */
+	private static final ThreadLocal<char[][]> unescapeBuffers = new ThreadLocal<char[][]>();
+	
 	protected static final char[][] tabIndentations;
 	protected static final char[][][] spaceIndentations;
 
@@ -239,10 +264,346 @@ public abstract class AbstractPrettyPrinter implements PrettyPrinter {
 	}
 
 
+	public boolean process(String xmlString, Appendable output) throws IOException {
+		
+		char[] chars = xmlString.toCharArray();
+		
+		return process(chars, 0, chars.length, output);
+	}
+
+	public int processBatch(List<? extends CharSequence> documents, StringBuilder output, int[] offsets, boolean[] results) {
+		return BatchProcessor.processBatch(this, documents, output, offsets, results);
+	}
+
+	public int processBatch(char[][] documents, int[] documentOffsets, int[] documentLengths, StringBuilder output, int[] offsets, boolean[] results) {
+		return BatchProcessor.processBatch(this, documents, documentOffsets, documentLengths, output, offsets, results);
+	}
+
+	public int estimateOutputLength(final char[] chars, int offset, int length) {
+		// use length as the end index
+		int limit = offset + length;
+
+		// characters of indentation which are added, per level
+		long indentation = 0;
+		// number of constructs which are indented
+		long constructs = 0;
+
+		int level = 0;
+
+		try {
+			offset = delimiterScanner.indexOf(chars, offset, limit, '<');
+			while(offset < limit - 1) {
+				switch(chars[offset + 1]) {
+					case '/' : {
+						if(level > 0) {
+							level--;
+						}
+						indentation += level;
+						constructs++;
+
+						offset = scanBeyondEndElement(chars, offset, limit);
+
+						break;
+					}
+					case '!' : {
+						if(offset + 2 < limit && chars[offset + 2] == '[') {
+							// CDATA is not indented
+							offset = scanBeyondCData(chars, offset, limit);
+						} else {
+							// comment or DTD
+							indentation += level;
+							constructs++;
+
+							if(offset + 2 < limit && chars[offset + 2] == '-') {
+								offset = scanBeyondComment(chars, offset, limit);
+							} else {
+								offset = scanBeyondDTDEnd(chars, offset, limit);
+							}
+						}
+						break;
+					}
+					case '?' : {
+						indentation += level;
+						constructs++;
+
+						offset = scanBeyondProcessingInstruction(chars, offset, limit);
+
+						break;
+					}
+					default : {
+						indentation += level;
+						constructs++;
+
+						offset = scanBeyondStartElement(chars, offset, limit);
+						if(chars[offset - 2] != '/') {
+							level++;
+						}
+					}
+				}
+				offset = delimiterScanner.indexOf(chars, offset, limit, '<');
+			}
+		} catch(Exception e) {
+			// incomplete XML, the estimate is good enough
+		}
+
+		long estimate = length + constructs + indentation * indentationMultiplier;
+		if(estimate > Integer.MAX_VALUE) {
+			return Integer.MAX_VALUE;
+		}
+		return (int)estimate;
+	}
+
+	/**
+	 * Make sure the output buffer is large enough for a document, so that it does not grow (and copy) repeatedly.
+	 * For smaller documents, or if the buffer has plenty of free capacity, the output length is not estimated.
+	 * 
+	 * @param chars characters containing XML to be pretty printed
+	 * @param offset the offset within the chars where the XML starts
+	 * @param length the length of the XML within the chars
+	 * @param buffer the buffer to which indented XML is appended
+	 */
+
+	protected void ensureOutputCapacity(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		if(length < MIN_ESTIMATED_LENGTH) {
+			return;
+		}
+		// indentation rarely adds more than half the input size
+		if(buffer.capacity() - buffer.length() < length + (length >> 1)) {
+			long capacity = (long)buffer.length() + estimateOutputLength(chars, offset, length);
+			if(capacity < Integer.MAX_VALUE) {
+				buffer.ensureCapacity((int)capacity);
+			}
+		}
+	}
+
+	public boolean process(char[] chars, int offset, int length, Appendable output) throws IOException {
+		if(output instanceof StringBuilder) {
+			return process(chars, offset, length, (StringBuilder)output);
+		}
+		
+		BufferPool pool = BufferPool.getDefault();
+		char[] chunk = pool.acquireChars(OUTPUT_CHUNK_LENGTH);
+		try {
+			AbstractIncrementalProcessor processor = newIncrementalProcessor();
+			if(processor != null) {
+				StringBuilder buffer = pool.acquireBuilder(OUTPUT_CHUNK_LENGTH);
+				try {
+					return process(chars, offset, length, processor, buffer, chunk, output);
+				} finally {
+					pool.release(buffer);
+				}
+			}
+
+			// the whole result is buffered, as the output must be unaffected if pretty printing fails,
+			// which might only be known at the end of the document
+			StringBuilder buffer = pool.acquireBuilder(length);
+			try {
+				if(!process(chars, offset, length, buffer)) {
+					return false;
+				}
+				
+				write(buffer, chunk, output);
+				
+				return true;
+			} finally {
+				pool.release(buffer);
+			}
+		} finally {
+			pool.release(chunk);
+		}
+	}
+
+	/**
+	 * Pretty-print characters in fixed-size windows, writing the result of each window to the output.
+	 * 
+	 * @return true if pretty printing was successful. If false, the output might contain partial output.
+	 */
+
+	private static boolean process(char[] chars, int offset, int length, AbstractIncrementalProcessor processor, StringBuilder buffer, char[] chunk, Appendable output) throws IOException {
+		int limit = offset + length;
+		
+		int windowLength = INPUT_CHUNK_LENGTH;
+		while(true) {
+			int end = limit - offset > windowLength ? offset + windowLength : limit;
+			boolean last = end == limit;
+			
+			int next = processor.process(chars, offset, end, last, buffer);
+			if(next == -1) {
+				return false;
+			}
+			
+			write(buffer, chunk, output);
+			
+			buffer.setLength(0);
+
+			if(last) {
+				return true;
+			}
+
+			if(next == offset) {
+				// construct larger than the window
+				windowLength = windowLength < Integer.MAX_VALUE / 2 ? windowLength * 2 : Integer.MAX_VALUE;
+			} else {
+				// incomplete construct is processed again in the next window
+				offset = next;
+				windowLength = INPUT_CHUNK_LENGTH;
+			}
+		}
+	}
+
+	static void write(StringBuilder buffer, char[] chunk, Appendable output) throws IOException {
+		int bufferLength = buffer.length();
+		if(output instanceof Writer) {
+			Writer writer = (Writer)output;
+
+			for(int i = 0; i < bufferLength; i += chunk.length) {
+				int end = Math.min(i + chunk.length, bufferLength);
+				
+				buffer.getChars(i, end, chunk, 0);
+				writer.write(chunk, 0, end - i);
+			}
+		} else {
+			for(int i = 0; i < bufferLength; i += chunk.length) {
+				output.append(buffer, i, Math.min(i + chunk.length, bufferLength));
+			}
+		}
+	}
+
+	/**
+	 * Spawn a processor for pretty-printing a document in chunks.
+	 * 
+	 * @return new processor, or null if this pretty printer only processes whole documents
+	 */
+	
+	public AbstractIncrementalProcessor newIncrementalProcessor() {
+		return null;
+	}
+	
+	public boolean process(Reader reader, StringBuilder output) throws IOException {
+		int bufferLength = output.length();
+
+		AbstractIncrementalProcessor processor = newIncrementalProcessor();
+		if(processor == null) {
+			char[] chars = read(reader);
+			
+			if(!process(chars, 0, chars.length, output)) {
+				output.setLength(bufferLength);
+				
+				return false;
+			}
+			return true;
+		}
+		
+		if(!process(reader, processor, output, null, null)) {
+			output.setLength(bufferLength);
+			
+			return false;
+		}
+		return true;
+	}
+
+	public boolean process(Reader reader, Appendable output) throws IOException {
+		if(output instanceof StringBuilder) {
+			return process(reader, (StringBuilder)output);
+		}
+
+		AbstractIncrementalProcessor processor = newIncrementalProcessor();
+		if(processor == null) {
+			char[] chars = read(reader);
+			
+			return process(chars, 0, chars.length, output);
+		}
+
+		BufferPool pool = BufferPool.getDefault();
+		StringBuilder buffer = pool.acquireBuilder(OUTPUT_CHUNK_LENGTH);
+		char[] chunk = pool.acquireChars(OUTPUT_CHUNK_LENGTH);
+		try {
+			return process(reader, processor, buffer, chunk, output);
+		} finally {
+			pool.release(chunk);
+			pool.release(buffer);
+		}
+	}
+	
+	private static char[] read(Reader reader) throws IOException {
+		char[] chars = new char[INPUT_CHUNK_LENGTH];
+		
+		int length = 0;
+		int read;
+		while((read = reader.read(chars, length, chars.length - length)) != -1) {
+			length += read;
+			
+			if(length == chars.length) {
+				chars = Arrays.copyOf(chars, chars.length * 2);
+			}
+		}
+		if(length < chars.length) {
+			chars = Arrays.copyOf(chars, length);
+		}
+		return chars;
+	}
+
+	private static boolean process(Reader reader, AbstractIncrementalProcessor processor, StringBuilder buffer, char[] chunk, Appendable output) throws IOException {
+		char[] chars = new char[INPUT_CHUNK_LENGTH];
+		
+		int length = 0;
+		while(true) {
+			int read = reader.read(chars, length, chars.length - length);
+			
+			boolean last = read == -1;
+			if(!last) {
+				length += read;
+			}
+
+			int offset = processor.process(chars, 0, length, last, buffer);
+			if(offset == -1) {
+				return false;
+			}
+			
+			if(output != null) {
+				write(buffer, chunk, output);
+				
+				buffer.setLength(0);
+			}
+			
+			if(last) {
+				return true;
+			}
+
+			// carry over incomplete construct
+			length -= offset;
+			if(offset > 0) {
+				System.arraycopy(chars, offset, chars, 0, length);
+			} else if(length == chars.length) {
+				// construct larger than the chunk
+				chars = Arrays.copyOf(chars, chars.length * 2);
+			}
+		}
+	}
+	
 	protected boolean isIndentationWhitespace(char c) {
 		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
 	}
 	
+	/**
+	 * Append characters between constructs, unless they are only (indentation) whitespace.
+	 *
+	 * @param chars XML data
+	 * @param sourceStart start offset within XML data
+	 * @param sourceEnd end offset within XML data
+	 * @param buffer the buffer to which XML is appended
+	 */
+
+	protected void appendIfNotWhitespace(final char[] chars, int sourceStart, int sourceEnd, final StringBuilder buffer) {
+		for(int k = sourceStart; k < sourceEnd; k++) {
+			if(!isIndentationWhitespace(chars[k])) {
+				buffer.append(chars, sourceStart, sourceEnd - sourceStart);
+
+				return;
+			}
+		}
+	}
+	
 	/**
 	 * Scan from end element start to end element end, plus one.
 	 * 
@@ -396,8 +757,12 @@ public abstract class AbstractPrettyPrinter implements PrettyPrinter {
 	}
 	
 	protected static int scanCDataEnd(final char[] chars, int offset, int limit) {
-		while(offset < limit) {
-			if(chars[offset] == '>' && chars[offset - 1] == ']' && chars[offset - 2] == ']') {
+		while(true) {
+			offset = delimiterScanner.indexOf(chars, offset, limit, '>');
+			if(offset >= limit) {
+				break;
+			}
+			if(chars[offset - 1] == ']' && chars[offset - 2] == ']') {
 				return offset;
 			}
 			offset++;
@@ -406,8 +771,12 @@ public abstract class AbstractPrettyPrinter implements PrettyPrinter {
 	}
 
 	protected static int scanCommentEnd(final char[] chars, int offset, int limit) {
-		while(offset < limit) {
-			if(chars[offset] == '>' && chars[offset - 1] == '-' && chars[offset - 2] == '-') {
+		while(true) {
+			offset = delimiterScanner.indexOf(chars, offset, limit, '>');
+			if(offset >= limit) {
+				break;
+			}
+			if(chars[offset - 1] == '-' && chars[offset - 2] == '-') {
 				return offset;
 			}
 			offset++;
@@ -513,6 +882,35 @@ public abstract class AbstractPrettyPrinter implements PrettyPrinter {
 
 	}
 
+	/**
+	 * Scan a well-balanced XML fragment, i.e. from a start element to the corresponding end element, plus one.
+	 * Used for locating XML embedded within other text.
+	 * 
+	 * @param chars characters containing XML data
+	 * @param offset offset of the start element within the characters
+	 * @param limit end offset; the fragment must end before this offset
+	 * 
+	 * @return offset one character past the fragment, or -1 if no complete fragment ends before the limit
+	 */
+
+	public static int scanBeyondFragment(final char[] chars, int offset, int limit) {
+		try {
+			offset = scanBeyondStartElement(chars, offset, limit);
+			if(chars[offset - 2] == '/') {
+				// empty element
+				return offset;
+			}
+			
+			offset = skipSubtree(chars, offset, limit);
+			if(offset >= limit) {
+				return -1;
+			}
+			return scanBeyondEndElement(chars, offset, limit);
+		} catch(ArrayIndexOutOfBoundsException e) {
+			return -1;
+		}
+	}
+
 	protected static boolean isEscapedXML(final char[] chars, int offset, int sourceStart) {
 		// An escaped minimum xml length is <x/> in which encoded size is 4 + x + / + 4 = 10
 		// however the end tag is not strictly needed in escaped form, so it is 4 + x + / + > = 7
@@ -544,18 +942,33 @@ public abstract class AbstractPrettyPrinter implements PrettyPrinter {
 	}
 
 	protected boolean appendEntity(int entityLength, char[] chars, int entityIndex, StringBuilder buffer) {
+		int c = getEntity(entityLength, chars, entityIndex);
+		if(c == -1) {
+			return false;
+		}
+		buffer.append((char)c);
+		
+		return true;
+	}
+
+	/**
+	 * Get the character of a predefined entity.
+	 * 
+	 * @param entityLength length of the entity name
+	 * @param chars characters
+	 * @param entityIndex start of the entity name, i.e. after the ampersand
+	 * @return the character, or -1 if not a predefined entity
+	 */
+
+	protected static int getEntity(int entityLength, char[] chars, int entityIndex) {
 		
 		switch(entityLength) {
 		case 2: {
 			
 			if(chars[entityIndex] == 'g' && chars[entityIndex+1] == 't') {
-				buffer.append('>');
-				
-				return true;
+				return '>';
 			} else if(chars[entityIndex] == 'l' && chars[entityIndex+1] == 't') {
-				buffer.append('<');
-				
-				return true;
+				return '<';
 			}
 
 			break;
@@ -563,26 +976,121 @@ public abstract class AbstractPrettyPrinter implements PrettyPrinter {
 		
 		case 3: {
 			if(chars[entityIndex] == 'a' && chars[entityIndex+1] == 'm' && chars[entityIndex+2] == 'p') {
-				buffer.append('&');
-				
-				return true;
+				return '&';
 			}
 			break;
 		}
 		case 4: {
 			if(chars[entityIndex] == 'a' && chars[entityIndex+1] == 'p' && chars[entityIndex+2] == 'o' && chars[entityIndex+3] == 's') {
-				buffer.append('\'');
-				
-				return true;
+				return '\'';
 			} else if(chars[entityIndex] == 'q' && chars[entityIndex+1] == 'u' && chars[entityIndex+2] == 'o' && chars[entityIndex+3] == 't') {
-				buffer.append('"');
-				
-				return true;
+				return '"';
 			}
 			break;
 		}
 		}
-		return false;
+		return -1;
+	}
+
+	/**
+	 * Unescape a text node containing escaped XML. Numeric entities are kept as-is.
+	 * 
+	 * @param chars characters
+	 * @param sourceStart start of text node
+	 * @param sourceEnd end of text node (exclusive)
+	 * @param target array to unescape to, at least as long as the text node
+	 * @return number of characters written to target, or -1 if an unknown entity was found
+	 */
+
+	protected static int unescapeXML(final char[] chars, int sourceStart, final int sourceEnd, final char[] target) {
+		int length = 0;
+		
+		int k = delimiterScanner.indexOf(chars, sourceStart, sourceEnd, '&');
+		while(k < sourceEnd) {
+			int l = k + 1;
+			while(l < sourceEnd && chars[l] != ';') {
+				l++;
+			}
+			if(l == sourceEnd) {
+				// no more complete entities
+				break;
+			}
+			
+			if(chars[k + 1] != '#') {
+				int c = getEntity(l - k - 1, chars, k + 1);
+				if(c == -1) {
+					return -1;
+				}
+				System.arraycopy(chars, sourceStart, target, length, k - sourceStart);
+				length += k - sourceStart;
+				
+				target[length++] = (char)c;
+				
+				sourceStart = l + 1;
+			} else {
+				// numeric entity
+			}
+			k = delimiterScanner.indexOf(chars, l + 1, sourceEnd, '&');
+		}
+		
+		System.arraycopy(chars, sourceStart, target, length, sourceEnd - sourceStart);
+		
+		return length + sourceEnd - sourceStart;
+	}
+
+	/**
+	 * Get an array for unescaped text node XML. The array is reused by the next text node at the same level on the same thread,
+	 * so recursive processing at deeper levels does not overwrite it. Arrays above {@value #MAX_RETAINED_UNESCAPE_LENGTH} 
+	 * characters are not reused, so that each thread keeps at most that many characters per level.
+	 * 
+	 * @param level level of the text node
+	 * @param length minimum length
+	 * @return array of at least the requested length
+	 */
+
+	protected static char[] getUnescapeBuffer(int level, int length) {
+		if(length > MAX_RETAINED_UNESCAPE_LENGTH || level < 0) {
+			return new char[length];
+		}
+		
+		char[][] buffers = unescapeBuffers.get();
+		if(buffers == null || buffers.length <= level) {
+			char[][] next = new char[Math.max(level + 1, defaultIndentationDepth)][];
+			if(buffers != null) {
+				System.arraycopy(buffers, 0, next, 0, buffers.length);
+			}
+			buffers = next;
+			unescapeBuffers.set(buffers);
+		}
+		
+		char[] buffer = buffers[level];
+		if(buffer == null || buffer.length < length) {
+			buffer = new char[Math.max(length, 1024)];
+			buffers[level] = buffer;
+		}
+		return buffer;
+	}
+
+	/**
+	 * Get the best {@linkplain DelimiterScanner} for this JVM. 
+	 * 
+	 * @return the SIMD scanner if compiled and the <code>jdk.incubator.vector</code> module is present, otherwise the scalar scanner
+	 */
+
+	protected static DelimiterScanner newDelimiterScanner() {
+		try {
+			DelimiterScanner scanner = (DelimiterScanner)Class.forName(VECTOR_DELIMITER_SCANNER).getConstructor().newInstance();
+			
+			// check that the vector classes actually link
+			if(scanner.indexOf(new char[]{'>'}, 0, 1, '>') == 0) {
+				return scanner;
+			}
+		} catch(Exception e) {
+			// not compiled
+		} catch(LinkageError e) {
+			// old JDK or module not present
+		}
+		return new ScalarDelimiterScanner();
 	}
 
 }
@@ -0,0 +1,218 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import com.greenbird.xml.prettyprinter.IncrementalPrettyPrinter;
+
+/**
+ * 
+ * {@linkplain IncrementalPrettyPrinter} session which keeps incomplete constructs between chunks, 
+ * so that memory use depends on the size of the constructs rather than the size of the document.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class DefaultIncrementalPrettyPrinter implements IncrementalPrettyPrinter {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final AbstractIncrementalProcessor processor;
+	private final Appendable output;
+	
+	/** pending characters, i.e. constructs which were incomplete at the end of the previous chunk */
+	private char[] chars = new char[AbstractPrettyPrinter.INPUT_CHUNK_LENGTH];
+	private int length = 0;
+	
+	private final StringBuilder buffer;
+	private final char[] chunk;
+	
+	private CharsetDecoder decoder;
+	/** undecoded bytes, i.e. a multi-byte character split between chunks */
+	private ByteBuffer remainder;
+	
+	private boolean failed = false;
+
+	public DefaultIncrementalPrettyPrinter(AbstractIncrementalProcessor processor, Appendable output) {
+		this.processor = processor;
+		this.output = output;
+		
+		if(output instanceof StringBuilder) {
+			buffer = (StringBuilder)output;
+			chunk = null;
+		} else {
+			buffer = new StringBuilder(AbstractPrettyPrinter.OUTPUT_CHUNK_LENGTH);
+			chunk = new char[AbstractPrettyPrinter.OUTPUT_CHUNK_LENGTH];
+		}
+	}
+
+	public boolean feed(char[] chars, int offset, int length) throws IOException {
+		if(failed) {
+			return false;
+		}
+		if(this.length == 0) {
+			// process directly, keep only the incomplete construct
+			int end = offset + length;
+			
+			int processed = process(chars, offset, end, false);
+			if(processed == -1) {
+				return false;
+			}
+			
+			append(chars, processed, end - processed);
+		} else {
+			append(chars, offset, length);
+			
+			return process();
+		}
+		return true;
+	}
+
+	public boolean feed(byte[] bytes, int offset, int length) throws IOException {
+		if(failed) {
+			return false;
+		}
+		
+		ByteBuffer in;
+		if(remainder != null && remainder.hasRemaining()) {
+			ByteBuffer combined = ByteBuffer.allocate(remainder.remaining() + length);
+			combined.put(remainder);
+			combined.put(bytes, offset, length);
+			combined.flip();
+			
+			in = combined;
+		} else {
+			in = ByteBuffer.wrap(bytes, offset, length);
+		}
+
+		decode(in, false);
+		
+		// keep any incomplete multi-byte character
+		if(in.hasRemaining()) {
+			remainder = ByteBuffer.allocate(in.remaining());
+			remainder.put(in);
+			remainder.flip();
+		} else {
+			remainder = null;
+		}
+
+		return process();
+	}
+
+	private void decode(ByteBuffer in, boolean last) {
+		if(decoder == null) {
+			decoder = UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+		
+		// at most one character per byte
+		ensureCapacity(length + in.remaining());
+		
+		CharBuffer out = CharBuffer.wrap(chars, length, chars.length - length);
+		CoderResult result = decoder.decode(in, out, last);
+		if(result.isOverflow()) {
+			throw new IllegalStateException(); // capacity is sufficient
+		}
+		if(last) {
+			decoder.flush(out);
+		}
+		length = out.position();
+	}
+	
+	public boolean finish() throws IOException {
+		try {
+			if(failed) {
+				return false;
+			}
+			if(remainder != null || decoder != null) {
+				decode(remainder != null ? remainder : ByteBuffer.allocate(0), true);
+			}
+			
+			return process(chars, 0, length, true) != -1;
+		} finally {
+			reset();
+		}
+	}
+
+	private boolean process() throws IOException {
+		int processed = process(chars, 0, length, false);
+		if(processed == -1) {
+			return false;
+		}
+		
+		// carry over incomplete construct
+		length -= processed;
+		if(processed > 0) {
+			System.arraycopy(chars, processed, chars, 0, length);
+		}
+		return true;
+	}
+
+	private int process(char[] chars, int offset, int limit, boolean last) throws IOException {
+		int processed = processor.process(chars, offset, limit, last, buffer);
+		if(processed == -1) {
+			failed = true;
+		}
+		if(buffer != output) {
+			AbstractPrettyPrinter.write(buffer, chunk, output);
+			
+			buffer.setLength(0);
+		}
+		return processed;
+	}
+
+	private void append(char[] chars, int offset, int length) {
+		ensureCapacity(this.length + length);
+		
+		System.arraycopy(chars, offset, this.chars, this.length, length);
+		this.length += length;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(capacity > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+		}
+	}
+
+	private void reset() {
+		processor.reset();
+		
+		if(chars.length > AbstractPrettyPrinter.MAX_RETAINED_OUTPUT_CAPACITY) {
+			chars = new char[AbstractPrettyPrinter.INPUT_CHUNK_LENGTH];
+		}
+		length = 0;
+		
+		if(decoder != null) {
+			decoder.reset();
+		}
+		remainder = null;
+		
+		failed = false;
+	}
+}
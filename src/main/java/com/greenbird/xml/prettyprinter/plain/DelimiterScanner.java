@@ -0,0 +1,56 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+/**
+ * Interface for finding markup delimiters, i.e. <code>&lt;</code>, <code>&gt;</code> and <code>&amp;</code>, in characters.
+ * <br>
+ * Implementations must be thread-safe.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public interface DelimiterScanner {
+
+	/**
+	 * Find the next occurrence of a character.
+	 * 
+	 * @param chars characters to scan
+	 * @param offset index to start scanning at
+	 * @param limit end index (exclusive)
+	 * @param c character to find
+	 * @return index of the character, or limit if not found
+	 */
+
+	int indexOf(char[] chars, int offset, int limit, char c);
+
+	/**
+	 * Find the next markup delimiter of any kind, i.e. <code>&lt;</code>, <code>&gt;</code> or <code>&amp;</code>.
+	 * 
+	 * @param chars characters to scan
+	 * @param offset index to start scanning at
+	 * @param limit end index (exclusive)
+	 * @return index of the first delimiter, or limit if not found
+	 */
+
+	int indexOfDelimiter(char[] chars, int offset, int limit);
+}
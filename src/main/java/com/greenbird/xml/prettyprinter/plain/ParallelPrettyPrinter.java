@@ -0,0 +1,274 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * XML Pretty Printer for very large documents - splits the document into segments of sibling subtrees
+ * which are pretty-printed in parallel on a {@linkplain ForkJoinPool}.
+ * <br>
+ * A structural pre-scan, using the same rules as {@linkplain PlainPrettyPrinter}, finds the start tags at the split depth.
+ * Each segment is then pretty-printed from its known starting level, and the results are concatenated in order,
+ * so the output is identical to the sequential output. Documents shorter than two segments are pretty-printed sequentially.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class ParallelPrettyPrinter extends PlainPrettyPrinter {
+
+	public static final int DEFAULT_DEPTH = 1;
+	public static final int DEFAULT_SEGMENT_LENGTH = 1024 * 1024;
+
+	private static class DefaultPool {
+		// lazily created; worker threads are daemon threads
+		private static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+
+	private final class SegmentTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final char[] chars;
+		private final int offset;
+		private final int length;
+		private final int levelOffset;
+		private final int levelLimit;
+
+		private StringBuilder output;
+
+		public SegmentTask(char[] chars, int offset, int length, int levelOffset, int levelLimit) {
+			this.chars = chars;
+			this.offset = offset;
+			this.length = length;
+			this.levelOffset = levelOffset;
+			this.levelLimit = levelLimit;
+		}
+
+		@Override
+		protected void compute() {
+			StringBuilder buffer = new StringBuilder(length + length / 4);
+			if(ParallelPrettyPrinter.super.process(chars, offset, length, buffer, levelOffset, levelLimit)) {
+				output = buffer;
+			}
+		}
+	}
+
+	protected final int depth;
+	protected final int segmentLength;
+	protected final ForkJoinPool pool;
+
+	public ParallelPrettyPrinter(boolean declaration, char indentationCharacter, int indentationMultiplier, int depth, int segmentLength, ForkJoinPool pool) {
+		super(declaration, indentationCharacter, indentationMultiplier);
+
+		if(depth < 0) {
+			throw new IllegalArgumentException("Negative split depth " + depth);
+		}
+		if(segmentLength <= 0) {
+			throw new IllegalArgumentException("Expected positive segment length, not " + segmentLength);
+		}
+		this.depth = depth;
+		this.segmentLength = segmentLength;
+		this.pool = pool;
+	}
+
+	public ParallelPrettyPrinter(boolean declaration, char indentationCharacter, int indentationMultiplier, int depth, int segmentLength) {
+		this(declaration, indentationCharacter, indentationMultiplier, depth, segmentLength, null);
+	}
+
+	public ParallelPrettyPrinter(boolean declaration, char indentationCharacter, int indentationMultiplier) {
+		this(declaration, indentationCharacter, indentationMultiplier, DEFAULT_DEPTH, DEFAULT_SEGMENT_LENGTH);
+	}
+
+	public ParallelPrettyPrinter(boolean declaration) {
+		this(declaration, defaultIndentationCharacter, defaultIndentationMultiplier);
+	}
+
+	@Override
+	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		if(length < segmentLength * 2) {
+			return super.process(chars, offset, length, buffer, 0, 0);
+		}
+
+		int[] splits = scanSplitPoints(chars, offset, length);
+		if(splits == null || splits[0] == 0) {
+			// invalid XML or no siblings to split between
+			return super.process(chars, offset, length, buffer, 0, 0);
+		}
+
+		int count = splits[0];
+		final List<SegmentTask> tasks = new ArrayList<SegmentTask>(count + 1);
+
+		tasks.add(new SegmentTask(chars, offset, splits[1] - offset, 0, depth));
+		for(int i = 1; i < count; i++) {
+			tasks.add(new SegmentTask(chars, splits[i], splits[i + 1] - splits[i], depth, depth));
+		}
+		tasks.add(new SegmentTask(chars, splits[count], offset + length - splits[count], depth, 0));
+
+		RecursiveAction action = new RecursiveAction() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		};
+
+		if(ForkJoinTask.inForkJoinPool()) {
+			action.invoke();
+		} else {
+			getPool().invoke(action);
+		}
+
+		int total = 0;
+		for(SegmentTask task : tasks) {
+			if(task.output == null) {
+				// let the sequential path decide
+				return super.process(chars, offset, length, buffer, 0, 0);
+			}
+			total += task.output.length();
+		}
+
+		buffer.ensureCapacity(buffer.length() + total);
+		for(SegmentTask task : tasks) {
+			buffer.append(task.output);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Find the split points, i.e. the offsets of start tags at the split depth,
+	 * so that the segments are at least {@linkplain #segmentLength} long.
+	 *
+	 * @param chars characters containing XML
+	 * @param offset the offset within the chars where the XML starts
+	 * @param length the length of the XML within the chars
+	 * @return array with the number of split points followed by the split points, or null if the XML could not be scanned.
+	 */
+
+	protected int[] scanSplitPoints(final char[] chars, int offset, int length) {
+		// use length as the end index
+		length += offset;
+
+		int[] splits = new int[16];
+		int count = 0;
+
+		int previous = offset;
+
+		int level = 0;
+
+		try {
+			while(offset < length) {
+				if(chars[offset] == '<') {
+					switch(chars[offset + 1]) {
+						case '/' : {
+							level--;
+
+							offset = scanBeyondEndElement(chars, offset, length);
+
+							continue;
+						}
+						case '!': {
+							if(chars[offset + 2] == '-') {
+								offset = scanBeyondComment(chars, offset, length);
+							} else if(chars[offset + 2] == '[') {
+								if(offset + 12 >= length) {
+									return null;
+								}
+								offset = scanBeyondCData(chars, offset, length);
+							} else {
+								offset = scanBeyondDTDEnd(chars, offset, length);
+							}
+							continue;
+						}
+						case '?' : {
+							offset = scanBeyondProcessingInstruction(chars, offset, length);
+
+							continue;
+						}
+						default : {
+							if(level == depth && offset - previous >= segmentLength && length - offset >= segmentLength) {
+								count++;
+								if(count == splits.length) {
+									int[] next = new int[splits.length * 2];
+									System.arraycopy(splits, 0, next, 0, splits.length);
+									splits = next;
+								}
+								splits[count] = offset;
+								previous = offset;
+							}
+
+							offset = scanBeyondStartElement(chars, offset, length);
+
+							if(chars[offset - 2] != '/') {
+								level++;
+							}
+
+							continue;
+						}
+					}
+				}
+
+				// skip text
+				offset = delimiterScanner.indexOf(chars, offset + 1, length, '<');
+			}
+		} catch(Exception e) {
+			return null;
+		}
+
+		if(level != 0) {
+			return null;
+		}
+
+		splits[0] = count;
+
+		return splits;
+	}
+
+	protected ForkJoinPool getPool() {
+		if(pool != null) {
+			return pool;
+		}
+		return DefaultPool.POOL;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getSegmentLength() {
+		return segmentLength;
+	}
+
+	@Override
+	public String toString() {
+		return "ParallelPrettyPrinter [declaration=" + declaration + ", depth=" + depth + ", segmentLength=" + segmentLength + "]";
+	}
+
+}
@@ -0,0 +1,262 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter.Type;
+
+/**
+ * 
+ * Incremental equivalent of {@linkplain PlainPrettyPrinter}.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class PlainIncrementalProcessor extends AbstractIncrementalProcessor {
+
+	protected final AbstractPrettyPrinter prettyPrinter;
+	
+	public PlainIncrementalProcessor(AbstractPrettyPrinter prettyPrinter) {
+		this.prettyPrinter = prettyPrinter;
+	}
+
+	public int process(final char[] chars, int offset, final int limit, final boolean last, final StringBuilder buffer) {
+		/**
+		 *
+		 * Implementation note: Scan to the end of each construct before changing state, 
+		 * so that a construct which is incomplete can be left for the next chunk.
+		 *  
+		 */
+
+		char[][] indentations = prettyPrinter.indentations;
+
+		int sourceStart = offset;
+
+		int level = this.level;
+		Type type = this.type;
+
+		try {
+			while(offset < limit) {
+	
+				if(chars[offset] == '<') {
+					if(offset + 2 >= limit) {
+						// all constructs are at least 3 characters
+						break;
+					}
+					switch(chars[offset + 1]) {
+						case '/' : {  // end tag
+							int end = scanBeyondEndElement(chars, offset, limit);
+							if(end == -1) {
+								break;
+							}
+							if(level == 0) {
+								return -1;
+							}
+							level--;
+							
+							if(type != Type.INCREMENT) {
+								// 2 or more endish elements
+								// flush bytes
+								if(sourceStart < offset) {
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+								}
+		
+								buffer.append(indentations[level]);
+							} else {
+								// characters: always text node
+								
+								type = Type.DECREMENT;
+							}
+		
+							offset = end;
+							
+							// complete end element
+							buffer.append(chars, sourceStart, offset - sourceStart);
+							sourceStart = offset;
+							
+							continue;
+						}
+						case '!': {
+							// complete cdata and comments so nodes
+							
+							if(chars[offset + 2] == '-') {
+								// look for -->
+								int end = scanBeyondComment(chars, offset, limit);
+								if(end == -1) {
+									break;
+								}
+								
+								if(sourceStart < offset) {
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+								}
+	
+								buffer.append(indentations[level]);
+								
+								offset = end;
+								
+								// complete comment
+								buffer.append(chars, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+
+								type = Type.DECREMENT;
+	
+								continue;
+							} else if(chars[offset + 2] == '[') {
+								// look for ]]>
+								int end = scanBeyondCData(chars, offset, limit);
+								if(end == -1) {
+									break;
+								}
+
+								offset = end;
+								
+								// complete cdata
+								buffer.append(chars, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+								
+								continue;
+							} else {
+								// assume entity declaration
+								// look for >
+								int end = scanBeyondDTDEnd(chars, offset, limit);
+								if(end == -1) {
+									break;
+								}
+								
+								offset = end;
+								type = Type.DECREMENT;
+								
+								// complete entity declaration
+								buffer.append(chars, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+
+								continue;
+							}
+						}
+						case '?' : {
+							// processing instruction
+							// indentate as start elements
+							int end = scanBeyondProcessingInstruction(chars, offset, limit);
+							if(end == -1) {
+								break;
+							}
+	
+							if(sourceStart < offset) {
+								buffer.append(chars, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+							}
+	
+							offset = end;
+							
+							// <?xml version="1.0"?>
+							if(level == 0 && !prettyPrinter.declaration && prettyPrinter.isXMLDeclaration(chars, sourceStart, offset)) {
+								// skip the whole XML declaration
+								sourceStart = offset;
+							} else {
+								buffer.append(indentations[level]);
+	
+								// complete processing instruction
+								buffer.append(chars, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+								
+								type = Type.DECREMENT;
+							}	
+							
+							continue;
+						} 
+						default : {
+							// start element
+							// scan to end of start element
+							int end = scanBeyondStartElement(chars, offset, limit);
+							if(end == -1) {
+								break;
+							}
+
+							// flush bytes
+							if(sourceStart < offset) {
+								buffer.append(chars, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+							}
+		
+							if(level >= indentations.length) {
+								indentations = prettyPrinter.ensureCharCapacity(level + 8);
+							}
+		
+							buffer.append(indentations[level]);
+							
+							if(level >= maxLevel) {
+								maxLevel = level + 1;
+							}
+		
+							offset = end; 
+							
+							// see if empty start element
+							if(chars[offset - 2] == '/') {
+								// empty element
+								type = Type.DECREMENT;
+								
+								// do not increment level
+							} else {
+								type = Type.INCREMENT;
+
+								level++;
+							}
+							
+							// complete start tag
+							buffer.append(chars, sourceStart, offset - sourceStart);
+							sourceStart = offset;
+	
+							continue;
+						}
+					}
+					// incomplete construct
+					break;
+				}
+				
+				offset++;
+			}
+		} catch(Exception e) {
+			return -1;
+		}
+
+		if(offset < limit) {
+			// incomplete construct
+			if(last) {
+				return -1;
+			}
+		} else if(last && level != 0) {
+			return -1;
+		}
+
+		// flush characters
+		if(sourceStart < offset) {
+			buffer.append(chars, sourceStart, offset - sourceStart);
+		}
+
+		this.level = level;
+		this.type = type;
+
+		return offset;
+	}
+
+}
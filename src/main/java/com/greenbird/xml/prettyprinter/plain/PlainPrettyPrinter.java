@@ -40,6 +40,24 @@ public class PlainPrettyPrinter extends AbstractPrettyPrinter {
 	}
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
+		return process(chars, offset, length, buffer, 0, 0);
+	}
+
+	/**
+	 * Pretty print a part of a document, i.e. a sequence of sibling subtrees, to an output buffer.
+	 * 
+	 * @param chars characters containing XML to be pretty printed
+	 * @param offset the offset within the chars where the XML starts
+	 * @param length the length of the XML within the chars
+	 * @param buffer the buffer to which indented XML is appended
+	 * @param levelOffset the level at which the XML starts
+	 * @param levelLimit the level at which the XML must end
+	 * @return true if pretty printing was successful. If false, the output buffer is unaffected.
+	 */
+
+	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer, final int levelOffset, final int levelLimit) {
 		/**
 		 *
 		 * Implementation note: cdata + comments characters handled locally
@@ -55,7 +73,7 @@ public class PlainPrettyPrinter extends AbstractPrettyPrinter {
 
 		int sourceStart = offset;
 
-		int level = 0;
+		int level = levelOffset;
 	
 		Type type = Type.NEITHER;
 		
@@ -204,10 +222,11 @@ public class PlainPrettyPrinter extends AbstractPrettyPrinter {
 					}	
 				}
 				
-				offset++;
+				// skip text
+				offset = delimiterScanner.indexOf(chars, offset + 1, length, '<');
 			}
 
-			if(level != 0) {
+			if(level != levelLimit) {
 				buffer.setLength(bufferLength);
 				
 				return false;
@@ -224,6 +243,11 @@ public class PlainPrettyPrinter extends AbstractPrettyPrinter {
 		return true;
 	}
 
+	@Override
+	public AbstractIncrementalProcessor newIncrementalProcessor() {
+		return new PlainIncrementalProcessor(this);
+	}
+
 	@Override
 	public String toString() {
 		return "PlainPrettyPrinter [declaration=" + declaration + "]";
@@ -44,6 +44,8 @@ public class PlainPrettyPrinterForCDataAndComments extends AbstractPrettyPrinter
 	}
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		
 		/**
 		 *
@@ -213,7 +215,8 @@ public class PlainPrettyPrinterForCDataAndComments extends AbstractPrettyPrinter
 					}
 				}
 	
-				offset++;
+				// skip text and CDATA content to the next delimiter
+				offset = delimiterScanner.indexOfDelimiter(chars, offset + 1, length);
 			}
 
 			if(level != 0) {
@@ -48,6 +48,8 @@ public class PlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength extends Abst
 	}
 	
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		
 		/**
 		 *
@@ -283,7 +285,8 @@ public class PlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength extends Abst
 					}
 				}
 	
-				offset++;
+				// skip text and CDATA content to the next delimiter
+				offset = delimiterScanner.indexOfDelimiter(chars, offset + 1, length);
 			}
 
 			if(level != 0) {
@@ -47,6 +47,8 @@ public class PlainPrettyPrinterForTextNodesWithXML extends AbstractPrettyPrinter
 	}
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		return process(chars, offset, offset + length, buffer, 0);
 	}
 
@@ -98,68 +100,24 @@ public class PlainPrettyPrinterForTextNodesWithXML extends AbstractPrettyPrinter
 
 									int markLength = buffer.length();
 									int markSourceStart = sourceStart;
-									
-									// initially detected entity
-									buffer.append('<');
-									sourceStart += 4;
-									
-									for(int k = sourceStart; k < offset; k++) {
-										if(chars[k] == '&') {
-											k++;
-											int l = k;
-											while(l < offset) {
-												if(chars[l] == ';') {
-
-													if(chars[k] == '#') {
-														// numeric entity
-														buffer.append(chars, sourceStart, l - sourceStart + 1);
-
-														sourceStart = l + 1;
-													} else {
-														buffer.append(chars, sourceStart, k - sourceStart - 1);
-														
-														if(appendEntity(l - k, chars, k, buffer)) {
-															sourceStart = l + 1;
-														} else {
-															// unknown entity? 
-															if(ignoreInvalidTextNodeXML) {
-																// reset
-																buffer.setLength(markLength);
-																sourceStart = markSourceStart;
-																
-																break xml;
-															} else {
-																// report back negative result
-																buffer.setLength(bufferLength);
-																
-																return false;
-															}
-	
-														}
-													}
-													k = l; // increments +1 in for loop
-													
-													break;
-												}
-												l++;
-											}
+
+									char[] innerChars = getUnescapeBuffer(level, offset - sourceStart);
+									int innerLength = unescapeXML(chars, sourceStart, offset, innerChars);
+									if(innerLength == -1) {
+										// unknown entity? 
+										if(ignoreInvalidTextNodeXML) {
+											break xml;
+										} else {
+											// report back negative result
+											buffer.setLength(bufferLength);
 											
+											return false;
 										}
 									}
-								
-									if(sourceStart < offset) {
-										buffer.append(chars, sourceStart, offset - sourceStart);
-										sourceStart = offset;
-									}
+									sourceStart = offset;
 
-									// recursive call - expensive
-									// rip chars from buffer
-									char[] innerChars = new char[buffer.length() - markLength];
-									buffer.getChars(markLength, buffer.length(), innerChars, 0);
-									
-									// set buffer back to the length we had before unescaping
-									buffer.setLength(markLength);
-									if(!process(innerChars, 0, innerChars.length, buffer, level + 1)) {
+									// recursive call
+									if(!process(innerChars, 0, innerLength, buffer, level + 1)) {
 										if(ignoreInvalidTextNodeXML) {
 											// reset
 											buffer.setLength(markLength);
@@ -329,7 +287,8 @@ public class PlainPrettyPrinterForTextNodesWithXML extends AbstractPrettyPrinter
 					}
 					}
 				}
-				offset++;
+				// skip text and CDATA content to the next delimiter
+				offset = delimiterScanner.indexOfDelimiter(chars, offset + 1, length);
 			}
 
 			if(level != levelOffset) {
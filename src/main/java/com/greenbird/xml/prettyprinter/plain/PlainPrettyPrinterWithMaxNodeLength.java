@@ -43,6 +43,9 @@ public class PlainPrettyPrinterWithMaxNodeLength extends AbstractPrettyPrinter {
 		 * Implementation note: cdata + comments characters handled locally
 		 *  
 		 */
+
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		int maxTextNodeLength = this.maxTextNodeLength;
 		int maxCDATANodeLength = this.maxCDATANodeLength;
 		
@@ -0,0 +1,248 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+
+/**
+ * 
+ * Generates pretty-printers specialized for their exact configuration, using ASM.
+ * <br>
+ * The generated class extends the pretty-printer class and overrides its <code>process</code> methods 
+ * with copies in which final boolean, char and int fields, like <code>cdata</code> or <code>maxTextNodeLength</code>, are constants.
+ * The JIT compiler then removes the branches for options which are not in use.
+ * <br>
+ * ASM is an optional dependency; if it is not present or the class cannot be specialized, the regular pretty-printer is returned.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class PrettyPrinterSpecializer {
+
+	private static final String SPECIALIZED = "$$Specialized";
+
+	/** max number of generated classes per pretty-printer class, beyond which regular pretty-printers are returned */
+	private static final int MAX_CLASSES = 64;
+
+	/** 
+	 * generated classes, keyed on pretty-printer class and constant values. A generated class extends its pretty-printer class, 
+	 * so it is only weakly referenced, so that the cache does not keep the pretty-printer class (and its class loader) from being unloaded.
+	 * A null reference means that the class could not be generated.
+	 */
+	private static final Map<Class<?>, Map<String, WeakReference<Class<?>>>> classes = new WeakHashMap<Class<?>, Map<String, WeakReference<Class<?>>>>();
+
+	private static int count = 0;
+
+	/**
+	 * Create a specialized pretty-printer.
+	 * 
+	 * @param type pretty-printer class
+	 * @param arguments constructor arguments
+	 * @return a specialized pretty-printer, or a regular pretty-printer if specialization was not possible
+	 */
+
+	public static PrettyPrinter newPrettyPrinter(Class<? extends PrettyPrinter> type, Object ... arguments) {
+		Constructor<?> constructor = getConstructor(type, arguments);
+
+		PrettyPrinter prettyPrinter = (PrettyPrinter)newInstance(constructor, arguments);
+
+		try {
+			Map<String, Object> constants = getConstants(prettyPrinter);
+
+			Class<?> specialized = getSpecializedClass(type, constants);
+			if(specialized != null) {
+				return (PrettyPrinter)newInstance(specialized.getConstructor(constructor.getParameterTypes()), arguments);
+			}
+		} catch(Exception e) {
+			// fall through
+		} catch(LinkageError e) {
+			// ASM not present or unable to define class
+		}
+		return prettyPrinter;
+	}
+
+	/**
+	 * Create a regular (not specialized) pretty-printer.
+	 * 
+	 * @param type pretty-printer class
+	 * @param arguments constructor arguments
+	 * @return new pretty-printer
+	 */
+
+	public static PrettyPrinter newRegularPrettyPrinter(Class<? extends PrettyPrinter> type, Object ... arguments) {
+		return (PrettyPrinter)newInstance(getConstructor(type, arguments), arguments);
+	}
+
+	public static boolean isSpecialized(PrettyPrinter prettyPrinter) {
+		return prettyPrinter.getClass().getName().contains(SPECIALIZED);
+	}
+
+	private static Object newInstance(Constructor<?> constructor, Object[] arguments) {
+		try {
+			return constructor.newInstance(arguments);
+		} catch(InvocationTargetException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch(Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Constructor<?> getConstructor(Class<?> type, Object[] arguments) {
+		constructors:
+		for(Constructor<?> constructor : type.getConstructors()) {
+			Class<?>[] parameterTypes = constructor.getParameterTypes();
+			if(parameterTypes.length != arguments.length) {
+				continue;
+			}
+			for(int i = 0; i < parameterTypes.length; i++) {
+				if(!isAssignable(parameterTypes[i], arguments[i])) {
+					continue constructors;
+				}
+			}
+			return constructor;
+		}
+		throw new IllegalArgumentException("No constructor for " + arguments.length + " arguments in " + type.getName());
+	}
+
+	private static boolean isAssignable(Class<?> parameterType, Object argument) {
+		if(parameterType == boolean.class) {
+			return argument instanceof Boolean;
+		} else if(parameterType == int.class) {
+			return argument instanceof Integer;
+		} else if(parameterType == char.class) {
+			return argument instanceof Character;
+		} else if(parameterType.isPrimitive()) {
+			return false;
+		}
+		return argument == null || parameterType.isInstance(argument);
+	}
+
+	/**
+	 * Get the values of final primitive instance fields.
+	 * 
+	 * @param prettyPrinter pretty-printer
+	 * @return map of field name and value, or null if a field name is not unique
+	 */
+
+	private static Map<String, Object> getConstants(PrettyPrinter prettyPrinter) throws IllegalAccessException {
+		Map<String, Object> constants = new TreeMap<String, Object>();
+
+		Class<?> type = prettyPrinter.getClass();
+		while(type != Object.class) {
+			for(Field field : type.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if(!Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+					continue;
+				}
+				Class<?> fieldType = field.getType();
+				if(fieldType == boolean.class || fieldType == int.class || fieldType == char.class) {
+					field.setAccessible(true);
+					if(constants.put(field.getName(), field.get(prettyPrinter)) != null) {
+						// hidden field
+						return null;
+					}
+				}
+			}
+			type = type.getSuperclass();
+		}
+		return constants;
+	}
+
+	private static synchronized Class<?> getSpecializedClass(Class<?> type, Map<String, Object> constants) throws Exception {
+		if(constants == null) {
+			return null;
+		}
+		Map<String, WeakReference<Class<?>>> generated = classes.get(type);
+		if(generated == null) {
+			generated = new HashMap<String, WeakReference<Class<?>>>();
+			
+			classes.put(type, generated);
+		}
+		
+		String key = constants.toString();
+
+		if(generated.containsKey(key)) {
+			WeakReference<Class<?>> reference = generated.get(key);
+			if(reference == null) {
+				return null;
+			}
+			Class<?> specialized = reference.get();
+			if(specialized != null) {
+				return specialized;
+			}
+		} else if(generated.size() >= MAX_CLASSES) {
+			return null;
+		}
+
+		String name = type.getName() + SPECIALIZED + (++count);
+
+		byte[] bytes = SpecializedClassGenerator.generate(type, name, constants);
+
+		if(bytes == null) {
+			generated.put(key, null);
+
+			return null;
+		}
+		Class<?> specialized = defineClass(type, name, bytes);
+
+		generated.put(key, new WeakReference<Class<?>>(specialized));
+
+		return specialized;
+	}
+
+	/**
+	 * Define class in the same class loader and package as the pretty-printer class, so that package-private and protected members are accessible.
+	 */
+
+	private static Class<?> defineClass(Class<?> neighbour, String name, byte[] bytes) throws Exception {
+		Method privateLookupIn;
+		try {
+			// JDK 9+
+			privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+		} catch(NoSuchMethodException e) {
+			// JDK 7 and 8
+			Method defineClass = ClassLoader.class.getDeclaredMethod("defineClass", String.class, byte[].class, int.class, int.class, java.security.ProtectionDomain.class);
+			defineClass.setAccessible(true);
+
+			return (Class<?>)defineClass.invoke(neighbour.getClassLoader(), name, bytes, 0, bytes.length, neighbour.getProtectionDomain());
+		}
+		Object lookup = privateLookupIn.invoke(null, neighbour, MethodHandles.lookup());
+
+		return (Class<?>)MethodHandles.Lookup.class.getMethod("defineClass", byte[].class).invoke(lookup, bytes);
+	}
+
+}
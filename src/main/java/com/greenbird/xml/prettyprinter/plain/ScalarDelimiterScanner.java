@@ -0,0 +1,57 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+/**
+ * Character-by-character {@linkplain DelimiterScanner}, always available.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class ScalarDelimiterScanner implements DelimiterScanner {
+
+	public int indexOf(final char[] chars, int offset, final int limit, final char c) {
+		while(offset < limit) {
+			if(chars[offset] == c) {
+				return offset;
+			}
+			offset++;
+		}
+		return limit;
+	}
+
+	public int indexOfDelimiter(final char[] chars, int offset, final int limit) {
+		while(offset < limit) {
+			char c = chars[offset];
+			if(c == '<' || c == '>' || c == '&') {
+				return offset;
+			}
+			offset++;
+		}
+		return limit;
+	}
+	
+	@Override
+	public String toString() {
+		return "ScalarDelimiterScanner";
+	}
+}
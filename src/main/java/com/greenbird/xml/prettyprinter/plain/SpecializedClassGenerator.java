@@ -0,0 +1,315 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * 
+ * Generates the bytecode of specialized pretty-printers. Kept apart from {@linkplain PrettyPrinterSpecializer} so that 
+ * ASM is only loaded when specializing.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+final class SpecializedClassGenerator {
+
+	private static final String PROCESS = "process";
+
+	private SpecializedClassGenerator() {
+	}
+
+	/**
+	 * Generate a specialized subclass.
+	 * 
+	 * @return the class bytes, or null if the class cannot be specialized
+	 */
+
+	static byte[] generate(Class<?> type, String name, Map<String, Object> constants) throws IOException {
+		final String superName = Type.getInternalName(type);
+		final String internalName = name.replace('.', '/');
+
+		final Set<String> privateMembers = new HashSet<String>();
+		for(Field field : type.getDeclaredFields()) {
+			if(Modifier.isPrivate(field.getModifiers()) && !constants.containsKey(field.getName())) {
+				privateMembers.add(field.getName());
+			}
+		}
+		for(Method method : type.getDeclaredMethods()) {
+			if(Modifier.isPrivate(method.getModifiers())) {
+				privateMembers.add(method.getName() + Type.getMethodDescriptor(method));
+			}
+		}
+
+		// all final primitive fields, also those of superclasses, are read from the pretty-printer class
+		final Map<String, Object> inlined = constants;
+
+		InputStream in = type.getClassLoader().getResourceAsStream(superName + ".class");
+		if(in == null) {
+			return null;
+		}
+		ClassReader reader;
+		try {
+			reader = new ClassReader(in);
+		} finally {
+			in.close();
+		}
+
+		final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(reader.readInt(4) & 0xFFFF, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC, internalName, null, superName, null);
+
+		for(Constructor<?> constructor : type.getConstructors()) {
+			String descriptor = Type.getConstructorDescriptor(constructor);
+
+			MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", descriptor, null, null);
+			mv.visitCode();
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			int index = 1;
+			for(Type argument : Type.getArgumentTypes(descriptor)) {
+				mv.visitVarInsn(argument.getOpcode(Opcodes.ILOAD), index);
+				index += argument.getSize();
+			}
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", descriptor, false);
+			mv.visitInsn(Opcodes.RETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+
+		final boolean[] unsupported = new boolean[1];
+
+		reader.accept(new ClassVisitor(Opcodes.ASM5) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+				if(!name.equals(PROCESS) || (access & (Opcodes.ACC_STATIC | Opcodes.ACC_PRIVATE | Opcodes.ACC_ABSTRACT | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE | Opcodes.ACC_FINAL)) != 0) {
+					return null;
+				}
+				return new InliningMethodVisitor(writer.visitMethod(access, name, desc, signature, exceptions), superName, internalName, inlined, privateMembers, unsupported);
+			}
+		}, 0);
+
+		writer.visitEnd();
+
+		if(unsupported[0]) {
+			return null;
+		}
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Replaces <code>this.field</code> reads with constants, and flags access to private members, which are not accessible from a subclass.
+	 */
+
+	private static class InliningMethodVisitor extends MethodVisitor {
+
+		private final String owner;
+		private final String name;
+		private final Map<String, Object> constants;
+		private final Set<String> privateMembers;
+		private final boolean[] unsupported;
+
+		/** whether the previous instruction was ALOAD 0, which is not written until the next instruction is known */
+		private boolean loadThis = false;
+
+		public InliningMethodVisitor(MethodVisitor mv, String owner, String name, Map<String, Object> constants, Set<String> privateMembers, boolean[] unsupported) {
+			super(Opcodes.ASM5, mv);
+			this.owner = owner;
+			this.name = name;
+			this.constants = constants;
+			this.privateMembers = privateMembers;
+			this.unsupported = unsupported;
+		}
+
+		private void flush() {
+			if(loadThis) {
+				loadThis = false;
+
+				super.visitVarInsn(Opcodes.ALOAD, 0);
+			}
+		}
+
+		@Override
+		public void visitVarInsn(int opcode, int var) {
+			flush();
+			if(opcode == Opcodes.ALOAD && var == 0) {
+				loadThis = true;
+			} else {
+				super.visitVarInsn(opcode, var);
+			}
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String fieldOwner, String name, String desc) {
+			if(loadThis && opcode == Opcodes.GETFIELD && fieldOwner.equals(owner) && constants.containsKey(name)) {
+				loadThis = false;
+
+				Object value = constants.get(name);
+				if(value instanceof Boolean) {
+					pushInt(((Boolean)value).booleanValue() ? 1 : 0);
+				} else if(value instanceof Character) {
+					pushInt(((Character)value).charValue());
+				} else {
+					pushInt(((Integer)value).intValue());
+				}
+				return;
+			}
+			flush();
+			if(fieldOwner.equals(owner) && privateMembers.contains(name)) {
+				unsupported[0] = true;
+			}
+			super.visitFieldInsn(opcode, fieldOwner, name, desc);
+		}
+
+		private void pushInt(int value) {
+			if(value >= -1 && value <= 5) {
+				super.visitInsn(Opcodes.ICONST_0 + value);
+			} else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+				super.visitIntInsn(Opcodes.BIPUSH, value);
+			} else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+				super.visitIntInsn(Opcodes.SIPUSH, value);
+			} else {
+				super.visitLdcInsn(Integer.valueOf(value));
+			}
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String methodOwner, String name, String desc, boolean itf) {
+			flush();
+			if(methodOwner.equals(owner) && privateMembers.contains(name + desc)) {
+				unsupported[0] = true;
+			}
+			super.visitMethodInsn(opcode, methodOwner, name, desc, itf);
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			flush();
+			super.visitInsn(opcode);
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			flush();
+			super.visitIntInsn(opcode, operand);
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			flush();
+			super.visitTypeInsn(opcode, type);
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String desc, Handle bsm, Object... bsmArgs) {
+			flush();
+			super.visitInvokeDynamicInsn(name, desc, bsm, bsmArgs);
+		}
+
+		@Override
+		public void visitJumpInsn(int opcode, Label label) {
+			flush();
+			super.visitJumpInsn(opcode, label);
+		}
+
+		@Override
+		public void visitLabel(Label label) {
+			flush();
+			super.visitLabel(label);
+		}
+
+		@Override
+		public void visitLdcInsn(Object cst) {
+			flush();
+			super.visitLdcInsn(cst);
+		}
+
+		@Override
+		public void visitIincInsn(int var, int increment) {
+			flush();
+			super.visitIincInsn(var, increment);
+		}
+
+		@Override
+		public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+			flush();
+			super.visitTableSwitchInsn(min, max, dflt, labels);
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+			flush();
+			super.visitLookupSwitchInsn(dflt, keys, labels);
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String desc, int dims) {
+			flush();
+			super.visitMultiANewArrayInsn(desc, dims);
+		}
+
+		@Override
+		public void visitFrame(int type, int nLocal, Object[] local, int nStack, Object[] stack) {
+			flush();
+			// 'this' is now the generated class, which matters for access to protected members of superclasses in other packages
+			super.visitFrame(type, nLocal, replaceOwner(local, nLocal), nStack, replaceOwner(stack, nStack));
+		}
+
+		private Object[] replaceOwner(Object[] types, int count) {
+			if(types == null) {
+				return null;
+			}
+			Object[] replaced = null;
+			for(int i = 0; i < count; i++) {
+				if(owner.equals(types[i])) {
+					if(replaced == null) {
+						replaced = types.clone();
+					}
+					replaced[i] = name;
+				}
+			}
+			return replaced != null ? replaced : types;
+		}
+
+		@Override
+		public void visitMaxs(int maxStack, int maxLocals) {
+			flush();
+			super.visitMaxs(maxStack, maxLocals);
+		}
+	}
+
+}
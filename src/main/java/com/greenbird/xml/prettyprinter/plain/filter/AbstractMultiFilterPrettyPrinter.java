@@ -21,9 +21,14 @@
 package com.greenbird.xml.prettyprinter.plain.filter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import com.greenbird.xml.prettyprinter.plain.filter.FilterAutomaton.NameTable;
 
 
 public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPrettyPrinter {
@@ -68,6 +73,20 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 		}
 	}
 
+	/** filter match state for one document, reused by each thread */
+	protected static class MatchState {
+		
+		protected final int[] elementMatches;
+		protected final int[] attributeMatches;
+		
+		private boolean inUse;
+
+		public MatchState(int elementLevels, int attributeFilters) {
+			this.elementMatches = new int[elementLevels];
+			this.attributeMatches = new int[attributeFilters];
+		}
+	}
+	
 	private static final Comparator<AbsolutePathFilter> comparator = new Comparator<AbsolutePathFilter>() {
 
 		@Override
@@ -83,12 +102,22 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 	/** any path expression - //element */
 	protected final AnyPathFilter[] anyElementFilters;
 	
+	/** absolute path expressions compiled for matching; state per level */
+	protected final FilterAutomaton elementFilterAutomaton;
+	/** any path expressions compiled for matching; filter type ordinal per name */
+	protected final NameTable anyElementFilterTable;
+
+	/** elementFilterStart.length is the max number of levels for absolute path expressions, plus one */
 	protected final int[] elementFilterStart;
 	protected final int[] elementFilterEnd;
 	
 	protected final int[] attributeFilterStart;
 	protected final int[] attributeFilterEnd;
 
+	private final ThreadLocal<MatchState> matchStates = new ThreadLocal<MatchState>();
+
+	protected volatile FilterListener filterListener;
+
 	public AbstractMultiFilterPrettyPrinter(boolean declaration, String[] anonymizes, String[] prunes, char indentationCharacter, int indentationMultiplier) {
 		this(declaration, Integer.MAX_VALUE, Integer.MAX_VALUE, anonymizes, prunes, indentationCharacter, indentationMultiplier);
 	}
@@ -135,8 +164,18 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 		
 		if(!any.isEmpty()) {
 			anyElementFilters = any.toArray(new AnyPathFilter[any.size()]);
+			
+			Map<String, Integer> anyFilterTypes = new LinkedHashMap<String, Integer>();
+			for(AnyPathFilter filter : anyElementFilters) {
+				String name = new String(filter.path);
+				if(!anyFilterTypes.containsKey(name)) { // first filter takes precedence
+					anyFilterTypes.put(name, filter.filterType.ordinal());
+				}
+			}
+			anyElementFilterTable = new NameTable(anyFilterTypes);
 		} else {
 			anyElementFilters = null;
+			anyElementFilterTable = null;
 		}
 		
 		if(!elements.isEmpty()) {
@@ -172,6 +211,14 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 			elementFilters = new AbsolutePathFilter[]{};
 		}
 
+		List<char[][]> paths = new ArrayList<char[][]>();
+		List<FilterType> filterTypes = new ArrayList<FilterType>();
+		for(AbsolutePathFilter filter : elementFilters) {
+			paths.add(filter.paths);
+			filterTypes.add(filter.filterType);
+		}
+		elementFilterAutomaton = new FilterAutomaton(paths, filterTypes);
+
 		if(!attributes.isEmpty()) {
 			Collections.sort(attributes, comparator);
 
@@ -209,10 +256,52 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 
 	}
 
+	/**
+	 * Get the match state of the current thread, in its initial state. Release it via {@linkplain #releaseMatchState(MatchState)}.
+	 * 
+	 * @return match state for a document
+	 */
+	
+	protected MatchState acquireMatchState() {
+		MatchState matchState = matchStates.get();
+		if(matchState == null) {
+			matchState = new MatchState(elementFilterStart.length, attributeFilters.length);
+			
+			matchStates.set(matchState);
+		} else if(matchState.inUse) {
+			// reentrant call; use a temporary state
+			return new MatchState(elementFilterStart.length, attributeFilters.length);
+		} else {
+			Arrays.fill(matchState.elementMatches, FilterAutomaton.START);
+			Arrays.fill(matchState.attributeMatches, 0);
+		}
+		matchState.inUse = true;
+		
+		return matchState;
+	}
+	
+	protected void releaseMatchState(MatchState matchState) {
+		matchState.inUse = false;
+	}
+
 	public boolean isXmlDeclaration() {
 		return declaration;
 	}
 
+	public FilterListener getFilterListener() {
+		return filterListener;
+	}
+
+	/**
+	 * Set a listener for filter matches, i.e. for metrics.
+	 * 
+	 * @param filterListener listener, or null for none
+	 */
+
+	public void setFilterListener(FilterListener filterListener) {
+		this.filterListener = filterListener;
+	}
+
 	protected void constrainAttributeMatches(int[] matches, int level) {
 		for(int i = attributeFilterStart[level]; i < matches.length; i++) {
 			if(matches[i] > level) {
@@ -221,21 +310,16 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 		}
 	}
 	
+	/**
+	 * Return to a level, i.e. at an end element.
+	 * 
+	 * @param matches element filter states per level
+	 * @param level the level returned to
+	 * @return true if the element at the level is anonymized
+	 */
+	
 	protected boolean constrainMatches(int[] matches, int level) {
-		boolean anon;
-		anon = false;
-		for(int i = elementFilterStart[level]; i < matches.length; i++) {
-			if(matches[i] > level) {
-				matches[i] = level;
-			}
-			
-			if(matches[i] == elementFilters[i].getLength()) {
-				if(elementFilters[i].getFilterType() == FilterType.ANON) {
-					anon = true;
-				}
-			}
-		}
-		return anon;
+		return elementFilterAutomaton.getFilterType(matches[level]) == FilterType.ANON;
 	}
 
 	protected int filterAttributes(final char[] chars, int offset, int length, final StringBuilder buffer, int sourceStart, int level, final int[] attributeMatches) {
@@ -328,6 +412,11 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 								buffer.append(FILTER_ANONYMIZE_MESSAGE);
 								attributeSourceStart = offset;
 
+								FilterListener filterListener = this.filterListener;
+								if(filterListener != null) {
+									filterListener.attributeAnonymized();
+								}
+
 								break filterAttribute;
 
 							}
@@ -357,41 +446,27 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 		return offset;
 	}
 	
-	protected boolean matchElements(final char[] chars, int offset, int sourceStart, int level, final int[] elementMatches) {
-		boolean match = false;
+	/**
+	 * Match an element against the absolute path expressions.
+	 * 
+	 * @param chars XML characters
+	 * @param offset element local name end position
+	 * @param sourceStart element local name start position, minus one
+	 * @param level the level of the element, at least one
+	 * @param elementMatches element filter states per level
+	 * @return the matching filter type, or null if none
+	 */
+	
+	protected FilterType matchElements(final char[] chars, int offset, int sourceStart, int level, final int[] elementMatches) {
+		int state = elementFilterAutomaton.next(elementMatches[level - 1], chars, sourceStart + 1, offset);
 		
-		matching:
-		for(int i = elementFilterStart[level]; i < elementMatches.length; i++) {
-			if(elementMatches[i] == level - 1) {
-				
-				if(elementMatches[i] >= elementFilters[i].paths.length) {
-					// this filter is at the maximum
-					continue;
-				}
-
-				if(elementFilters[i].paths[elementMatches[i]].length == 1 && elementFilters[i].paths[elementMatches[i]][0] == '*') {
-					// pass through
-				} else {
-					if(elementFilters[i].paths[elementMatches[i]].length != offset - sourceStart - 1) {
-						continue;
-					}
-					for(int k = 0; k < offset - sourceStart - 1; k++) {
-						if(elementFilters[i].paths[elementMatches[i]][k] != chars[sourceStart + 1 + k]) {
-							continue matching;
-						}
-					}
-				}
-				
-				elementMatches[i]++;
-				
-				if(i < elementFilterEnd[level]) {
-					match = true;
-				}
-
-			}
+		elementMatches[level] = state;
+		
+		FilterType filterType = elementFilterAutomaton.getFilterType(state);
+		if(filterType != null) {
+			notifyElementFiltered(filterType);
 		}
-		return match;
-			
+		return filterType;
 	}
 
 	/**
@@ -404,21 +479,28 @@ public abstract class AbstractMultiFilterPrettyPrinter extends AbstractFilterPre
 	 */
 	
 	protected FilterType matchAnyElements(final char[] chars, int offset, int sourceStart) {
-		anyFilters:
-		for(int i = 0; i < anyElementFilters.length; i++) {
-			if(anyElementFilters[i].path.length != offset - sourceStart - 1) {
-				continue;
-			}
-			for(int k = 0; k < anyElementFilters[i].path.length; k++) {
-				if(anyElementFilters[i].path[k] != chars[sourceStart + 1 + k]) {
-					continue anyFilters;
-				}
-			}
-			
-			return anyElementFilters[i].getFilterType();
+		int ordinal = anyElementFilterTable.get(chars, sourceStart + 1, offset, -1);
+		if(ordinal == -1) {
+			return null;
+		}
+		FilterType filterType = FilterType.values()[ordinal];
+		notifyElementFiltered(filterType);
+
+		return filterType;
+	}
+
+	protected void notifyElementFiltered(FilterType filterType) {
+		FilterListener filterListener = this.filterListener;
+		if(filterListener != null) {
+			filterListener.elementFiltered(filterType);
+		}
+	}
+
+	protected void notifyNodeTruncated() {
+		FilterListener filterListener = this.filterListener;
+		if(filterListener != null) {
+			filterListener.nodeTruncated();
 		}
-		return null;
-			
 	}
 
 }
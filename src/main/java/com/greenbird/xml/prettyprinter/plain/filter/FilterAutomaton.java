@@ -0,0 +1,281 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+
+/**
+ * 
+ * Deterministic automaton over element names for absolute path filters, i.e. /a/b/c, with wildcards.
+ * <br>
+ * The filters are compiled into a trie, which in turn is compiled into a deterministic automaton, so that 
+ * matching an element costs a single hashed name lookup, regardless of the number of filters. 
+ * The state for each element level is a single int, so that the state of a document is a stack of ints.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class FilterAutomaton {
+
+	/** state from which no filter can match */
+	public static final int NONE = -1;
+	
+	/** initial state, i.e. the document root */
+	public static final int START = 0;
+
+	private static final String WILDCARD = "*";
+
+	/**
+	 * 
+	 * Hash table with element names as keys, lookup without creating strings.
+	 *
+	 */
+	
+	public static class NameTable {
+		
+		private final char[][] names;
+		private final int[] values;
+		private final int mask;
+		
+		public NameTable(Map<String, Integer> map) {
+			int capacity = 2;
+			while(capacity < map.size() * 2) {
+				capacity = capacity << 1;
+			}
+			names = new char[capacity][];
+			values = new int[capacity];
+			mask = capacity - 1;
+			
+			for(Map.Entry<String, Integer> entry : map.entrySet()) {
+				char[] name = entry.getKey().toCharArray();
+				
+				int slot = hash(name, 0, name.length) & mask;
+				while(names[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				names[slot] = name;
+				values[slot] = entry.getValue();
+			}
+		}
+		
+		/**
+		 * Look up element name.
+		 * 
+		 * @param chars XML characters
+		 * @param start name start offset
+		 * @param end name end offset
+		 * @param defaultValue value to return if the name is not present
+		 * @return value for name, or the default value
+		 */
+		
+		public int get(final char[] chars, final int start, final int end, int defaultValue) {
+			int slot = hash(chars, start, end) & mask;
+
+			final char[][] names = this.names;
+			
+			slots:
+			while(names[slot] != null) {
+				char[] name = names[slot];
+				if(name.length == end - start) {
+					for(int k = 0; k < name.length; k++) {
+						if(name[k] != chars[start + k]) {
+							slot = (slot + 1) & mask;
+
+							continue slots;
+						}
+					}
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			return defaultValue;
+		}
+		
+		private static int hash(final char[] chars, int start, final int end) {
+			int hash = 0;
+			while(start < end) {
+				hash = 31 * hash + chars[start];
+				
+				start++;
+			}
+			return hash ^ (hash >>> 16);
+		}
+	}
+	
+	/** trie node */
+	private static class Node {
+		
+		private final Map<String, Node> children = new LinkedHashMap<String, Node>();
+		private FilterType filterType;
+		
+		private Node getChild(String name) {
+			Node node = children.get(name);
+			if(node == null) {
+				node = new Node();
+				
+				children.put(name, node);
+			}
+			return node;
+		}
+	}
+
+	/** transitions per state; explicit names */
+	private final NameTable[] transitions;
+	/** transitions per state; names not in the transition table (wildcard) */
+	private final int[] otherTransitions;
+	/** filter type per state, or null */
+	private final FilterType[] filterTypes;
+
+	public FilterAutomaton(List<char[][]> paths, List<FilterType> filterTypes) {
+		Node root = new Node();
+		
+		for(int i = 0; i < paths.size(); i++) {
+			Node node = root;
+			for(char[] path : paths.get(i)) {
+				node = node.getChild(new String(path));
+			}
+			
+			// prune takes precedence over anonymize
+			if(node.filterType != FilterType.PRUNE) {
+				node.filterType = filterTypes.get(i);
+			}
+		}
+		
+		// subset construction
+		List<Set<Node>> states = new ArrayList<Set<Node>>();
+		Map<Set<Node>, Integer> stateIndexes = new HashMap<Set<Node>, Integer>();
+		
+		Set<Node> start = new LinkedHashSet<Node>();
+		start.add(root);
+		states.add(start);
+		stateIndexes.put(start, START);
+		
+		List<NameTable> transitions = new ArrayList<NameTable>();
+		List<Integer> otherTransitions = new ArrayList<Integer>();
+		
+		for(int i = 0; i < states.size(); i++) {
+			Set<Node> state = states.get(i);
+			
+			Set<String> names = new LinkedHashSet<String>();
+			Set<Node> wildcards = new LinkedHashSet<Node>();
+			for(Node node : state) {
+				for(Map.Entry<String, Node> entry : node.children.entrySet()) {
+					if(entry.getKey().equals(WILDCARD)) {
+						wildcards.add(entry.getValue());
+					} else {
+						names.add(entry.getKey());
+					}
+				}
+			}
+			
+			Map<String, Integer> targets = new HashMap<String, Integer>();
+			for(String name : names) {
+				Set<Node> target = new LinkedHashSet<Node>();
+				for(Node node : state) {
+					Node child = node.children.get(name);
+					if(child != null) {
+						target.add(child);
+					}
+				}
+				target.addAll(wildcards);
+				
+				targets.put(name, getState(target, states, stateIndexes));
+			}
+			
+			transitions.add(new NameTable(targets));
+			otherTransitions.add(getState(wildcards, states, stateIndexes));
+		}
+
+		this.transitions = transitions.toArray(new NameTable[transitions.size()]);
+		this.otherTransitions = new int[otherTransitions.size()];
+		this.filterTypes = new FilterType[states.size()];
+		for(int i = 0; i < states.size(); i++) {
+			this.otherTransitions[i] = otherTransitions.get(i);
+			
+			for(Node node : states.get(i)) {
+				if(node.filterType == FilterType.PRUNE) {
+					this.filterTypes[i] = FilterType.PRUNE;
+				} else if(node.filterType == FilterType.ANON && this.filterTypes[i] == null) {
+					this.filterTypes[i] = FilterType.ANON;
+				}
+			}
+		}
+	}
+
+	private static int getState(Set<Node> nodes, List<Set<Node>> states, Map<Set<Node>, Integer> stateIndexes) {
+		if(nodes.isEmpty()) {
+			return NONE;
+		}
+		Integer index = stateIndexes.get(nodes);
+		if(index == null) {
+			index = states.size();
+			
+			states.add(nodes);
+			stateIndexes.put(nodes, index);
+		}
+		return index;
+	}
+	
+	/**
+	 * Get the next state.
+	 * 
+	 * @param state current state
+	 * @param chars XML characters
+	 * @param start element local name start offset
+	 * @param end element local name end offset
+	 * @return next state, possibly {@linkplain #NONE}
+	 */
+	
+	public int next(int state, final char[] chars, int start, int end) {
+		if(state == NONE) {
+			return NONE;
+		}
+		return transitions[state].get(chars, start, end, otherTransitions[state]);
+	}
+
+	/**
+	 * Get the filter which matches the element of a state
+	 * 
+	 * @param state state
+	 * @return filter type, or null if no filter matches
+	 */
+	
+	public FilterType getFilterType(int state) {
+		if(state == NONE) {
+			return null;
+		}
+		return filterTypes[state];
+	}
+	
+	public int getStates() {
+		return filterTypes.length;
+	}
+	
+}
@@ -0,0 +1,55 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.filter;
+
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+
+/**
+ * 
+ * Listener for filter matches and truncated nodes within {@linkplain AbstractMultiFilterPrettyPrinter}s. 
+ * Called from the pretty-printing threads, so implementations must be thread-safe and fast.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public interface FilterListener {
+
+	/**
+	 * An element matched a filter.
+	 * 
+	 * @param filterType anonymize or prune
+	 */
+
+	void elementFiltered(FilterType filterType);
+
+	/**
+	 * An attribute value was anonymized.
+	 */
+
+	void attributeAnonymized();
+
+	/**
+	 * A text or CDATA node was truncated, as it was longer than the max node length.
+	 */
+
+	void nodeTruncated();
+}
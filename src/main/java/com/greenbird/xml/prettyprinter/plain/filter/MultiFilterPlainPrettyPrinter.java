@@ -22,6 +22,9 @@ package com.greenbird.xml.prettyprinter.plain.filter;
 
 import java.util.Arrays;
 
+import com.greenbird.xml.prettyprinter.plain.AbstractIncrementalProcessor;
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter;
+
 /**
  * 
  * XML Pretty Printer. Produces conformant XML with the exception of an additional newline at the start of the file.
@@ -37,6 +40,17 @@ public class MultiFilterPlainPrettyPrinter extends AbstractMultiFilterPrettyPrin
 	}
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
+		MatchState matchState = acquireMatchState();
+		try {
+			return process(chars, offset, length, buffer, matchState.elementMatches, matchState.attributeMatches);
+		} finally {
+			releaseMatchState(matchState);
+		}
+	}
+
+	protected boolean process(final char[] chars, int offset, int length, final StringBuilder buffer, final int[] elementMatches, final int[] attributeMatches) {
 		
 		/**
 		 *
@@ -44,9 +58,6 @@ public class MultiFilterPlainPrettyPrinter extends AbstractMultiFilterPrettyPrin
 		 *  
 		 */
 		
-		final int[] elementMatches = new int[elementFilters.length];
-		final int[] attributeMatches = new int[attributeFilters.length];
-		
 		boolean anon = false;
 		
 		final int bufferLength = buffer.length();
@@ -231,17 +242,11 @@ public class MultiFilterPlainPrettyPrinter extends AbstractMultiFilterPrettyPrin
 
 							if(level < elementFilterStart.length) {
 								// match again any higher filter
-								if(matchElements(chars, offset, sourceStart, level, elementMatches)) {
-									for(int i = elementFilterStart[level]; i < elementFilterEnd[level]; i++) {
-										if(elementMatches[i] == level) {
-											// matched
-											if(elementFilters[i].filterType == FilterType.ANON) {
-												anon = true;
-											} else if(elementFilters[i].filterType == FilterType.PRUNE) {
-												prune = true;
-											}
-										}
-									}
+								FilterType filterType = matchElements(chars, offset, sourceStart, level, elementMatches);
+								if(filterType == FilterType.ANON) {
+									anon = true;
+								} else if(filterType == FilterType.PRUNE) {
+									prune = true;
 								}
 							}
 
@@ -324,6 +329,443 @@ public class MultiFilterPlainPrettyPrinter extends AbstractMultiFilterPrettyPrin
 		return true;
 	}
 
+	@Override
+	public AbstractIncrementalProcessor newIncrementalProcessor() {
+		return new IncrementalProcessor();
+	}
+	
+	/**
+	 * 
+	 * Incremental equivalent of {@linkplain MultiFilterPlainPrettyPrinter#process(char[], int, int, StringBuilder)}. 
+	 * Text within anonymized elements is carried over to the next chunk until the end element is found, 
+	 * and pruned subtrees are skipped across chunks.
+	 *
+	 */
+	
+	public class IncrementalProcessor extends AbstractIncrementalProcessor {
+
+		private final int[] elementMatches = new int[elementFilterStart.length];
+		private final int[] attributeMatches = new int[attributeFilters.length];
+		
+		private boolean anon = false;
+		
+		/** level within pruned subtree, or -1 if not pruning */
+		private int pruneLevel = -1;
+
+		public int process(final char[] chars, int offset, final int limit, final boolean last, final StringBuilder buffer) {
+			
+			final int[] elementMatches = this.elementMatches;
+			final int[] attributeMatches = this.attributeMatches;
+			
+			boolean anon = this.anon;
+			int pruneLevel = this.pruneLevel;
+			
+			char[][] indentations = MultiFilterPlainPrettyPrinter.this.indentations;
+	
+			int sourceStart = offset;
+	
+			int level = this.level;
+			Type type = this.type;
+			
+			try {
+				while(offset < limit) {
+		
+					if(chars[offset] == '<') {
+						if(offset + 2 >= limit) {
+							// all constructs are at least 3 characters
+							break;
+						}
+						
+						if(pruneLevel != -1) {
+							// skip subtree
+							switch(chars[offset + 1]) {
+								case '/' : {  // end tag
+									if(pruneLevel == 0) {
+										// end of pruned subtree, process end tag as normal
+										pruneLevel = -1;
+										sourceStart = offset;
+										
+										continue;
+									}
+									int end = scanBeyondEndElement(chars, offset, limit);
+									if(end == -1) {
+										break;
+									}
+									pruneLevel--;
+									
+									offset = end;
+									
+									continue;
+								}
+								case '!': {
+									int end;
+									if(chars[offset + 2] == '-') {
+										end = scanBeyondComment(chars, offset, limit);
+									} else if(chars[offset + 2] == '[') {
+										end = scanBeyondCData(chars, offset, limit);
+									} else {
+										// do nothing
+										offset++;
+										
+										continue;
+									}
+									if(end == -1) {
+										break;
+									}
+									offset = end;
+									
+									continue;
+								}
+								case '?' : {
+									int end = scanBeyondProcessingInstruction(chars, offset, limit);
+									if(end == -1) {
+										break;
+									}
+									offset = end;
+									
+									continue;
+								}
+								default : {
+									int end = scanBeyondStartElement(chars, offset, limit);
+									if(end == -1) {
+										break;
+									}
+									if(chars[end - 2] != '/') {
+										pruneLevel++;
+									}
+									offset = end;
+									
+									continue;
+								}
+							}
+							// incomplete construct
+							break;
+						}
+						
+						switch(chars[offset + 1]) {
+							case '/' : {  // end tag
+								int end = scanBeyondEndElement(chars, offset, limit);
+								if(end == -1) {
+									break;
+								}
+								if(level == 0) {
+									return -1;
+								}
+								
+								level--;
+								if(type != Type.INCREMENT) {
+									// 2 or more endish elements
+									// flush bytes
+									if(sourceStart < offset) {
+										buffer.append(chars, sourceStart, offset - sourceStart);
+										sourceStart = offset;
+									}
+									
+									buffer.append(indentations[level]);
+								} else {
+									type = Type.DECREMENT;
+									// characters: text node
+									if(sourceStart < offset) {
+										if(anon) {
+											buffer.append(FILTER_ANONYMIZE_MESSAGE);
+											
+											sourceStart = offset;
+										}
+									}
+								}
+	
+								if(level < elementFilterStart.length) {
+									anon = constrainMatches(elementMatches, level);
+								} else {
+									anon = false;
+								}
+								if(level < attributeFilterStart.length) {
+									constrainAttributeMatches(attributeMatches, level);
+								}
+								
+								offset = end;
+								
+								// complete end element
+								buffer.append(chars, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+								
+								continue;
+							}
+							case '!': {
+								// complete cdata and comments so nodes
+								
+								if(chars[offset + 2] == '-') {
+									// look for -->
+									int end = scanBeyondComment(chars, offset, limit);
+									if(end == -1) {
+										break;
+									}
+									
+									if(sourceStart < offset) {
+										buffer.append(chars, sourceStart, offset - sourceStart);
+										sourceStart = offset;
+									}
+		
+									buffer.append(indentations[level]);
+									
+									offset = end;
+									
+									// complete comment
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+	
+									type = Type.DECREMENT;
+		
+									continue;
+								} else if(chars[offset + 2] == '[') {
+									// look for ]]>
+									int end = scanBeyondCDataEnd(chars, offset + 12, limit);
+									if(end == -1) {
+										break;
+									}
+	
+									offset += 9; // skip <![CDATA[
+									
+									// flush <![CDATA[
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+									
+									offset = end;
+	
+									if(offset - 3 - sourceStart > 0) {
+										if(anon) {
+											buffer.append(FILTER_ANONYMIZE_MESSAGE);
+											
+											sourceStart = offset - 3; // keep ]]>
+										}
+									}
+									
+									// complete cdata
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+									
+									continue;
+								} else {
+									// assume entity declaration
+									// look for >
+									int end = scanBeyondDTDEnd(chars, offset, limit);
+									if(end == -1) {
+										break;
+									}
+									
+									offset = end;
+									type = Type.DECREMENT;
+									
+									// complete entity declaration
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+	
+									continue;
+								}
+							}
+							case '?' : {
+								// processing instruction
+								// indentate as start elements
+								int end = scanBeyondProcessingInstruction(chars, offset, limit);
+								if(end == -1) {
+									break;
+								}
+		
+								if(sourceStart < offset) {
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+								}
+		
+								offset = end;
+								
+								// <?xml version="1.0"?>
+								if(level == 0 && !declaration && isXMLDeclaration(chars, sourceStart, offset)) {
+									// skip the whole XML declaration
+									sourceStart = offset;
+								} else {
+									buffer.append(indentations[level]);
+		
+									// complete processing instruction
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+									
+									type = Type.DECREMENT;
+								}	
+								
+								continue;
+							} 
+							default : {
+								// start element
+								// scan to end of start element, so that the whole element is available.
+								// as for whole documents, attribute values are only scanned if attributes might be filtered
+								int end;
+								if(level + 1 < attributeFilterStart.length) {
+									end = scanBeyondStartElementAttributes(chars, offset, limit);
+								} else {
+									end = scanBeyondStartElement(chars, offset, limit);
+								}
+								if(end == -1) {
+									break;
+								}
+								
+								// flush bytes
+								if(sourceStart < offset) {
+									buffer.append(chars, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+								}
+			
+								if(level >= indentations.length) {
+									indentations = ensureCharCapacity(level + 8);
+								}
+			
+								buffer.append(indentations[level]);
+			
+								level++;
+								if(level > maxLevel) {
+									maxLevel = level;
+								}
+	
+								boolean prune = false;
+								anon = false;
+	
+								// scan to end of local name
+								offset++; // skip <
+								while(offset < end) {
+									if(chars[offset] == ':') {
+										// ignore namespace
+										buffer.append(chars, sourceStart, offset - sourceStart);
+										sourceStart = offset;
+									} else if(isEndOfLocalName(chars[offset])) {
+										break;
+									}
+									offset++;
+								}
+	
+								if(level < elementFilterStart.length) {
+									// match again any higher filter
+									FilterType filterType = matchElements(chars, offset, sourceStart, level, elementMatches);
+									if(filterType == FilterType.ANON) {
+										anon = true;
+									} else if(filterType == FilterType.PRUNE) {
+										prune = true;
+									}
+								}
+	
+								if(anyElementFilters != null) {
+									FilterType filterType = matchAnyElements(chars, offset, sourceStart);
+									if(filterType == FilterType.ANON) {
+										anon = true;
+									} else if(filterType == FilterType.PRUNE) {
+										prune = true;
+									}
+								}
+	
+								if(level < attributeFilterStart.length) {
+									offset = filterAttributes(chars, offset, end, buffer, sourceStart, level, attributeMatches);
+								} else {
+									offset = AbstractPrettyPrinter.scanBeyondStartElementEnd(chars, offset, end);
+									
+									// complete start tag
+									buffer.append(chars, sourceStart, offset - sourceStart);
+								}
+	
+								sourceStart = offset;
+	
+								if(chars[offset - 2] == '/') {
+									// empty element
+	
+									level--;
+									
+									// constrain matches
+									if(level < elementFilterStart.length) {
+										anon = constrainMatches(elementMatches, level);
+									} else {
+										anon = false;
+									}
+									if(level < attributeFilterStart.length) {
+										constrainAttributeMatches(attributeMatches, level);
+									}
+									
+									type = Type.DECREMENT;
+								} else  if(prune) {
+									pruneLevel = 0;
+	
+									if(level >= indentations.length) {
+										indentations = ensureCharCapacity(level + 8);
+									}
+				
+									buffer.append(indentations[level]);
+	
+									buffer.append(FILTER_PRUNE_MESSAGE);
+									
+									type = Type.DECREMENT;
+								} else {
+									type = Type.INCREMENT;
+								}
+	
+								continue;
+							}
+						}
+						// incomplete construct
+						break;
+					}
+					
+					offset++;
+				}
+			} catch(Exception e) {
+				return -1;
+			}
+	
+			if(offset < limit) {
+				// incomplete construct
+				if(last) {
+					return -1;
+				}
+			} else if(last && (level != 0 || pruneLevel != -1)) {
+				return -1;
+			}
+	
+			if(pruneLevel != -1) {
+				// skip characters
+				sourceStart = offset;
+			} else if(!last && anon && type == Type.INCREMENT) {
+				// text node might have to be anonymized, carry over
+				offset = sourceStart;
+			} else if(sourceStart < offset) {
+				// flush characters
+				buffer.append(chars, sourceStart, offset - sourceStart);
+			}
+	
+			this.level = level;
+			this.type = type;
+			this.anon = anon;
+			this.pruneLevel = pruneLevel;
+	
+			return offset;
+		}
+		
+		@Override
+		public void reset() {
+			super.reset();
+			
+			Arrays.fill(elementMatches, 0);
+			Arrays.fill(attributeMatches, 0);
+			anon = false;
+			pruneLevel = -1;
+		}
+
+		@Override
+		public void copyState(AbstractIncrementalProcessor processor) {
+			super.copyState(processor);
+			
+			IncrementalProcessor source = (IncrementalProcessor)processor;
+			System.arraycopy(source.elementMatches, 0, elementMatches, 0, elementMatches.length);
+			System.arraycopy(source.attributeMatches, 0, attributeMatches, 0, attributeMatches.length);
+			anon = source.anon;
+			pruneLevel = source.pruneLevel;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "MultiFilterPlainPrettyPrinter [" 
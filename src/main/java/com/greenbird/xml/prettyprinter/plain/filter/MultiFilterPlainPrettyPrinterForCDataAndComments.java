@@ -43,6 +43,17 @@ public class MultiFilterPlainPrettyPrinterForCDataAndComments extends AbstractMu
 
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
+		MatchState matchState = acquireMatchState();
+		try {
+			return process(chars, offset, length, buffer, matchState.elementMatches, matchState.attributeMatches);
+		} finally {
+			releaseMatchState(matchState);
+		}
+	}
+
+	protected boolean process(final char[] chars, int offset, int length, final StringBuilder buffer, final int[] elementMatches, final int[] attributeMatches) {
 		
 		/**
 		 *
@@ -52,9 +63,6 @@ public class MultiFilterPlainPrettyPrinterForCDataAndComments extends AbstractMu
 		
 		final int bufferLength = buffer.length();
 		
-		final int[] elementMatches = new int[elementFilters.length];
-		final int[] attributeMatches = new int[attributeFilters.length];
-		
 		boolean anon = false;
 		
 		CharactersType characterType = CharactersType.NONE;
@@ -268,17 +276,11 @@ public class MultiFilterPlainPrettyPrinterForCDataAndComments extends AbstractMu
 							
 							if(level < elementFilterStart.length) {
 								// match again any higher filter
-								if(matchElements(chars, offset, sourceStart, level, elementMatches)) {
-									for(int i = elementFilterStart[level]; i < elementFilterEnd[level]; i++) {
-										if(elementMatches[i] == level) {
-											// matched
-											if(elementFilters[i].filterType == FilterType.ANON) {
-												anon = true;
-											} else if(elementFilters[i].filterType == FilterType.PRUNE) {
-												prune = true;
-											}
-										}
-									}
+								FilterType filterType = matchElements(chars, offset, sourceStart, level, elementMatches);
+								if(filterType == FilterType.ANON) {
+									anon = true;
+								} else if(filterType == FilterType.PRUNE) {
+									prune = true;
 								}
 							}
 							
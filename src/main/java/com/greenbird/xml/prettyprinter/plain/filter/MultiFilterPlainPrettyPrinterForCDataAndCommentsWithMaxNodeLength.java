@@ -44,6 +44,17 @@ public class MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength e
 
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
+		MatchState matchState = acquireMatchState();
+		try {
+			return process(chars, offset, length, buffer, matchState.elementMatches, matchState.attributeMatches);
+		} finally {
+			releaseMatchState(matchState);
+		}
+	}
+
+	protected boolean process(final char[] chars, int offset, int length, final StringBuilder buffer, final int[] elementMatches, final int[] attributeMatches) {
 		/**
 		 * General approach: Scan for start '<', identify and complete node type, with the exception of
 		 * start elements. 
@@ -57,8 +68,6 @@ public class MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength e
 		 * Remove XML header.
 		 * 
 		 */
-		final int[] elementMatches = new int[elementFilters.length];
-		final int[] attributeMatches = new int[attributeFilters.length];
 		
 		CharactersType characterType = CharactersType.NONE;
 		
@@ -108,6 +117,7 @@ public class MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength e
 											if(offset - sourceStart > maxTextNodeLength) {
 												buffer.append(chars, sourceStart, maxTextNodeLength);
 												buffer.append(FILTER_TRUNCATE_MESSAGE);
+												notifyNodeTruncated();
 												buffer.append(offset - sourceStart - maxTextNodeLength);
 												buffer.append("]");
 												
@@ -126,6 +136,7 @@ public class MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength e
 												// already have flushed <![CDATA[
 												buffer.append(chars, sourceStart, maxCDATANodeLength);
 												buffer.append(FILTER_TRUNCATE_MESSAGE);
+												notifyNodeTruncated();
 												buffer.append(offset - sourceStart - 3 - maxCDATANodeLength);
 												buffer.append("]");
 												
@@ -213,6 +224,7 @@ public class MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength e
 											// already have flushed <![CDATA[
 											buffer.append(chars, sourceStart, maxCDATANodeLength);
 											buffer.append(FILTER_TRUNCATE_MESSAGE);
+											notifyNodeTruncated();
 											buffer.append(offset - sourceStart - 3 - maxCDATANodeLength);
 											buffer.append("]");
 											
@@ -312,17 +324,11 @@ public class MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength e
 
 							if(level < elementFilterStart.length) {
 								// match again any higher filter
-								if(matchElements(chars, offset, sourceStart, level, elementMatches)) {
-									for(int i = elementFilterStart[level]; i < elementFilterEnd[level]; i++) {
-										if(elementMatches[i] == level) {
-											// matched
-											if(elementFilters[i].filterType == FilterType.ANON) {
-												anon = true;
-											} else if(elementFilters[i].filterType == FilterType.PRUNE) {
-												prune = true;
-											}
-										}
-									}
+								FilterType filterType = matchElements(chars, offset, sourceStart, level, elementMatches);
+								if(filterType == FilterType.ANON) {
+									anon = true;
+								} else if(filterType == FilterType.PRUNE) {
+									prune = true;
 								}
 							}
 							
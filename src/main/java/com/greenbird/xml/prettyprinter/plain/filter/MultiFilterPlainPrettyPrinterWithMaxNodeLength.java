@@ -38,6 +38,17 @@ public class MultiFilterPlainPrettyPrinterWithMaxNodeLength extends AbstractMult
 	}
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
+		MatchState matchState = acquireMatchState();
+		try {
+			return process(chars, offset, length, buffer, matchState.elementMatches, matchState.attributeMatches);
+		} finally {
+			releaseMatchState(matchState);
+		}
+	}
+
+	protected boolean process(final char[] chars, int offset, int length, final StringBuilder buffer, final int[] elementMatches, final int[] attributeMatches) {
 
 		/**
 		 *
@@ -48,9 +59,6 @@ public class MultiFilterPlainPrettyPrinterWithMaxNodeLength extends AbstractMult
 		final int maxTextNodeLength = this.maxTextNodeLength;
 		final int maxCDATANodeLength = this.maxCDATANodeLength;
 
-		final int[] elementMatches = new int[elementFilters.length];
-		final int[] attributeMatches = new int[attributeFilters.length];
-
 		boolean anon = false;
 		
 		final int bufferLength = buffer.length();
@@ -93,6 +101,7 @@ public class MultiFilterPlainPrettyPrinterWithMaxNodeLength extends AbstractMult
 										if(offset - sourceStart > maxTextNodeLength) {
 											buffer.append(chars, sourceStart, maxTextNodeLength);
 											buffer.append(FILTER_TRUNCATE_MESSAGE);
+											notifyNodeTruncated();
 											buffer.append(offset - sourceStart - maxTextNodeLength);
 											buffer.append("]");
 											
@@ -167,6 +176,7 @@ public class MultiFilterPlainPrettyPrinterWithMaxNodeLength extends AbstractMult
 									} else if(offset - 3 - sourceStart > maxCDATANodeLength) {
 										buffer.append(chars, sourceStart, maxCDATANodeLength);
 										buffer.append(FILTER_TRUNCATE_MESSAGE);
+										notifyNodeTruncated();
 										buffer.append(offset - 3 - sourceStart - maxCDATANodeLength);
 										buffer.append("]");
 										
@@ -254,17 +264,11 @@ public class MultiFilterPlainPrettyPrinterWithMaxNodeLength extends AbstractMult
 
 							if(level < elementFilterStart.length) {
 								// match again any higher filter
-								if(matchElements(chars, offset, sourceStart, level, elementMatches)) {
-									for(int i = elementFilterStart[level]; i < elementFilterEnd[level]; i++) {
-										if(elementMatches[i] == level) {
-											// matched
-											if(elementFilters[i].filterType == FilterType.ANON) {
-												anon = true;
-											} else if(elementFilters[i].filterType == FilterType.PRUNE) {
-												prune = true;
-											}
-										}
-									}
+								FilterType filterType = matchElements(chars, offset, sourceStart, level, elementMatches);
+								if(filterType == FilterType.ANON) {
+									anon = true;
+								} else if(filterType == FilterType.PRUNE) {
+									prune = true;
 								}
 							}
 							
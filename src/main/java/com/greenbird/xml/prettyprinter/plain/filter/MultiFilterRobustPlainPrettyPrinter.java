@@ -70,7 +70,14 @@ public class MultiFilterRobustPlainPrettyPrinter extends AbstractMultiFilterPret
 	}
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
-		return process(chars, offset, offset + length, buffer, 0, new int[elementFilters.length], new int[attributeFilters.length]);
+		ensureOutputCapacity(chars, offset, length, buffer);
+
+		MatchState matchState = acquireMatchState();
+		try {
+			return process(chars, offset, offset + length, buffer, 0, matchState.elementMatches, matchState.attributeMatches);
+		} finally {
+			releaseMatchState(matchState);
+		}
 	}
 	
 	public boolean process(final char[] chars, int offset, final int length, final StringBuilder buffer, final int levelOffset, final int[] elementMatches, final int[] attributeMatches) {
@@ -129,71 +136,24 @@ public class MultiFilterRobustPlainPrettyPrinter extends AbstractMultiFilterPret
 
 											int markLength = buffer.length();
 											int markSourceStart = sourceStart;
-											
-											// initially detected entity
-											buffer.append('<');
-											sourceStart += 4;
-											
-											for(int k = sourceStart; k < offset; k++) {
-												if(chars[k] == '&') {
-													k++;
-													int l = k;
-													while(l < offset) {
-														if(chars[l] == ';') {
-															
-															if(chars[k] == '#') {
-																// numeric entity
-																buffer.append(chars, sourceStart, l - sourceStart + 1);
-
-																sourceStart = l + 1;
-															} else {
-
-																buffer.append(chars, sourceStart, k - sourceStart - 1);
-																
-																if(appendEntity(l - k, chars, k, buffer)) {
-																	sourceStart = l + 1;
-																} else {
-																	// unknown entity? 
-																	
-																	if(ignoreInvalidTextNodeXML) {
-																		// reset
-																		buffer.setLength(markLength);
-																		sourceStart = markSourceStart;
-																		
-																		break xml;
-																	} else {
-																		// report back negative result
-																		buffer.setLength(bufferLength);
-																		
-																		return false;
-																	}
-	
-																}
-															}
-															
-															k = l; // increments +1 in for loop
-															
-															break;
-														}
-														l++;
-													}
+
+											char[] innerChars = getUnescapeBuffer(level, offset - sourceStart);
+											int innerLength = unescapeXML(chars, sourceStart, offset, innerChars);
+											if(innerLength == -1) {
+												// unknown entity? 
+												if(ignoreInvalidTextNodeXML) {
+													break xml;
+												} else {
+													// report back negative result
+													buffer.setLength(bufferLength);
 													
+													return false;
 												}
 											}
-										
-											if(sourceStart < offset) {
-												buffer.append(chars, sourceStart, offset - sourceStart);
-												sourceStart = offset;
-											}
+											sourceStart = offset;
 
-											// recursive call - expensive
-											// rip chars from buffer
-											char[] innerChars = new char[buffer.length() - markLength];
-											buffer.getChars(markLength, buffer.length(), innerChars, 0);
-											
-											// set buffer back to the length we had before unescaping
-											buffer.setLength(markLength);
-											if(!process(innerChars, 0, innerChars.length, buffer, level + 1, elementMatches, attributeMatches)) {
+											// recursive call
+											if(!process(innerChars, 0, innerLength, buffer, level + 1, elementMatches, attributeMatches)) {
 												if(ignoreInvalidTextNodeXML) {
 													// reset
 													buffer.setLength(markLength);
@@ -216,6 +176,7 @@ public class MultiFilterRobustPlainPrettyPrinter extends AbstractMultiFilterPret
 										if(offset - sourceStart > maxTextNodeLength) {
 											buffer.append(chars, sourceStart, maxTextNodeLength);
 											buffer.append(FILTER_TRUNCATE_MESSAGE);
+											notifyNodeTruncated();
 											buffer.append(offset - sourceStart - maxTextNodeLength);
 											buffer.append("]");
 											
@@ -232,6 +193,7 @@ public class MultiFilterRobustPlainPrettyPrinter extends AbstractMultiFilterPret
 											// already have flushed <![CDATA[
 											buffer.append(chars, sourceStart, maxCDATANodeLength);
 											buffer.append(FILTER_TRUNCATE_MESSAGE);
+											notifyNodeTruncated();
 											buffer.append(offset - sourceStart - 3 - maxCDATANodeLength);
 											buffer.append("]");
 											
@@ -368,6 +330,7 @@ public class MultiFilterRobustPlainPrettyPrinter extends AbstractMultiFilterPret
 									if(offset - sourceStart > maxCDATANodeLength) {
 										buffer.append(chars, sourceStart, maxCDATANodeLength);
 										buffer.append(FILTER_TRUNCATE_MESSAGE);
+										notifyNodeTruncated();
 										buffer.append(offset - sourceStart - maxCDATANodeLength);
 										buffer.append("]");
 										
@@ -465,17 +428,11 @@ public class MultiFilterRobustPlainPrettyPrinter extends AbstractMultiFilterPret
 
 						if(level < elementFilterStart.length) {
 							// match again any higher filter
-							if(matchElements(chars, offset, sourceStart, level, elementMatches)) {
-								for(int i = elementFilterStart[level]; i < elementFilterEnd[level]; i++) {
-									if(elementMatches[i] == level) {
-										// matched
-										if(elementFilters[i].filterType == FilterType.ANON) {
-											anon = true;
-										} else if(elementFilters[i].filterType == FilterType.PRUNE) {
-											prune = true;
-										}
-									}
-								}
+							FilterType filterType = matchElements(chars, offset, sourceStart, level, elementMatches);
+							if(filterType == FilterType.ANON) {
+								anon = true;
+							} else if(filterType == FilterType.PRUNE) {
+								prune = true;
 							}
 						}
 						
@@ -40,7 +40,7 @@ public class SingleFilterPlainPrettyPrinter extends AbstractFilterPrettyPrinter
 	private final char[] attribute;
 	
 	public SingleFilterPlainPrettyPrinter(boolean declaration, String expression, FilterType type, char indentationCharacter, int indentationMultiplier) {
-		super(declaration, type == FilterType.ANON ? new String[]{expression} : EMPTY, type == FilterType.PRUNE ? new String[]{expression} : EMPTY);
+		super(declaration, Integer.MAX_VALUE, Integer.MAX_VALUE, type == FilterType.ANON ? new String[]{expression} : EMPTY, type == FilterType.PRUNE ? new String[]{expression} : EMPTY, indentationCharacter, indentationMultiplier);
 		
 		char[][] paths = parse(expression);
 		if(paths[paths.length - 1][0] == '@') {
@@ -68,6 +68,9 @@ public class SingleFilterPlainPrettyPrinter extends AbstractFilterPrettyPrinter
 		 * Implementation note: cdata + comments characters handled locally
 		 *  
 		 */
+
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		int matches = 0;
 		
 		final char[][] elementPaths = this.paths;
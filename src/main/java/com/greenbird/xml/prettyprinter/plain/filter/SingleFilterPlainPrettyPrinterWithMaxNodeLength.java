@@ -70,6 +70,9 @@ public class SingleFilterPlainPrettyPrinterWithMaxNodeLength extends AbstractFil
 		 * Implementation note: cdata + comments characters handled locally
 		 *  
 		 */
+
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		
 		final int maxTextNodeLength = this.maxTextNodeLength;
 		final int maxCDATANodeLength = this.maxCDATANodeLength;
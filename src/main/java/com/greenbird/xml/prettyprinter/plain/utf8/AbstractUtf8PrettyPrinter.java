@@ -0,0 +1,354 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.utf8;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.greenbird.xml.prettyprinter.ByteArrayBuilder;
+import com.greenbird.xml.prettyprinter.Utf8PrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter;
+
+/**
+ *
+ * Byte-oriented counterpart of {@linkplain AbstractPrettyPrinter}, for UTF-8 encoded XML.
+ * <br>
+ * All markup characters are ASCII, and no byte of a multi-byte UTF-8 sequence is within the ASCII range,
+ * so the scan methods work directly on the encoded bytes, several bytes at a time using {@linkplain SwarScanner}.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public abstract class AbstractUtf8PrettyPrinter implements Utf8PrettyPrinter {
+
+	/** length of the part of the input file which is mapped at a time */
+	protected static final int MAPPED_WINDOW_LENGTH = 64 * 1024 * 1024;
+	/** max length of a mapping, i.e. for constructs larger than the window */
+	protected static final int MAX_MAPPED_WINDOW_LENGTH = Integer.MAX_VALUE - 8;
+	/** number of bytes written to the output file at a time */
+	protected static final int OUTPUT_BLOCK_LENGTH = 1024 * 1024;
+
+	protected final boolean declaration;
+
+	protected final byte[] indentationBytes;
+	protected volatile byte[][] indentations;
+
+	public AbstractUtf8PrettyPrinter(boolean declaration, char indentationCharacter, int indentationMultiplier) {
+		if(indentationMultiplier < 0) {
+			throw new IllegalArgumentException("Negative indentation multiplier " + indentationMultiplier);
+		}
+		this.declaration = declaration;
+		this.indentationBytes = encode(indentationCharacter);
+		this.indentations = getIndentations(AbstractPrettyPrinter.defaultIndentationDepth, indentationBytes, indentationMultiplier);
+	}
+
+	public AbstractUtf8PrettyPrinter(boolean declaration) {
+		this(declaration, AbstractPrettyPrinter.defaultIndentationCharacter, AbstractPrettyPrinter.defaultIndentationMultiplier);
+	}
+
+	private static byte[] encode(char indentationCharacter) {
+		try {
+			return Character.toString(indentationCharacter).getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e); // UTF-8 is always supported
+		}
+	}
+
+	private static byte[][] getIndentations(int size, byte[] indentation, int multiplier) {
+
+		final byte[][] indentations = new byte[size][];
+		for(int i = 0; i < indentations.length; i++) {
+			indentations[i] = getIndentation(i, indentation, multiplier);
+		}
+
+		return indentations;
+	}
+
+	private static byte[] getIndentation(int level, byte[] indentation, int multiplier) {
+		byte[] bytes = new byte[(level * multiplier * indentation.length) + 1];
+
+		bytes[0] = '\n';
+
+		for(int k = 1; k < bytes.length; k += indentation.length) {
+			System.arraycopy(indentation, 0, bytes, k, indentation.length);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Return array of indentations
+	 *
+	 * @param size depth of XML tree
+	 * @return array of indentation byte arrays
+	 */
+
+	public byte[][] ensureByteCapacity(int size) {
+
+		final byte[][] currentIndentations = indentations;
+		if(size < currentIndentations.length) {
+			return currentIndentations;
+		}
+
+		int multiplier = (currentIndentations[1].length - 1) / indentationBytes.length;
+
+		final byte[][] nextIndentations = new byte[size][];
+
+		// reuse existing values
+		System.arraycopy(currentIndentations, 0, nextIndentations, 0, currentIndentations.length);
+
+		for(int i = currentIndentations.length; i < nextIndentations.length; i++) {
+			nextIndentations[i] = getIndentation(i, indentationBytes, multiplier);
+		}
+
+		// save in field
+		this.indentations = nextIndentations;
+
+		return nextIndentations;
+	}
+
+	public boolean isXmlDeclaration() {
+		return declaration;
+	}
+
+	public boolean process(ByteBuffer buffer, ByteArrayBuilder output) {
+		if(buffer.hasArray()) {
+			return process(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), output);
+		}
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+
+		return process(bytes, 0, bytes.length, output);
+	}
+
+	public boolean process(Path input, Path output) throws IOException {
+		return process(input, output, MAPPED_WINDOW_LENGTH);
+	}
+
+	/**
+	 * Pretty print an UTF-8 encoded XML file to another file, mapping the input file a window at a time.
+	 *
+	 * @param input file containing XML to be pretty printed
+	 * @param output file to which indented XML is written, created or truncated
+	 * @param windowLength the length of the mapped window; constructs longer than the window are mapped whole
+	 * @return true if pretty printing was successful. If false, the output file is empty.
+	 * @throws IOException if the input file could not be read or the output file written
+	 */
+
+	public boolean process(Path input, Path output, int windowLength) throws IOException {
+		if(windowLength <= 0) {
+			throw new IllegalArgumentException("Expected positive window length, not " + windowLength);
+		}
+		FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+		try {
+			FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				ChannelOutput channelOutput = new ChannelOutput(out, OUTPUT_BLOCK_LENGTH);
+				if(!process(in, channelOutput, windowLength)) {
+					out.truncate(0);
+
+					return false;
+				}
+				channelOutput.flush();
+
+				return true;
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Pretty print a file, mapping a window of the file at a time.
+	 *
+	 * @param input the input file
+	 * @param output the output
+	 * @param windowLength length of the mapped window
+	 * @return true if pretty printing was successful
+	 * @throws IOException if the file could not be read or the output written
+	 */
+
+	protected abstract boolean process(FileChannel input, ChannelOutput output, int windowLength) throws IOException;
+
+	protected static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Scan from the start of a construct (i.e. an element or comment) to its end, plus one.
+	 *
+	 * @param words XML data
+	 * @param offset start offset of the construct
+	 * @param limit end offset within XML data
+	 * @return offset one byte past the construct, or -1 if the construct does not end before the limit
+	 */
+
+	protected static int scanBeyondConstruct(final ByteBuffer words, int offset, int limit) {
+		if(offset + 3 > limit) {
+			return -1;
+		}
+		try {
+			switch(words.get(offset + 1)) {
+				case '/' : return scanBeyondEndElement(words, offset, limit);
+				case '!' : {
+					if(words.get(offset + 2) == '-') {
+						return scanBeyondComment(words, offset, limit);
+					} else if(words.get(offset + 2) == '[') {
+						if(offset + 12 >= limit) {
+							return -1;
+						}
+						return scanBeyondCData(words, offset, limit);
+					}
+					return scanBeyondDTDEnd(words, offset, limit);
+				}
+				case '?' : return scanBeyondProcessingInstruction(words, offset, limit);
+				default : return scanBeyondStartElement(words, offset, limit);
+			}
+		} catch(IndexOutOfBoundsException e) {
+			return -1;
+		}
+	}
+
+	protected static int scanBeyondEndElement(final ByteBuffer words, int offset, int limit) {
+		// scan to end of end tag + 1
+		offset += 3; // an end element must be at least 4 bytes.
+
+		return scanElementEnd(words, offset, limit) + 1;
+	}
+
+	protected static int scanElementEnd(final ByteBuffer words, int offset, int limit) {
+		offset = SwarScanner.indexOf(words, offset, limit, SwarScanner.GREATER_THAN);
+		if(offset < limit) {
+			return offset;
+		}
+		throw new ArrayIndexOutOfBoundsException("Unable to find end of end element");
+	}
+
+	protected static int scanBeyondStartElement(final ByteBuffer words, int offset, int limit) {
+		// scan to end of start tag + 1
+		offset += 2; // an start element must be at least 3 bytes.
+
+		return scanStartElementEnd(words, offset, limit) + 1;
+	}
+
+	protected static int scanStartElementEnd(final ByteBuffer words, int offset, int limit) {
+		offset = SwarScanner.indexOf(words, offset, limit, SwarScanner.GREATER_THAN);
+		if(offset < limit) {
+			return offset;
+		}
+		throw new ArrayIndexOutOfBoundsException("Unable to find end of start element");
+	}
+
+	protected static int scanBeyondDTDEnd(final ByteBuffer words, int offset, int limit) {
+		// assume DTD are nested structures
+		// simplified scan loop
+		int level = 1;
+
+		do {
+			offset++;
+			if(offset >= limit) {
+				throw new ArrayIndexOutOfBoundsException("Unable to find end of DTD");
+			}
+			if(words.get(offset) == '<') {
+				level++;
+			} else if(words.get(offset) == '>') {
+				level--;
+			}
+
+		} while(level > 0);
+
+		return offset + 1;
+	}
+
+	protected static int scanBeyondProcessingInstruction(final ByteBuffer words, int offset, int limit) {
+		offset += 3; // // a processing must be at least 4 bytes. <? >
+
+		while(offset < limit) {
+			if(words.get(offset) == '>' && words.get(offset - 1) == '?') {
+				return offset + 1;
+			}
+			offset++;
+		}
+		throw new ArrayIndexOutOfBoundsException("Unable to find end of processing instruction");
+	}
+
+	protected static int scanBeyondCData(final ByteBuffer words, int offset, int limit) {
+		offset += 11; // // a CDATA node must be at least 12 bytes. <![CDATA[]]>
+
+		return scanCDataEnd(words, offset, limit) + 1;
+	}
+
+	protected static int scanCDataEnd(final ByteBuffer words, int offset, int limit) {
+		while(true) {
+			offset = SwarScanner.indexOf(words, offset, limit, SwarScanner.GREATER_THAN);
+			if(offset >= limit) {
+				break;
+			}
+			if(words.get(offset - 1) == ']' && words.get(offset - 2) == ']') {
+				return offset;
+			}
+			offset++;
+		}
+		throw new ArrayIndexOutOfBoundsException("Unable to find end of CDATA");
+	}
+
+	protected static int scanBeyondComment(final ByteBuffer words, int offset, int limit) {
+		// scan to end of comment + 1
+		offset += 6; // a comment must be at least 7 bytes. <!-- -->
+
+		return scanCommentEnd(words, offset, limit) + 1;
+	}
+
+	protected static int scanCommentEnd(final ByteBuffer words, int offset, int limit) {
+		while(true) {
+			offset = SwarScanner.indexOf(words, offset, limit, SwarScanner.GREATER_THAN);
+			if(offset >= limit) {
+				break;
+			}
+			if(words.get(offset - 1) == '-' && words.get(offset - 2) == '-') {
+				return offset;
+			}
+			offset++;
+		}
+		throw new ArrayIndexOutOfBoundsException("Unable to find end of comment");
+	}
+
+	protected boolean isXMLDeclaration(final ByteBuffer words, int sourceStart, int sourceEnd) {
+		return sourceStart < sourceEnd - 6 && words.get(sourceStart + 2) == 'x' && words.get(sourceStart + 3) == 'm' && words.get(sourceStart + 4) == 'l' && isWhitespace(words.get(sourceStart + 5));
+	}
+
+	protected boolean isXMLDeclaration(final byte[] bytes, int sourceStart, int sourceEnd) {
+		return sourceStart < sourceEnd - 6 && bytes[sourceStart + 2] == 'x' && bytes[sourceStart + 3] == 'm' && bytes[sourceStart + 4] == 'l' && isWhitespace(bytes[sourceStart + 5]);
+		// assume method is inlined
+	}
+
+	protected static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+	}
+
+}
@@ -0,0 +1,95 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.utf8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ *
+ * Output to a channel, via a direct buffer which is written in large blocks.
+ * Ranges larger than the block are written directly from the source buffer. Not thread-safe.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+class ChannelOutput {
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer block;
+
+	public ChannelOutput(WritableByteChannel channel, int blockLength) {
+		this.channel = channel;
+		this.block = ByteBuffer.allocateDirect(blockLength);
+	}
+
+	public void append(byte[] bytes) throws IOException {
+		if(block.remaining() < bytes.length) {
+			flush();
+
+			if(block.remaining() < bytes.length) {
+				write(ByteBuffer.wrap(bytes));
+
+				return;
+			}
+		}
+		block.put(bytes);
+	}
+
+	/**
+	 * Append a range of bytes.
+	 *
+	 * @param source buffer with the bytes; its position and limit are modified
+	 * @param start start index
+	 * @param end end index (exclusive)
+	 * @throws IOException if the channel could not be written
+	 */
+
+	public void append(ByteBuffer source, int start, int end) throws IOException {
+		source.limit(end);
+		source.position(start);
+
+		if(block.remaining() < end - start) {
+			flush();
+
+			if(block.remaining() < end - start) {
+				write(source);
+
+				return;
+			}
+		}
+		block.put(source);
+	}
+
+	public void flush() throws IOException {
+		block.flip();
+		write(block);
+		block.clear();
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,414 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.utf8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.greenbird.xml.prettyprinter.ByteArrayBuilder;
+import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter.Type;
+
+/**
+ * 
+ * XML Pretty Printer for UTF-8 encoded XML - produces reformatted XML. 
+ * The byte equivalent of {@linkplain com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter}.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class PlainUtf8PrettyPrinter extends AbstractUtf8PrettyPrinter {
+
+	public PlainUtf8PrettyPrinter(boolean declaration, char indentationCharacter, int indentationMultiplier) {
+		super(declaration, indentationCharacter, indentationMultiplier);
+	}
+
+	public PlainUtf8PrettyPrinter(boolean declaration) {
+		super(declaration);
+	}
+
+	public boolean process(final byte[] bytes, int offset, int length, final ByteArrayBuilder buffer) {
+		/**
+		 *
+		 * Implementation note: cdata + comments bytes handled locally
+		 *  
+		 */
+
+		int bufferLength = buffer.length();
+		
+		byte[][] indentations = this.indentations;
+		
+		final ByteBuffer words = SwarScanner.wrap(bytes);
+
+		// use length as the end index
+		length += offset;
+
+		int sourceStart = offset;
+
+		int level = 0;
+	
+		Type type = Type.NEITHER;
+		
+		try {
+			while(offset < length) { // ignore potential array index out of bounds
+	
+				if(bytes[offset] == '<') {
+					switch(bytes[offset + 1]) {
+						case '/' : {  // end tag
+							level--;
+							
+							if(type != Type.INCREMENT) {
+								// 2 or more endish elements
+								// flush bytes
+								if(sourceStart < offset) {
+									buffer.append(bytes, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+								}
+		
+								buffer.append(indentations[level]);
+							} else {
+								// characters: always text node
+								
+								type = Type.DECREMENT;
+							}
+		
+							offset = scanBeyondEndElement(words, offset, length);
+							
+							// complete end element
+							buffer.append(bytes, sourceStart, offset - sourceStart);
+							sourceStart = offset;
+							
+							continue;
+						}
+						case '!': {
+							// complete cdata and comments so nodes
+							
+							if(bytes[offset + 2] == '-') {
+								// look for -->
+								
+								if(sourceStart < offset) {
+									buffer.append(bytes, sourceStart, offset - sourceStart);
+									sourceStart = offset;
+								}
+	
+								buffer.append(indentations[level]);
+								
+								offset = scanBeyondComment(words, offset, length);
+								
+								// complete comment
+								buffer.append(bytes, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+
+								type = Type.DECREMENT;
+	
+								continue;
+							} else if(bytes[offset + 2] == '[') {
+								// look for ]]>
+								if(offset + 12 >= length) {
+									buffer.setLength(bufferLength);
+									
+									return false;
+								}
+
+								offset = scanBeyondCData(words, offset, length);
+								
+								// complete cdata
+								buffer.append(bytes, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+								
+								continue;
+							} else {
+								// assume entity declaration
+								// look for >
+								
+								offset = scanBeyondDTDEnd(words, offset, length);
+								type = Type.DECREMENT;
+								
+								// complete entity declaration
+								buffer.append(bytes, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+
+								continue;
+							}
+						}
+						case '?' : {
+							// processing instruction
+							// indentate as start elements
+	
+							if(sourceStart < offset) {
+								buffer.append(bytes, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+							}
+	
+							offset = scanBeyondProcessingInstruction(words, offset, length);
+							
+							// <?xml version="1.0"?>
+							if(level == 0 && !declaration && isXMLDeclaration(bytes, sourceStart, length)) {
+								// skip the whole XML declaration
+								sourceStart = offset;
+							} else {
+								buffer.append(indentations[level]);
+	
+								// complete processing instruction
+								buffer.append(bytes, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+								
+								type = Type.DECREMENT;
+							}	
+							
+							continue;
+						} 
+						default : {
+							// start element
+							// flush bytes
+							if(sourceStart < offset) {
+								buffer.append(bytes, sourceStart, offset - sourceStart);
+								sourceStart = offset;
+							}
+		
+							if(level >= indentations.length) {
+								indentations = ensureByteCapacity(level + 8);
+							}
+		
+							buffer.append(indentations[level]);
+		
+							// scan to end of start element
+							offset = scanBeyondStartElement(words, offset, length); 
+							
+							// see if empty start element
+							if(bytes[offset - 2] == '/') {
+								// empty element
+								type = Type.DECREMENT;
+								
+								// do not increment level
+							} else {
+								type = Type.INCREMENT;
+
+								level++;
+							}
+							
+							// complete start tag
+							buffer.append(bytes, sourceStart, offset - sourceStart);
+							sourceStart = offset;
+	
+							continue;
+						}
+					}	
+				}
+				
+				// skip text
+				offset = SwarScanner.indexOf(words, offset + 1, length, SwarScanner.LESS_THAN);
+			}
+
+			if(level != 0) {
+				buffer.setLength(bufferLength);
+				
+				return false;
+			}
+
+			if(sourceStart < length) {
+				buffer.append(bytes, sourceStart, length - sourceStart);
+			}
+		} catch(Exception e) {
+			buffer.setLength(bufferLength);
+			
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	protected boolean process(final FileChannel channel, final ChannelOutput buffer, int windowLength) throws IOException {
+		/**
+		 *
+		 * Implementation note: same rules as for byte arrays, but each construct is scanned before any output is made,
+		 * so that a construct which crosses the end of the window can be scanned again from the start of the next window.
+		 *  
+		 */
+		
+		final long size = channel.size();
+
+		byte[][] indentations = this.indentations;
+		
+		int level = 0;
+		
+		Type type = Type.NEITHER;
+
+		// file position of the window
+		long position = 0;
+		
+		try {
+			while(true) {
+				int length = (int)Math.min(windowLength, size - position);
+				boolean last = position + length == size;
+				
+				final ByteBuffer words = map(channel, position, length);
+				// view for copying ranges to the output
+				final ByteBuffer source = words.duplicate();
+				
+				int offset = 0;
+				int sourceStart = 0;
+				
+				while(offset < length) {
+		
+					if(words.get(offset) == '<') {
+						int end = scanBeyondConstruct(words, offset, length);
+						if(end == -1) {
+							if(last) {
+								return false;
+							}
+							// continue in the next window
+							break;
+						}
+						
+						switch(words.get(offset + 1)) {
+							case '/' : {  // end tag
+								level--;
+								
+								if(type != Type.INCREMENT) {
+									// 2 or more endish elements
+									// flush bytes
+									if(sourceStart < offset) {
+										buffer.append(source, sourceStart, offset);
+										sourceStart = offset;
+									}
+			
+									buffer.append(indentations[level]);
+								} else {
+									// characters: always text node
+									
+									type = Type.DECREMENT;
+								}
+								break;
+							}
+							case '!': {
+								if(words.get(offset + 2) == '-') {
+									// comment
+									if(sourceStart < offset) {
+										buffer.append(source, sourceStart, offset);
+										sourceStart = offset;
+									}
+		
+									buffer.append(indentations[level]);
+		
+									type = Type.DECREMENT;
+								} else if(words.get(offset + 2) != '[') {
+									// assume entity declaration
+									type = Type.DECREMENT;
+								}
+								// cdata is appended as-is
+								break;
+							}
+							case '?' : {
+								// processing instruction
+								// indentate as start elements
+		
+								if(sourceStart < offset) {
+									buffer.append(source, sourceStart, offset);
+									sourceStart = offset;
+								}
+		
+								// <?xml version="1.0"?>
+								if(level == 0 && !declaration && isXMLDeclaration(words, sourceStart, end)) {
+									// skip the whole XML declaration
+									sourceStart = end;
+								} else {
+									buffer.append(indentations[level]);
+		
+									type = Type.DECREMENT;
+								}	
+								break;
+							} 
+							default : {
+								// start element
+								// flush bytes
+								if(sourceStart < offset) {
+									buffer.append(source, sourceStart, offset);
+									sourceStart = offset;
+								}
+			
+								if(level >= indentations.length) {
+									indentations = ensureByteCapacity(level + 8);
+								}
+			
+								buffer.append(indentations[level]);
+			
+								// see if empty start element
+								if(words.get(end - 2) == '/') {
+									// empty element
+									type = Type.DECREMENT;
+									
+									// do not increment level
+								} else {
+									type = Type.INCREMENT;
+	
+									level++;
+								}
+							}
+						}
+						
+						// complete construct
+						if(sourceStart < end) {
+							buffer.append(source, sourceStart, end);
+						}
+						sourceStart = end;
+						offset = end;
+						
+						continue;
+					}
+					
+					// skip text
+					offset = SwarScanner.indexOf(words, offset + 1, length, SwarScanner.LESS_THAN);
+				}
+				
+				if(sourceStart < offset) {
+					buffer.append(source, sourceStart, offset);
+				}
+				
+				if(last) {
+					break;
+				}
+				
+				if(offset == 0) {
+					// construct larger than the window
+					if(windowLength == MAX_MAPPED_WINDOW_LENGTH) {
+						return false;
+					}
+					windowLength = (int)Math.min((long)windowLength * 2, MAX_MAPPED_WINDOW_LENGTH);
+				}
+				position += offset;
+			}
+
+			return level == 0;
+		} catch(IOException e) {
+			throw e;
+		} catch(Exception e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PlainUtf8PrettyPrinter [declaration=" + declaration + "]";
+	}
+
+}
@@ -0,0 +1,108 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.utf8;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ *
+ * Word-at-a-time (SIMD within a register) scanning of UTF-8 encoded XML.
+ * <br>
+ * Eight bytes are read as a single little-endian long and tested for a delimiter in one go, 
+ * so that long text nodes (i.e. base64 payloads) are skipped at a fraction of the per-byte cost.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public final class SwarScanner {
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGHS = 0x8080808080808080L;
+
+	/** pattern for finding start of markup */
+	public static final long LESS_THAN = pattern('<');
+	/** pattern for finding end of markup */
+	public static final long GREATER_THAN = pattern('>');
+
+	private SwarScanner() {
+	}
+
+	/**
+	 * Get a pattern for a delimiter.
+	 * 
+	 * @param b delimiter, must be ASCII
+	 * @return the delimiter repeated in all bytes of a long
+	 */
+
+	public static long pattern(char b) {
+		if(b > 0x7F) {
+			throw new IllegalArgumentException("Expected ASCII delimiter, got " + (int)b);
+		}
+		return ONES * b;
+	}
+
+	/**
+	 * Wrap bytes for word reads. The view shares the byte array, and uses absolute indexes only.
+	 * 
+	 * @param bytes bytes to scan
+	 * @return view of the bytes for use in {@linkplain #indexOf(ByteBuffer, int, int, long)}
+	 */
+
+	public static ByteBuffer wrap(byte[] bytes) {
+		return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Find the next occurrence of a delimiter.
+	 * 
+	 * @param words view of the bytes, see {@linkplain #wrap(byte[])}
+	 * @param offset index to start scanning at
+	 * @param limit end index (exclusive)
+	 * @param pattern delimiter pattern, see {@linkplain #pattern(char)}
+	 * @return index of the delimiter, or limit if not found
+	 */
+
+	public static int indexOf(final ByteBuffer words, int offset, final int limit, final long pattern) {
+		final int wordLimit = limit - 7;
+		while(offset < wordLimit) {
+			long word = words.getLong(offset) ^ pattern; // matching bytes are now zero
+			
+			// high bit set for zero bytes; might produce false positives, but only above (after) the first zero byte
+			long found = (word - ONES) & ~word & HIGHS;
+			if(found != 0) {
+				return offset + (Long.numberOfTrailingZeros(found) >>> 3);
+			}
+			offset += 8;
+		}
+		
+		final byte b = (byte)pattern;
+		while(offset < limit) {
+			if(words.get(offset) == b) {
+				return offset;
+			}
+			offset++;
+		}
+		return limit;
+	}
+
+}
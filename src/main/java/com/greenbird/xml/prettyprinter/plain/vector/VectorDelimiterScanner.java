@@ -0,0 +1,97 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.vector;
+
+import com.greenbird.xml.prettyprinter.plain.DelimiterScanner;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@linkplain DelimiterScanner} which compares a whole SIMD register of characters at a time, 
+ * using the Vector API (<code>jdk.incubator.vector</code>).
+ * <br>
+ * Only compiled on JDK 16 or later, and only used if the <code>jdk.incubator.vector</code> module is present at runtime,
+ * i.e. using <code>--add-modules jdk.incubator.vector</code>.
+ * 
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class VectorDelimiterScanner implements DelimiterScanner {
+
+	private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+	public int indexOf(final char[] chars, int offset, final int limit, final char c) {
+		final int length = SPECIES.length();
+		final int vectorLimit = limit - length;
+		final short s = (short)c;
+
+		while(offset <= vectorLimit) {
+			VectorMask<Short> mask = ShortVector.fromCharArray(SPECIES, chars, offset).eq(s);
+			if(mask.anyTrue()) {
+				return offset + mask.firstTrue();
+			}
+			offset += length;
+		}
+
+		// tail
+		while(offset < limit) {
+			if(chars[offset] == c) {
+				return offset;
+			}
+			offset++;
+		}
+		return limit;
+	}
+
+	public int indexOfDelimiter(final char[] chars, int offset, final int limit) {
+		final int length = SPECIES.length();
+		final int vectorLimit = limit - length;
+
+		while(offset <= vectorLimit) {
+			ShortVector vector = ShortVector.fromCharArray(SPECIES, chars, offset);
+
+			// one mask for all delimiters per block
+			VectorMask<Short> mask = vector.eq((short)'<').or(vector.eq((short)'>')).or(vector.eq((short)'&'));
+			if(mask.anyTrue()) {
+				return offset + mask.firstTrue();
+			}
+			offset += length;
+		}
+
+		// tail
+		while(offset < limit) {
+			char c = chars[offset];
+			if(c == '<' || c == '>' || c == '&') {
+				return offset;
+			}
+			offset++;
+		}
+		return limit;
+	}
+
+	@Override
+	public String toString() {
+		return "VectorDelimiterScanner [" + SPECIES + "]";
+	}
+}
@@ -37,6 +37,8 @@ public class PlainIndentedPrettyPrinter extends AbstractPlainIgnoreWhitespacePre
 	}
 
 	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		int bufferLength = buffer.length();
 		
 		char[][] indentations = this.indentations;
@@ -0,0 +1,188 @@
+/***************************************************************************
+ * Copyright 2014 greenbird Integration Technology, http://www.greenbird.com/
+ *
+ * This file is part of the 'xml-formatter' project available at
+ * http://greenbird.github.com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.greenbird.xml.prettyprinter.plain.ws;
+
+/**
+ *
+ * XML Minifier, the inverse of {@linkplain PlainIndentedPrettyPrinter}: Removes existing indentation (whitespace) and does not add any,
+ * producing compact XML. Text which is not only whitespace, and the text of elements without child elements, is kept as-is.
+ *
+ * @author Thomas Rorvik Skjolberg
+ *
+ */
+
+public class PlainMinifyingPrettyPrinter extends AbstractPlainIgnoreWhitespacePrettyPrinter {
+
+	public PlainMinifyingPrettyPrinter(boolean declaration) {
+		super(declaration, defaultIndentationCharacter, defaultIndentationMultiplier);
+	}
+
+	public boolean process(final char[] chars, int offset, int length, final StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
+		int bufferLength = buffer.length();
+
+		// use length as the end index
+		length += offset;
+
+		int sourceStart = offset;
+
+		Type type = Type.NEITHER;
+
+		int level = 0;
+
+		try {
+			while(offset < length) {
+
+				if(chars[offset] == '<') {
+					switch(chars[offset + 1]) {
+					case '/' : {
+						level--;
+
+						if(type != Type.INCREMENT) {
+							// 2 or more endish elements
+							// flush bytes is not whitespace
+							appendIfNotWhitespace(chars, sourceStart, offset, buffer);
+							sourceStart = offset;
+						} else {
+							// characters: always text node
+							type = Type.DECREMENT;
+						}
+
+						// scan to end of end tag
+						offset = scanBeyondEndElement(chars, offset, length);
+
+						// complete tag
+						buffer.append(chars, sourceStart, offset - sourceStart);
+						sourceStart = offset;
+
+						continue;
+					}
+					case '!' : {
+						// skip cdata and comments so that we maintain correct level count
+						appendIfNotWhitespace(chars, sourceStart, offset, buffer);
+						sourceStart = offset;
+
+						if(chars[offset + 2] == '-') {
+							// look for -->
+							offset = scanBeyondComment(chars, offset, length);
+							type = Type.DECREMENT;
+						} else if(chars[offset + 2] == '[') {
+							if(offset + 12 >= length) {
+								buffer.setLength(bufferLength);
+
+								return false;
+							}
+
+							// skip <![CDATA[]]>
+							offset = scanBeyondCData(chars, offset, length);
+						} else {
+							// assume entity declaration
+							// look for >
+							offset = scanBeyondDTDEnd(chars, offset, length);
+							type = Type.DECREMENT;
+						}
+						// complete comment, cdata or entity declaration
+						buffer.append(chars, sourceStart, offset - sourceStart);
+						sourceStart = offset;
+
+						continue;
+					}
+					case '?' : {
+						// processing instruction
+						appendIfNotWhitespace(chars, sourceStart, offset, buffer);
+						sourceStart = offset;
+
+						offset = scanBeyondProcessingInstruction(chars, offset, length);
+
+						// <?xml version="1.0"?>
+						if(level == 0 && !declaration && isXMLDeclaration(chars, sourceStart, length)) {
+							// skip the whole XML declaration
+							sourceStart = offset;
+						} else {
+							type = Type.DECREMENT;
+
+							// complete processing instruction
+							buffer.append(chars, sourceStart, offset - sourceStart);
+							sourceStart = offset;
+						}
+						continue;
+					}
+					default : {
+						// start element
+						// flush bytes
+						appendIfNotWhitespace(chars, sourceStart, offset, buffer);
+						sourceStart = offset;
+
+						// scan to end of start element
+						offset = scanBeyondStartElement(chars, offset, length);
+
+						// see if empty start element
+						if(chars[offset - 2] == '/') {
+							// empty element
+							type = Type.DECREMENT;
+
+							// do not increment level
+						} else {
+							type = Type.INCREMENT;
+
+							level++;
+						}
+
+						// complete start tag
+						buffer.append(chars, sourceStart, offset - sourceStart);
+						sourceStart = offset;
+
+						continue;
+					}
+					}
+				}
+
+				offset++;
+			}
+
+			if(level != 0) {
+				buffer.setLength(bufferLength);
+
+				return false;
+			}
+
+			appendIfNotWhitespace(chars, sourceStart, length, buffer);
+		} catch(Exception e) {
+			buffer.setLength(bufferLength);
+
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int estimateOutputLength(char[] chars, int offset, int length) {
+		// never longer than the input
+		return length;
+	}
+
+	@Override
+	public String toString() {
+		return "PlainMinifyingPrettyPrinter [declaration=" + declaration + "]";
+	}
+
+}
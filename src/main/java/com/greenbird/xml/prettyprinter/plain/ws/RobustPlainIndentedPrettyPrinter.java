@@ -53,6 +53,8 @@ public class RobustPlainIndentedPrettyPrinter extends AbstractPlainIgnoreWhitesp
 	}
 
 	public boolean process(char[] chars, int offset, int length, StringBuilder buffer) {
+		ensureOutputCapacity(chars, offset, length, buffer);
+
 		return process(chars, offset, length, buffer, 0);
 	}
 
@@ -102,65 +104,24 @@ public class RobustPlainIndentedPrettyPrinter extends AbstractPlainIgnoreWhitesp
 								if(isEscapedXML(chars, offset, sourceStart)) {
 									int markLength = buffer.length();
 									int markSourceStart = sourceStart;
-									for(int k = sourceStart; k < offset; k++) {
-										if(chars[k] == '&') {
-											k++;
-											int l = k;
-											while(l < offset) {
-												if(chars[l] == ';') {
-
-													if(chars[k] == '#') {
-														// numeric entity
-														buffer.append(chars, sourceStart, l - sourceStart + 1);
-
-														sourceStart = l + 1;
-													} else {
-
-														buffer.append(chars, sourceStart, k - sourceStart - 1);
-														
-														if(appendEntity(l - k, chars, k, buffer)) {
-															sourceStart = l + 1;
-														} else {
-															// unknown entity? 
-															
-															if(ignoreInvalidTextNodeXML) {
-																// reset
-																buffer.setLength(markLength);
-																sourceStart = markSourceStart;
-																
-																break xml;
-															} else {
-																// report back negative result
-																buffer.setLength(bufferLength);
-																
-																return false;
-															}
-														}
-													}
-													
-													k = l; // increments +1 in for loop
-													
-													break;
-												}
-												l++;
-											}
+
+									char[] innerChars = getUnescapeBuffer(level, offset - sourceStart);
+									int innerLength = unescapeXML(chars, sourceStart, offset, innerChars);
+									if(innerLength == -1) {
+										// unknown entity? 
+										if(ignoreInvalidTextNodeXML) {
+											break xml;
+										} else {
+											// report back negative result
+											buffer.setLength(bufferLength);
 											
+											return false;
 										}
 									}
-								
-									if(sourceStart < offset) {
-										buffer.append(chars, sourceStart, offset - sourceStart);
-										sourceStart = offset;
-									}
+									sourceStart = offset;
 
-									// recursive call - expensive
-									// rip chars from buffer
-									char[] innerChars = new char[buffer.length() - markLength];
-									buffer.getChars(markLength, buffer.length(), innerChars, 0);
-									
-									// set buffer back to the length we had before unescaping
-									buffer.setLength(markLength);
-									if(!process(innerChars, 0, innerChars.length, buffer, level + 1)) {
+									// recursive call
+									if(!process(innerChars, 0, innerLength, buffer, level + 1)) {
 										// whoops just append the escaped text as chars
 										if(ignoreInvalidTextNodeXML) {
 											buffer.append(chars, markSourceStart, offset - markSourceStart);
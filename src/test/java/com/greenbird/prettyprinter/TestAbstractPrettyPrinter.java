@@ -1,12 +1,19 @@
 package com.greenbird.prettyprinter;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.greenbird.prettyprinter.utils.FileUtils;
 import com.greenbird.xml.prettyprinter.plain.AbstractPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength;
@@ -151,4 +158,140 @@ public class TestAbstractPrettyPrinter {
 		}
 	}
 
+	@Test
+	public void testWriterOutput() throws IOException {
+		StringBuilder xml = new StringBuilder("<parent>");
+		for(int i = 0; i < 1000; i++) {
+			xml.append("<child>text</child>");
+		}
+		xml.append("</parent>");
+		
+		PlainPrettyPrinter prettyPrinter = new PlainPrettyPrinter(true);
+
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml.toString(), expected));
+
+		StringWriter writer = new StringWriter();
+		Assert.assertTrue(prettyPrinter.process(xml.toString(), writer));
+		Assert.assertEquals(expected.toString(), writer.toString());
+		
+		StringBuffer stringBuffer = new StringBuffer();
+		Assert.assertTrue(prettyPrinter.process(xml.toString(), stringBuffer));
+		Assert.assertEquals(expected.toString(), stringBuffer.toString());
+	}
+
+	@Test
+	public void testWriterOutputUnaffectedByFailure() throws IOException {
+		PlainPrettyPrinter prettyPrinter = new PlainPrettyPrinter(true);
+
+		StringWriter writer = new StringWriter();
+		Assert.assertFalse(prettyPrinter.process("<parent><child></parent>", writer));
+		Assert.assertEquals(0, writer.getBuffer().length());
+	}
+
+	@Test
+	public void testWriterPartialOutputOnFailure() throws IOException {
+		StringBuilder xml = new StringBuilder("<parent>");
+		for(int i = 0; i < 10000; i++) {
+			xml.append("<child>text</child>");
+		}
+		
+		PlainPrettyPrinter prettyPrinter = new PlainPrettyPrinter(true);
+
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml + "</parent>", expected));
+
+		// missing end element, only known at the end of the document
+		StringWriter writer = new StringWriter();
+		Assert.assertFalse(prettyPrinter.process(xml.toString(), writer));
+		Assert.assertTrue(writer.getBuffer().length() > 0);
+		Assert.assertTrue(expected.toString().startsWith(writer.toString()));
+	}
+
+	@Test
+	public void testBatch() {
+		MultiFilterPlainPrettyPrinter prettyPrinter = new MultiFilterPlainPrettyPrinter(false, new String[]{"/a/b"}, null, '\t', 1);
+		
+		List<CharSequence> documents = new ArrayList<CharSequence>();
+		documents.add("<a><b>secret</b></a>");
+		documents.add(new StringBuilder("<a><b>"));
+		documents.add(CharBuffer.wrap("<a><c>public</c></a>"));
+		
+		StringBuilder output = new StringBuilder("prefix");
+		int[] offsets = new int[documents.size() + 1];
+		boolean[] results = new boolean[documents.size()];
+		
+		Assert.assertEquals(2, prettyPrinter.processBatch(documents, output, offsets, results));
+		Assert.assertEquals("[true, false, true]", Arrays.toString(results));
+		
+		Assert.assertEquals(6, offsets[0]);
+		Assert.assertEquals(offsets[1], offsets[2]);
+		Assert.assertEquals(output.length(), offsets[3]);
+		
+		for(int i = 0; i < documents.size(); i++) {
+			StringBuilder expected = new StringBuilder();
+			prettyPrinter.process(documents.get(i).toString(), expected);
+			
+			Assert.assertEquals(expected.toString(), output.substring(offsets[i], offsets[i + 1]));
+		}
+		
+		// char arrays
+		char[][] chars = new char[documents.size()][];
+		int[] documentOffsets = new int[documents.size()];
+		int[] documentLengths = new int[documents.size()];
+		for(int i = 0; i < documents.size(); i++) {
+			chars[i] = (" " + documents.get(i)).toCharArray();
+			documentOffsets[i] = 1;
+			documentLengths[i] = chars[i].length - 1;
+		}
+		
+		StringBuilder charsOutput = new StringBuilder("prefix");
+		Assert.assertEquals(2, prettyPrinter.processBatch(chars, documentOffsets, documentLengths, charsOutput, new int[documents.size() + 1], null));
+		Assert.assertEquals(output.toString(), charsOutput.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchOffsetsTooShort() {
+		new PlainPrettyPrinter(false).processBatch(Arrays.asList("<a/>", "<b/>"), new StringBuilder(), new int[2], null);
+	}
+
+	@Test
+	public void testEstimateOutputLength() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+		Assert.assertFalse(files.isEmpty());
+
+		PlainPrettyPrinter[] prettyPrinters = new PlainPrettyPrinter[]{new PlainPrettyPrinter(true), new PlainPrettyPrinter(false, ' ', 4)};
+		for(PlainPrettyPrinter prettyPrinter : prettyPrinters) {
+			for(File file : files) {
+				char[] chars = FileUtils.read(file).toCharArray();
+
+				StringBuilder output = new StringBuilder();
+				if(prettyPrinter.process(chars, 0, chars.length, output)) {
+					int estimate = prettyPrinter.estimateOutputLength(chars, 0, chars.length);
+					Assert.assertTrue(file + ": " + output.length() + " > " + estimate, output.length() <= estimate);
+				}
+			}
+		}
+		String xml = "<a><b>c</b><d/><!-- e --></a>";
+		// the end tag after the text node is not indented, otherwise exact
+		Assert.assertEquals("\n<a>\n\t<b>c</b>\n\t<d/>\n\t<!-- e -->\n</a>".length() + "\n\t".length(), new PlainPrettyPrinter(false).estimateOutputLength(xml.toCharArray(), 0, xml.length()));
+	}
+
+	@Test
+	public void testOutputGrowsOnce() {
+		StringBuilder builder = new StringBuilder("<root>");
+		for(int i = 0; i < 10000; i++) {
+			builder.append("<a><b>").append(i).append("</b><c/></a>");
+		}
+		builder.append("</root>");
+		char[] chars = builder.toString().toCharArray();
+
+		PlainPrettyPrinter prettyPrinter = new PlainPrettyPrinter(false);
+		int estimate = prettyPrinter.estimateOutputLength(chars, 0, chars.length);
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(chars, 0, chars.length, output));
+		Assert.assertTrue(output.length() <= estimate);
+		Assert.assertEquals(estimate, output.capacity());
+	}
 }
@@ -0,0 +1,259 @@
+package com.greenbird.prettyprinter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.async.AsyncPrettyPrinter;
+import com.greenbird.xml.prettyprinter.async.Backpressure;
+import com.greenbird.xml.prettyprinter.async.PrettyPrinterCallback;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
+
+/**
+ * 
+ * Test asynchronous pretty-printing and backpressure policies.
+ * 
+ * @author thomas
+ *
+ */
+
+public class TestAsyncPrettyPrinter {
+
+	private static final String XML = "<a><b>c</b></a>";
+	private static final String INVALID_XML = "<a><b>c</b>";
+
+	/** callback which holds the worker thread until released */
+	private static class BlockingCallback implements PrettyPrinterCallback {
+
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		public void onResult(String input, String output, boolean prettyPrinted) {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Test
+	public void testSameAsSynchronous() throws Exception {
+		PrettyPrinter prettyPrinter = new PlainPrettyPrinter(false);
+
+		AsyncPrettyPrinter asyncPrettyPrinter = new AsyncPrettyPrinter(prettyPrinter, 16, Backpressure.BLOCK, 4, AsyncPrettyPrinter.newDaemonThreadFactory());
+		try {
+			List<String> inputs = new ArrayList<String>();
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+			for(int i = 0; i < 1000; i++) {
+				String xml = i % 10 == 0 ? INVALID_XML : "<a><b>" + i + "</b></a>";
+				inputs.add(xml);
+				futures.add(asyncPrettyPrinter.submit(xml));
+			}
+
+			for(int i = 0; i < inputs.size(); i++) {
+				StringBuilder expected = new StringBuilder();
+				if(!prettyPrinter.process(inputs.get(i), expected)) {
+					expected.append(inputs.get(i));
+				}
+				Assert.assertEquals(expected.toString(), futures.get(i).get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			asyncPrettyPrinter.shutdown();
+		}
+		Assert.assertTrue(asyncPrettyPrinter.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testShutdownCompletesAcceptedSubmissions() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		PrettyPrinterCallback callback = new PrettyPrinterCallback() {
+			public void onResult(String input, String output, boolean prettyPrinted) {
+				if(prettyPrinted) {
+					count.incrementAndGet();
+				}
+			}
+		};
+
+		AsyncPrettyPrinter asyncPrettyPrinter = new AsyncPrettyPrinter(new PlainPrettyPrinter(false), 4, Backpressure.BLOCK, 2);
+		for(int i = 0; i < 100; i++) {
+			Assert.assertTrue(asyncPrettyPrinter.submit(XML, callback));
+		}
+		asyncPrettyPrinter.shutdown();
+		Assert.assertTrue(asyncPrettyPrinter.awaitTermination(10, TimeUnit.SECONDS));
+		Assert.assertEquals(100, count.get());
+
+		try {
+			asyncPrettyPrinter.submit(XML, callback);
+			Assert.fail();
+		} catch(IllegalStateException e) {
+			// pass
+		}
+	}
+
+	@Test
+	public void testDrop() throws Exception {
+		BlockingCallback blocking = new BlockingCallback();
+
+		AsyncPrettyPrinter asyncPrettyPrinter = new AsyncPrettyPrinter(new PlainPrettyPrinter(false), 1, Backpressure.DROP, 1, AsyncPrettyPrinter.newDaemonThreadFactory());
+		try {
+			// occupy the worker, then the queue
+			Assert.assertTrue(asyncPrettyPrinter.submit(XML, blocking));
+			Assert.assertTrue(blocking.started.await(10, TimeUnit.SECONDS));
+			Future<String> queued = asyncPrettyPrinter.submit(XML);
+
+			Future<String> dropped = asyncPrettyPrinter.submit(XML);
+			Assert.assertTrue(dropped.isDone());
+			Assert.assertTrue(dropped.isCancelled());
+
+			blocking.release.countDown();
+			Assert.assertEquals("\n<a>\n\t<b>c</b>\n</a>", queued.get(10, TimeUnit.SECONDS));
+		} finally {
+			blocking.release.countDown();
+			asyncPrettyPrinter.shutdown();
+		}
+	}
+
+	@Test
+	public void testPassThrough() throws Exception {
+		BlockingCallback blocking = new BlockingCallback();
+
+		AsyncPrettyPrinter asyncPrettyPrinter = new AsyncPrettyPrinter(new PlainPrettyPrinter(false), 1, Backpressure.PASS_THROUGH, 1, AsyncPrettyPrinter.newDaemonThreadFactory());
+		try {
+			Assert.assertTrue(asyncPrettyPrinter.submit(XML, blocking));
+			Assert.assertTrue(blocking.started.await(10, TimeUnit.SECONDS));
+			Assert.assertTrue(asyncPrettyPrinter.submit(XML, new BlockingCallback() {
+				@Override
+				public void onResult(String input, String output, boolean prettyPrinted) {
+					// not called on this thread
+				}
+			}));
+
+			final Thread thread = Thread.currentThread();
+			final AtomicInteger passed = new AtomicInteger();
+			Assert.assertTrue(asyncPrettyPrinter.submit(XML, new PrettyPrinterCallback() {
+				public void onResult(String input, String output, boolean prettyPrinted) {
+					if(Thread.currentThread() == thread && !prettyPrinted && output == input) {
+						passed.incrementAndGet();
+					}
+				}
+			}));
+			Assert.assertEquals(1, passed.get());
+		} finally {
+			blocking.release.countDown();
+			asyncPrettyPrinter.shutdown();
+		}
+	}
+
+	@Test
+	public void testVirtualThreads() throws Exception {
+		if(AsyncPrettyPrinter.newVirtualThreadFactory() == null) {
+			// not supported by this JVM
+			return;
+		}
+		AsyncPrettyPrinter asyncPrettyPrinter = new AsyncPrettyPrinter(new PlainPrettyPrinter(false), 8, Backpressure.BLOCK, 16, AsyncPrettyPrinter.newVirtualThreadFactory());
+		try {
+			Assert.assertEquals("\n<a>\n\t<b>c</b>\n</a>", asyncPrettyPrinter.submit(XML).get(10, TimeUnit.SECONDS));
+		} finally {
+			asyncPrettyPrinter.shutdown();
+		}
+		Assert.assertTrue(asyncPrettyPrinter.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testMultipleProducers() throws Exception {
+		final int producers = 32;
+		final int submissions = 20000;
+
+		final AtomicInteger results = new AtomicInteger();
+		final PrettyPrinterCallback callback = new PrettyPrinterCallback() {
+			public void onResult(String input, String output, boolean prettyPrinted) {
+				if(prettyPrinted) {
+					results.incrementAndGet();
+				}
+			}
+		};
+
+		// record workers which die
+		final AtomicInteger failures = new AtomicInteger();
+		final ThreadFactory threadFactory = AsyncPrettyPrinter.newDaemonThreadFactory();
+		ThreadFactory recordingThreadFactory = new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = threadFactory.newThread(runnable);
+				thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+					public void uncaughtException(Thread t, Throwable e) {
+						failures.incrementAndGet();
+					}
+				});
+				return thread;
+			}
+		};
+
+		// small capacity, so that producers and workers keep waiting for each other
+		final AsyncPrettyPrinter asyncPrettyPrinter = new AsyncPrettyPrinter(new PlainPrettyPrinter(false), 4, Backpressure.BLOCK, 8, recordingThreadFactory);
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int i = 0; i < producers; i++) {
+			threads.add(new Thread() {
+				public void run() {
+					for(int k = 0; k < submissions; k++) {
+						Assert.assertTrue(asyncPrettyPrinter.submit(XML, callback));
+					}
+				}
+			});
+		}
+		for(Thread thread : threads) {
+			thread.start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertFalse(asyncPrettyPrinter.isTerminated());
+
+		asyncPrettyPrinter.shutdown();
+		Assert.assertTrue(asyncPrettyPrinter.awaitTermination(60, TimeUnit.SECONDS));
+
+		Assert.assertEquals(producers * submissions, results.get());
+		Assert.assertEquals(0, failures.get());
+	}
+
+	@Test
+	public void testProcessingException() throws Exception {
+		PrettyPrinter prettyPrinter = new PlainPrettyPrinter(false) {
+			@Override
+			public boolean process(String xml, StringBuilder output) {
+				if(xml.equals(INVALID_XML)) {
+					throw new IllegalStateException();
+				}
+				return super.process(xml, output);
+			}
+		};
+		AsyncPrettyPrinter asyncPrettyPrinter = new AsyncPrettyPrinter(prettyPrinter, 4, Backpressure.BLOCK, 1, AsyncPrettyPrinter.newDaemonThreadFactory());
+		try {
+			Future<String> future = asyncPrettyPrinter.submit(INVALID_XML);
+			try {
+				future.get(10, TimeUnit.SECONDS);
+
+				Assert.fail();
+			} catch(ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+
+			// worker still alive
+			Assert.assertEquals("\n<a>\n\t<b>c</b>\n</a>", asyncPrettyPrinter.submit(XML).get(10, TimeUnit.SECONDS));
+		} finally {
+			asyncPrettyPrinter.shutdown();
+		}
+		Assert.assertTrue(asyncPrettyPrinter.awaitTermination(10, TimeUnit.SECONDS));
+	}
+}
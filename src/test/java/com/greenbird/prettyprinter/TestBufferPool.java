@@ -0,0 +1,137 @@
+package com.greenbird.prettyprinter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.BufferPool;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+
+/**
+ *
+ * Test pooled output buffers.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestBufferPool {
+
+	@Test
+	public void testReuse() {
+		BufferPool pool = new BufferPool(64 * 1024, 1, 2);
+
+		StringBuilder builder = pool.acquireBuilder(100);
+		Assert.assertEquals(BufferPool.MIN_CAPACITY, builder.capacity());
+		builder.append("abc");
+		pool.release(builder);
+
+		StringBuilder reused = pool.acquireBuilder(BufferPool.MIN_CAPACITY);
+		Assert.assertSame(builder, reused);
+		Assert.assertEquals(0, reused.length());
+
+		// empty pool
+		Assert.assertNotSame(builder, pool.acquireBuilder(100));
+
+		char[] chars = pool.acquireChars(5000);
+		Assert.assertEquals(2 * BufferPool.MIN_CAPACITY, chars.length);
+		pool.release(chars);
+		Assert.assertSame(chars, pool.acquireChars(10));
+	}
+
+	@Test
+	public void testSizeClasses() {
+		BufferPool pool = new BufferPool(64 * 1024, 1, 2);
+
+		StringBuilder small = new StringBuilder(BufferPool.MIN_CAPACITY);
+		StringBuilder large = new StringBuilder(3 * BufferPool.MIN_CAPACITY);
+		pool.release(small);
+		pool.release(large);
+
+		// small buffer does not satisfy a larger request
+		Assert.assertSame(large, pool.acquireBuilder(2 * BufferPool.MIN_CAPACITY));
+		Assert.assertSame(small, pool.acquireBuilder(1));
+	}
+
+	@Test
+	public void testRetainedCapacity() {
+		BufferPool pool = new BufferPool(64 * 1024, 1, 2);
+		Assert.assertEquals(64 * 1024, pool.getMaxRetainedCapacity());
+
+		StringBuilder huge = pool.acquireBuilder(1024 * 1024);
+		Assert.assertEquals(1024 * 1024, huge.capacity());
+		pool.release(huge);
+		Assert.assertNotSame(huge, pool.acquireBuilder(1024 * 1024));
+
+		// grown beyond the max retained capacity
+		StringBuilder builder = pool.acquireBuilder(1);
+		builder.ensureCapacity(128 * 1024);
+		pool.release(builder);
+		Assert.assertNotSame(builder, pool.acquireBuilder(1));
+
+		// slots are full
+		StringBuilder[] builders = new StringBuilder[3];
+		for(int i = 0; i < builders.length; i++) {
+			builders[i] = new StringBuilder(BufferPool.MIN_CAPACITY);
+		}
+		for(StringBuilder b : builders) {
+			pool.release(b);
+		}
+		Assert.assertSame(builders[0], pool.acquireBuilder(1));
+		Assert.assertSame(builders[1], pool.acquireBuilder(1));
+		Assert.assertNotSame(builders[2], pool.acquireBuilder(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalMaxRetainedCapacity() {
+		new BufferPool(BufferPool.MIN_CAPACITY - 1, 1, 1);
+	}
+
+	@Test
+	public void testProcess() {
+		PrettyPrinter prettyPrinter = PrettyPrinterFactory.newInstance().newPrettyPrinter();
+		BufferPool pool = BufferPool.getDefault();
+
+		String xml = "<a><b>c</b></a>";
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml, expected));
+
+		Assert.assertEquals(expected.toString(), pool.process(prettyPrinter, xml));
+		Assert.assertEquals(expected.toString(), pool.process(prettyPrinter, xml.toCharArray(), 0, xml.length()));
+		Assert.assertNull(pool.process(prettyPrinter, "<a><b>c</a>"));
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		final BufferPool pool = new BufferPool(64 * 1024, 2, 2);
+		final AtomicInteger failures = new AtomicInteger();
+
+		Thread[] threads = new Thread[4];
+		for(int i = 0; i < threads.length; i++) {
+			final String value = Integer.toString(i);
+			threads[i] = new Thread() {
+				public void run() {
+					for(int k = 0; k < 10000; k++) {
+						StringBuilder builder = pool.acquireBuilder(k % 10000);
+						if(builder.length() != 0) {
+							failures.incrementAndGet();
+						}
+						builder.append(value);
+						Thread.yield();
+						if(!builder.toString().equals(value)) {
+							failures.incrementAndGet();
+						}
+						pool.release(builder);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(0, failures.get());
+	}
+}
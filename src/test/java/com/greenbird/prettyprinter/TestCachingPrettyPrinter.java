@@ -0,0 +1,167 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.cache.CachingPrettyPrinter;
+import com.greenbird.xml.prettyprinter.cache.ResultCache;
+
+/**
+ *
+ * Test caching of pretty-printed results.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestCachingPrettyPrinter {
+
+	@Test
+	public void testCachedResult() throws Exception {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		ResultCache cache = new ResultCache(64 * 1024, 1024 * 1024);
+		PrettyPrinter prettyPrinter = factory.newCachingPrettyPrinter(cache);
+
+		String xml = "<a><b>1</b><c d=\"2\">3</c></a>";
+
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(factory.newPrettyPrinter().process(xml, expected));
+
+		for(int i = 0; i < 3; i++) {
+			StringBuilder output = new StringBuilder("prefix");
+			Assert.assertTrue(prettyPrinter.process(xml, output));
+			Assert.assertEquals("prefix" + expected, output.toString());
+
+			char[] chars = ("  " + xml + "  ").toCharArray();
+			output.setLength(0);
+			Assert.assertTrue(prettyPrinter.process(chars, 2, xml.length(), output));
+			Assert.assertEquals(expected.toString(), output.toString());
+
+			StringWriter writer = new StringWriter();
+			Assert.assertTrue(prettyPrinter.process(xml, writer));
+			Assert.assertEquals(expected.toString(), writer.toString());
+		}
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(8, cache.getHits());
+
+		// failures are not cached
+		Assert.assertFalse(prettyPrinter.process("<a><b>", new StringBuilder()));
+		Assert.assertFalse(prettyPrinter.process("<a><b>", new StringBuilder()));
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testConfigurations() throws Exception {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		PrettyPrinterFactory anonymizing = PrettyPrinterFactory.newInstance();
+		anonymizing.setAnonymizeFilters(new String[]{"/a/b"});
+
+		ResultCache cache = new ResultCache(64 * 1024, 1024 * 1024);
+		PrettyPrinter plain = factory.newCachingPrettyPrinter(cache);
+		PrettyPrinter filtered = anonymizing.newCachingPrettyPrinter(cache);
+
+		String xml = "<a><b>secret</b></a>";
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(plain.process(xml, output));
+		Assert.assertTrue(output.indexOf("secret") != -1);
+
+		output.setLength(0);
+		Assert.assertTrue(filtered.process(xml, output));
+		Assert.assertTrue(output.indexOf("secret") == -1);
+
+		Assert.assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testCollision() {
+		ResultCache cache = new ResultCache(1024, 4096);
+		Object configuration = new Object();
+
+		char[] input = "<a/>".toCharArray();
+		Assert.assertTrue(cache.put(1L, configuration, input, new StringBuilder("<a/>"), 0));
+
+		// same hash, different input or configuration
+		Assert.assertNull(cache.get(1L, configuration, "<b/>".toCharArray(), 0, 4));
+		Assert.assertNull(cache.get(1L, new Object(), "<a/>"));
+		Assert.assertEquals(2, cache.getCollisions());
+		Assert.assertFalse(cache.put(1L, configuration, "<b/>".toCharArray(), new StringBuilder("<b/>"), 0));
+
+		Assert.assertArrayEquals(input, cache.get(1L, configuration, "<a/>"));
+		Assert.assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void testHash() {
+		char[] chars = "x<a><b>c</b></a>x".toCharArray();
+		String string = new String(chars, 1, chars.length - 2);
+
+		Assert.assertEquals(ResultCache.hash(17, string), ResultCache.hash(17, chars, 1, chars.length - 2));
+		Assert.assertNotEquals(ResultCache.hash(17, string), ResultCache.hash(18, string));
+		Assert.assertNotEquals(ResultCache.hash(17, "<a/>"), ResultCache.hash(17, "<b/>"));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		ResultCache cache = new ResultCache(1024, 8 * 1024);
+		PrettyPrinter prettyPrinter = new CachingPrettyPrinter(PrettyPrinterFactory.newInstance().newPrettyPrinter(), cache);
+
+		String hot = "<hot><a>1</a></hot>";
+		for(int i = 0; i < 1000; i++) {
+			Assert.assertTrue(prettyPrinter.process(hot, new StringBuilder()));
+			Assert.assertTrue(prettyPrinter.process("<a><b>" + i + "</b></a>", new StringBuilder()));
+
+			Assert.assertTrue(cache.getBytes() <= cache.getMaxBytes());
+		}
+		Assert.assertTrue(cache.getEvictions() > 0);
+
+		// referenced entries get a second chance
+		Assert.assertTrue(cache.getHits() >= 990);
+
+		// too large to be cached
+		char[] large = new char[1024];
+		Arrays.fill(large, 'x');
+		String xml = "<a>" + new String(large) + "</a>";
+		Assert.assertTrue(prettyPrinter.process(xml, new StringBuilder()));
+		Assert.assertTrue(prettyPrinter.process(xml, new StringBuilder()));
+		Assert.assertTrue(cache.getHits() < 1000);
+
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.getBytes());
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		PrettyPrinter plain = PrettyPrinterFactory.newInstance().newPrettyPrinter();
+		PrettyPrinter prettyPrinter = new CachingPrettyPrinter(plain, new ResultCache(1024 * 1024, 16 * 1024 * 1024));
+
+		for(File file : FileUtils.getXMLFiles(new File("src/test/resources"))) {
+			String xml = FileUtils.read(file);
+
+			StringBuilder expected = new StringBuilder();
+			boolean result = plain.process(xml, expected);
+
+			for(int i = 0; i < 2; i++) {
+				StringBuilder output = new StringBuilder();
+				Assert.assertEquals(file.toString(), result, prettyPrinter.process(xml, output));
+				if(result) {
+					Assert.assertEquals(file.toString(), expected.toString(), output.toString());
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalSize() {
+		new ResultCache(1024, 512);
+	}
+}
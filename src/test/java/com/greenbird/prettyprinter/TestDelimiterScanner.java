@@ -0,0 +1,79 @@
+package com.greenbird.prettyprinter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.plain.DelimiterScanner;
+import com.greenbird.xml.prettyprinter.plain.ScalarDelimiterScanner;
+
+/**
+ *
+ * Test delimiter scanners. The vector scanner is only tested when running with the <code>jdk.incubator.vector</code> module.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestDelimiterScanner {
+
+	private static final char[] DELIMITERS = new char[]{'<', '>', '&'};
+
+	@Test
+	public void testScanners() {
+		List<DelimiterScanner> scanners = new ArrayList<DelimiterScanner>();
+		scanners.add(new ScalarDelimiterScanner());
+		try {
+			scanners.add((DelimiterScanner)Class.forName("com.greenbird.xml.prettyprinter.plain.vector.VectorDelimiterScanner").getConstructor().newInstance());
+		} catch(Exception e) {
+			// not compiled
+		} catch(LinkageError e) {
+			// module not present
+		}
+
+		Random random = new Random(1);
+		char[] chars = new char[300];
+		for(int i = 0; i < 50; i++) {
+			for(int k = 0; k < chars.length; k++) {
+				if(random.nextInt(100) == 0) {
+					chars[k] = DELIMITERS[random.nextInt(DELIMITERS.length)];
+				} else {
+					// include characters which equal a delimiter in the low byte
+					chars[k] = (char)(random.nextBoolean() ? 'a' + random.nextInt(26) : 0x3C00 + random.nextInt(0x100));
+				}
+			}
+			for(DelimiterScanner scanner : scanners) {
+				for(char c : DELIMITERS) {
+					for(int offset = 0; offset < chars.length; offset += 1 + random.nextInt(7)) {
+						int limit = offset + random.nextInt(chars.length - offset + 1);
+						Assert.assertEquals(scanner.toString(), indexOf(chars, offset, limit, c), scanner.indexOf(chars, offset, limit, c));
+					}
+				}
+				for(int offset = 0; offset < chars.length; offset += 1 + random.nextInt(7)) {
+					int limit = offset + random.nextInt(chars.length - offset + 1);
+					Assert.assertEquals(scanner.toString(), indexOfDelimiter(chars, offset, limit), scanner.indexOfDelimiter(chars, offset, limit));
+				}
+			}
+		}
+	}
+
+	private static int indexOf(char[] chars, int offset, int limit, char c) {
+		for(int i = offset; i < limit; i++) {
+			if(chars[i] == c) {
+				return i;
+			}
+		}
+		return limit;
+	}
+
+	private static int indexOfDelimiter(char[] chars, int offset, int limit) {
+		int index = limit;
+		for(char c : DELIMITERS) {
+			index = Math.min(index, indexOf(chars, offset, limit, c));
+		}
+		return index;
+	}
+}
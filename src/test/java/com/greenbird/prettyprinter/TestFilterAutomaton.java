@@ -0,0 +1,112 @@
+package com.greenbird.prettyprinter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractFilterPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+import com.greenbird.xml.prettyprinter.plain.filter.FilterAutomaton;
+import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinter;
+
+/**
+ *
+ * Test compiled absolute path filters.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestFilterAutomaton {
+
+	@Test
+	public void testWildcards() {
+		List<char[][]> paths = new ArrayList<char[][]>();
+		List<FilterType> filterTypes = new ArrayList<FilterType>();
+
+		paths.add(new char[][]{"a".toCharArray(), "*".toCharArray(), "c".toCharArray()});
+		filterTypes.add(FilterType.ANON);
+		paths.add(new char[][]{"a".toCharArray(), "b".toCharArray(), "c".toCharArray()});
+		filterTypes.add(FilterType.PRUNE);
+		paths.add(new char[][]{"a".toCharArray(), "b".toCharArray()});
+		filterTypes.add(FilterType.ANON);
+
+		FilterAutomaton automaton = new FilterAutomaton(paths, filterTypes);
+
+		int a = next(automaton, FilterAutomaton.START, "a");
+		Assert.assertNull(automaton.getFilterType(a));
+
+		int ab = next(automaton, a, "b");
+		Assert.assertEquals(FilterType.ANON, automaton.getFilterType(ab));
+		// prune takes precedence
+		Assert.assertEquals(FilterType.PRUNE, automaton.getFilterType(next(automaton, ab, "c")));
+		Assert.assertEquals(FilterAutomaton.NONE, next(automaton, ab, "d"));
+
+		int ax = next(automaton, a, "x");
+		Assert.assertNull(automaton.getFilterType(ax));
+		Assert.assertEquals(FilterType.ANON, automaton.getFilterType(next(automaton, ax, "c")));
+
+		Assert.assertEquals(FilterAutomaton.NONE, next(automaton, FilterAutomaton.START, "b"));
+		Assert.assertEquals(FilterAutomaton.NONE, next(automaton, FilterAutomaton.NONE, "a"));
+	}
+
+	@Test
+	public void testManyFilters() {
+		String[] anonymizes = new String[500];
+		for(int i = 0; i < anonymizes.length; i++) {
+			anonymizes[i] = "/parent/child" + i + "/value";
+		}
+
+		MultiFilterPlainPrettyPrinter prettyPrinter = new MultiFilterPlainPrettyPrinter(false, anonymizes, new String[]{"/parent/child250"}, '\t', 1);
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process("<parent><child7><value>secret</value></child7><child250><value>secret</value></child250><child>public</child></parent>", output));
+
+		Assert.assertEquals("\n<parent>\n\t<child7>\n\t\t<value>" + AbstractFilterPrettyPrinter.FILTER_ANONYMIZE_MESSAGE + "</value>\n\t</child7>\n\t<child250>\n\t\t" + AbstractFilterPrettyPrinter.FILTER_PRUNE_MESSAGE + "\n\t</child250>\n\t<child>public</child>\n</parent>", output.toString());
+	}
+
+	@Test
+	public void testMatchStateReused() throws Exception {
+		final MultiFilterPlainPrettyPrinter prettyPrinter = new MultiFilterPlainPrettyPrinter(false, new String[]{"/a/b", "/a/c/@d"}, new String[]{"/a/e"}, '\t', 1);
+		final String xml = "<a><b>1</b><c d=\"2\">3</c><e><f/></e></a>";
+		
+		final StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml, expected));
+		
+		// leave state in the middle of a document
+		Assert.assertFalse(prettyPrinter.process("<a><c d=\"2\"><b>", new StringBuilder()));
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml, output));
+		Assert.assertEquals(expected.toString(), output.toString());
+		
+		final AtomicInteger failures = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for(int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for(int k = 0; k < 1000; k++) {
+						StringBuilder output = new StringBuilder();
+						if(!prettyPrinter.process(xml, output) || !expected.toString().equals(output.toString())) {
+							failures.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(0, failures.get());
+	}
+
+	private static int next(FilterAutomaton automaton, int state, String name) {
+		char[] chars = ("<" + name + ">").toCharArray();
+
+		return automaton.next(state, chars, 1, chars.length - 1);
+	}
+}
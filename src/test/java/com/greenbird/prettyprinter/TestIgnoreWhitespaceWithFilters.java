@@ -0,0 +1,114 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainIndentedPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.ws.PlainMinifyingPrettyPrinter;
+
+/**
+ *
+ * Test that already indented XML is filtered and re-indented in a single pass.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestIgnoreWhitespaceWithFilters {
+
+	private static final String INDENTED = "<a>\n"
+			+ "  <b>  text  </b>\n"
+			+ "  <c>mixed <d/> content</c>\n"
+			+ "  <!-- comment -->\n"
+			+ "  <e><![CDATA[ cdata ]]></e>\n"
+			+ "  <g>\r\n"
+			+ "    <h>secret</h>\n"
+			+ "  </g>\n"
+			+ "</a>\n";
+
+	@Test
+	public void testFilters() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setIgnoreWhitespace(true);
+		factory.setAnonymizeFilters(new String[]{"//h"});
+		factory.setPruneFilters(new String[]{"/a/c"});
+
+		PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+		Assert.assertTrue(prettyPrinter instanceof MultiFilterPlainIndentedPrettyPrinter);
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(INDENTED, output));
+		Assert.assertEquals("\n<a>\n\t<b>  text  </b>\n\t<c>\n\t\t<!-- [SUBTREE REMOVED] -->\n\t</c>\n\t<!-- comment -->\n\t<e><![CDATA[ cdata ]]></e>\n\t<g>\n\t\t<h>[*****]</h>\n\t</g>\n</a>", output.toString());
+
+		factory.setMaxTextNodeLength(4);
+		prettyPrinter = factory.newPrettyPrinter();
+		Assert.assertTrue(prettyPrinter instanceof MultiFilterPlainIndentedPrettyPrinter);
+
+		output.setLength(0);
+		Assert.assertTrue(prettyPrinter.process(INDENTED, output));
+		Assert.assertEquals("\n<a>\n\t<b>  te...[TRUNCATED BY 4]</b>\n\t<c>\n\t\t<!-- [SUBTREE REMOVED] -->\n\t</c>\n\t<!-- comment -->\n\t<e><![CDATA[ cdata ]]></e>\n\t<g>\n\t\t<h>[*****]</h>\n\t</g>\n</a>", output.toString());
+
+		// not well-formed
+		output.setLength(0);
+		Assert.assertFalse(prettyPrinter.process("<a>\n\t<b>\n</a>", output));
+		Assert.assertEquals(0, output.length());
+
+		// incomplete
+		for(String xml : new String[]{"<", "<a", "a<", "<a/><", "<a>\n <b><![CDATA[x"}) {
+			Assert.assertFalse(xml, prettyPrinter.process(xml, output));
+			Assert.assertEquals(0, output.length());
+		}
+	}
+
+	@Test
+	public void testMaxNodeLength() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setIgnoreWhitespace(true);
+		factory.setMaxCDATANodeLength(3);
+
+		PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+		Assert.assertTrue(prettyPrinter instanceof MultiFilterPlainIndentedPrettyPrinter);
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(INDENTED, output));
+		Assert.assertEquals("\n<a>\n\t<b>  text  </b>\n\t<c>mixed \n\t\t<d/> content\n\t</c>\n\t<!-- comment -->\n\t<e><![CDATA[ cd...[TRUNCATED BY 4]]]></e>\n\t<g>\n\t\t<h>secret</h>\n\t</g>\n</a>", output.toString());
+	}
+
+	@Test
+	public void testSameAsTwoPasses() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+
+		PrettyPrinter minifying = new PlainMinifyingPrettyPrinter(true);
+
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setXmlDeclaration(true);
+		factory.setAnonymizeFilters(new String[]{"//child", "/parent/@attr"});
+		factory.setPruneFilters(new String[]{"/parent/child/subchild"});
+		factory.setMaxTextNodeLength(16);
+		factory.setMaxCDATANodeLength(16);
+		PrettyPrinter filtering = factory.newPrettyPrinter();
+
+		factory.setIgnoreWhitespace(true);
+		PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+
+		for(File file : files) {
+			String xml = FileUtils.read(file);
+
+			StringBuilder minified = new StringBuilder();
+			StringBuilder expected = new StringBuilder();
+			if(!minifying.process(xml, minified) || !filtering.process(minified.toString(), expected)) {
+				continue;
+			}
+
+			StringBuilder output = new StringBuilder();
+			Assert.assertTrue(file.toString(), prettyPrinter.process(xml, output));
+			Assert.assertEquals(file.toString(), expected.toString(), output.toString());
+		}
+	}
+}
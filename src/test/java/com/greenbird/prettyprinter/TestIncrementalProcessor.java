@@ -0,0 +1,217 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.IncrementalPrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterWithMaxNodeLength;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.filter.SingleFilterPlainPrettyPrinter;
+
+/**
+ * 
+ * Test that reading XML in chunks gives the same result as processing the whole document.
+ * 
+ * @author thomas
+ *
+ */
+
+public class TestIncrementalProcessor {
+
+	private static final String[] ANONYMIZES = new String[]{"/aparent/achild/@attr", "/parent/child/grandchild", "//Price", "/Envelope/Body/*/*"};
+	private static final String[] PRUNES = new String[]{"//agrandchild", "/parent/child", "//Body"};
+
+	/** reader which returns few characters at a time, so that constructs are split between chunks */
+	private static class TrickleReader extends Reader {
+		
+		private final Reader reader;
+		private final Random random;
+		
+		public TrickleReader(String xml, long seed) {
+			this.reader = new StringReader(xml);
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			return reader.read(cbuf, off, Math.min(len, 1 + random.nextInt(13)));
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+	
+	@Test
+	public void testSameAsWholeDocument() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+		Assert.assertFalse(files.isEmpty());
+
+		PrettyPrinter[] prettyPrinters = new PrettyPrinter[]{
+				new PlainPrettyPrinter(true), 
+				new PlainPrettyPrinter(false, ' ', 2), 
+				new PlainPrettyPrinterWithMaxNodeLength(true, 16, 16, '\t', 1), // not incremental
+				new MultiFilterPlainPrettyPrinter(true, ANONYMIZES, null, '\t', 1),
+				new MultiFilterPlainPrettyPrinter(false, new String[]{"/aparent/achild/@*"}, PRUNES, '\t', 1),
+				// element filters only
+				new MultiFilterPlainPrettyPrinter(true, new String[]{"//b"}, new String[]{"//c"}, '\t', 1),
+				new MultiFilterPlainPrettyPrinter(true, new String[]{"/aparent/achild"}, null, '\t', 1),
+				new SingleFilterPlainPrettyPrinter(true, "//b", FilterType.ANON, '\t', 1),
+				new SingleFilterPlainPrettyPrinter(true, "/aparent/achild", FilterType.PRUNE, '\t', 1)
+		};
+		
+		for(PrettyPrinter prettyPrinter : prettyPrinters) {
+			for(int i = 0; i < files.size(); i++) {
+				File file = files.get(i);
+				String xml = FileUtils.read(file);
+				
+				StringBuilder expected = new StringBuilder();
+				boolean success = prettyPrinter.process(xml, expected);
+				
+				StringBuilder output = new StringBuilder("prefix");
+				Assert.assertEquals(file + " / " + prettyPrinter, success, prettyPrinter.process(new TrickleReader(xml, i), output));
+				if(success) {
+					Assert.assertEquals(file + " / " + prettyPrinter, "prefix" + expected, output.toString());
+					
+					StringWriter writer = new StringWriter();
+					Assert.assertTrue(prettyPrinter.process(new TrickleReader(xml, i), writer));
+					Assert.assertEquals(file + " / " + prettyPrinter, expected.toString(), writer.toString());
+				} else {
+					Assert.assertEquals(file + " / " + prettyPrinter, "prefix", output.toString());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConstructLargerThanChunk() throws IOException {
+		StringBuilder xml = new StringBuilder("<parent><child attribute=\"");
+		for(int i = 0; i < 100 * 1024; i++) {
+			xml.append((char)('a' + i % 26));
+		}
+		xml.append("\">text</child><!-- ");
+		for(int i = 0; i < 100 * 1024; i++) {
+			xml.append((char)('a' + i % 26));
+		}
+		xml.append(" --></parent>");
+		
+		PlainPrettyPrinter prettyPrinter = new PlainPrettyPrinter(true);
+
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml.toString(), expected));
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(new StringReader(xml.toString()), output));
+		Assert.assertEquals(expected.toString(), output.toString());
+	}
+	
+	@Test
+	public void testIncomplete() throws IOException {
+		PlainPrettyPrinter prettyPrinter = new PlainPrettyPrinter(true);
+
+		String[] xml = new String[]{"<parent><child>", "<parent></parent", "<parent><!-- x </parent>", "<parent><![CDATA[ </parent>", "<"};
+		for(String string : xml) {
+			StringBuilder output = new StringBuilder();
+			Assert.assertFalse(string, prettyPrinter.process(new StringReader(string), output));
+			Assert.assertEquals(0, output.length());
+		}
+	}
+
+	@Test
+	public void testSession() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+
+		PrettyPrinterFactory[] factories = new PrettyPrinterFactory[6];
+		for(int i = 0; i < factories.length; i++) {
+			factories[i] = PrettyPrinterFactory.newInstance();
+		}
+		factories[1].setAnonymizeFilters(ANONYMIZES);
+		factories[2].setAnonymizeFilters(new String[]{"/aparent/achild/@*"});
+		factories[2].setPruneFilters(PRUNES);
+		// element filters only
+		factories[3].setAnonymizeFilters(new String[]{"//b"});
+		factories[3].setPruneFilters(new String[]{"//c"});
+		factories[4].setAnonymizeFilters(new String[]{"/aparent/achild"});
+		factories[5].setPruneFilters(new String[]{"/aparent/achild"});
+		
+		for(PrettyPrinterFactory factory : factories) {
+			PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+			
+			StringWriter writer = new StringWriter();
+			IncrementalPrettyPrinter chars = factory.newIncrementalPrettyPrinter(writer);
+			
+			StringBuilder builder = new StringBuilder();
+			IncrementalPrettyPrinter bytes = factory.newIncrementalPrettyPrinter(builder);
+
+			for(int i = 0; i < files.size(); i++) {
+				File file = files.get(i);
+				String xml = FileUtils.read(file);
+				
+				StringBuilder expected = new StringBuilder();
+				if(!prettyPrinter.process(xml, expected)) {
+					continue;
+				}
+				
+				Random random = new Random(i);
+
+				writer.getBuffer().setLength(0);
+				char[] xmlChars = xml.toCharArray();
+				for(int k = 0; k < xmlChars.length;) {
+					int length = Math.min(xmlChars.length - k, random.nextInt(17));
+					Assert.assertTrue(file.toString(), chars.feed(xmlChars, k, length));
+					k += length;
+				}
+				Assert.assertTrue(file.toString(), chars.finish());
+				Assert.assertEquals(file.toString(), expected.toString(), writer.toString());
+
+				builder.setLength(0);
+				byte[] xmlBytes = xml.getBytes("UTF-8");
+				for(int k = 0; k < xmlBytes.length;) {
+					int length = Math.min(xmlBytes.length - k, random.nextInt(17));
+					Assert.assertTrue(file.toString(), bytes.feed(xmlBytes, k, length));
+					k += length;
+				}
+				Assert.assertTrue(file.toString(), bytes.finish());
+				Assert.assertEquals(file.toString(), expected.toString(), builder.toString());
+			}
+		}
+	}
+
+	@Test
+	public void testSessionFailure() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		IncrementalPrettyPrinter prettyPrinter = PrettyPrinterFactory.newInstance().newIncrementalPrettyPrinter(builder);
+		
+		Assert.assertTrue(prettyPrinter.feed("<a><b>".toCharArray(), 0, 6));
+		Assert.assertFalse(prettyPrinter.finish());
+		
+		// reusable after finish
+		builder.setLength(0);
+		Assert.assertTrue(prettyPrinter.feed("<a>".toCharArray(), 0, 3));
+		Assert.assertTrue(prettyPrinter.feed("</a>".toCharArray(), 0, 4));
+		Assert.assertTrue(prettyPrinter.finish());
+		Assert.assertEquals("\n<a></a>", builder.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSessionUnsupported() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setPrettyPrintCData(true);
+		factory.newIncrementalPrettyPrinter(new StringBuilder());
+	}
+
+}
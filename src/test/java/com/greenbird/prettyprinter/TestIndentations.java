@@ -60,6 +60,25 @@ public class TestIndentations extends AbstractNodeTest {
 		}
 	}
 	
+	@Test 
+	public void testSingleFilterSpaceIndentation() throws Exception {
+		String xml = "<xml><a><b/></a></xml>";
+		
+		for(int i = 1; i < 10; i++) {
+			PrettyPrinter[] prettyPrinters = new PrettyPrinter[]{
+					new SingleFilterPlainPrettyPrinter(true, "/xml/a/b", FilterType.PRUNE, ' ', i),
+					new SingleFilterPlainPrettyPrinterWithMaxNodeLength(true, "/xml/a/b", FilterType.PRUNE, 1024, 1024, ' ', i)
+			};
+			for(PrettyPrinter prettyPrinter : prettyPrinters) {
+				StringBuilder builder = new StringBuilder();
+				Assert.assertTrue(prettyPrinter.process(xml, builder));
+				
+				Assert.assertEquals(prettyPrinter.toString(), -1, builder.indexOf("\t"));
+				Assert.assertTrue(prettyPrinter.toString(), XMLUtils.isIndented(builder.toString(), i));
+			}
+		}
+	}
+	
 	public TestIndentations() throws XMLStreamException {
 		XMLOutputFactory factory = XMLOutputFactory.newFactory();
 		
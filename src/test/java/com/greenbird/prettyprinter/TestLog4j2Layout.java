@@ -0,0 +1,130 @@
+package com.greenbird.prettyprinter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.log4j2.XmlPrettyPrintLayout;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractFilterPrettyPrinter;
+
+/**
+ *
+ * Test the Log4j 2 layout.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestLog4j2Layout {
+
+	private static class Destination implements ByteBufferDestination {
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(64);
+		private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		public ByteBuffer getByteBuffer() {
+			return buffer;
+		}
+
+		public ByteBuffer drain(ByteBuffer buf) {
+			buf.flip();
+			output.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+			buf.clear();
+			return buf;
+		}
+
+		public void writeBytes(ByteBuffer data) {
+			while(data.hasRemaining()) {
+				if(!buffer.hasRemaining()) {
+					drain(buffer);
+				}
+				buffer.put(data.get());
+			}
+		}
+
+		public void writeBytes(byte[] data, int offset, int length) {
+			writeBytes(ByteBuffer.wrap(data, offset, length));
+		}
+
+		public String toString() {
+			drain(buffer);
+			return new String(output.toByteArray(), Charset.forName("UTF-8"));
+		}
+	}
+
+	private static XmlPrettyPrintLayout newLayout(String contextKey, String anonymize) {
+		return XmlPrettyPrintLayout.createLayout(new DefaultConfiguration(), "%level %msg", Charset.forName("UTF-8"), XmlPrettyPrintLayout.DEFAULT_MARKER, contextKey, false, false, false, false, false, false, -1, -1, anonymize, null, "space", 2);
+	}
+
+	private static LogEvent newEvent(Message message, boolean marker) {
+		Log4jLogEvent.Builder builder = Log4jLogEvent.newBuilder().setLevel(Level.INFO).setLoggerName("test").setMessage(message);
+		if(marker) {
+			builder.setMarker(MarkerManager.getMarker(XmlPrettyPrintLayout.DEFAULT_MARKER));
+		}
+		return builder.build();
+	}
+
+	@Test
+	public void testMarker() {
+		XmlPrettyPrintLayout layout = newLayout(null, null);
+
+		Assert.assertEquals("INFO Received \n<a>\n  <b>c</b>\n</a>", layout.toSerializable(newEvent(new ParameterizedMessage("Received {}", "<a><b>c</b></a>"), true)));
+		Assert.assertEquals("INFO \n<a>\n  <b>c</b>\n</a>", layout.toSerializable(newEvent(new SimpleMessage("<a><b>c</b></a>"), true)));
+
+		// not marked
+		Assert.assertEquals("INFO <a><b>c</b></a>", layout.toSerializable(newEvent(new SimpleMessage("<a><b>c</b></a>"), false)));
+		// invalid XML
+		Assert.assertEquals("INFO <a><b>c</a>", layout.toSerializable(newEvent(new SimpleMessage("<a><b>c</a>"), true)));
+	}
+
+	@Test
+	public void testContextKey() {
+		XmlPrettyPrintLayout layout = newLayout("xml", null);
+
+		SortedArrayStringMap contextData = new SortedArrayStringMap();
+		contextData.putValue("xml", "true");
+		LogEvent event = Log4jLogEvent.newBuilder().setLevel(Level.INFO).setMessage(new SimpleMessage("<a><b>c</b></a>")).setContextData(contextData).build();
+
+		Assert.assertEquals("INFO \n<a>\n  <b>c</b>\n</a>", layout.toSerializable(event));
+	}
+
+	@Test
+	public void testEncode() {
+		XmlPrettyPrintLayout layout = newLayout(null, "/a/b");
+
+		StringBuilder xml = new StringBuilder("<a>");
+		for(int i = 0; i < 100; i++) {
+			xml.append("<b>secret</b><c>\u00e6\u00f8\u00e5</c>");
+		}
+		xml.append("</a>");
+
+		StringBuilder expected = new StringBuilder("INFO \n<a>");
+		for(int i = 0; i < 100; i++) {
+			expected.append("\n  <b>" + AbstractFilterPrettyPrinter.FILTER_ANONYMIZE_MESSAGE + "</b>\n  <c>\u00e6\u00f8\u00e5</c>");
+		}
+		expected.append("\n</a>");
+
+		Destination destination = new Destination();
+		layout.encode(newEvent(new SimpleMessage(xml.toString()), true), destination);
+
+		Assert.assertEquals(expected.toString(), destination.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalIndentation() {
+		XmlPrettyPrintLayout.createLayout(new DefaultConfiguration(), "%msg", Charset.forName("UTF-8"), XmlPrettyPrintLayout.DEFAULT_MARKER, null, false, false, false, false, false, false, -1, -1, null, null, "tabs", 1);
+	}
+}
@@ -0,0 +1,153 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.log.LogStreamFormatter;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
+
+/**
+ *
+ * Test pretty-printing of XML documents embedded in lines of log text.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestLogStreamFormatter {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final LogStreamFormatter formatter = new LogStreamFormatter(new PlainPrettyPrinter(false));
+
+	private static String format(LogStreamFormatter formatter, String line) {
+		StringBuilder output = new StringBuilder();
+		formatter.processLine(line.toCharArray(), 0, line.length(), output);
+		return output.toString();
+	}
+
+	@Test
+	public void testLine() {
+		Assert.assertEquals("INFO payload=\n<a>\n\t<b>x</b>\n</a> status=200", format(formatter, "INFO payload=<a><b>x</b></a> status=200"));
+
+		// multiple documents and an empty element
+		Assert.assertEquals("request=\n<a>\n\t<b/>\n</a> response=\n<c/> a < b", format(formatter, "request=<a><b/></a> response=<c/> a < b"));
+
+		// namespaces, comments and nested elements of the same name
+		Assert.assertEquals("x \n<s:a>\n\t<!-- c -->\n\t<s:a>y</s:a>\n</s:a>\n", format(formatter, "x <s:a><!-- c --><s:a>y</s:a></s:a>\n"));
+	}
+
+	@Test
+	public void testNoFragment() {
+		String[] lines = new String[]{
+				"", "plain text", "a<b", "<a>", "<a><b>", "</a> <1> <", "<a attr=\"1\""
+		};
+		for(String line : lines) {
+			StringBuilder output = new StringBuilder();
+			Assert.assertEquals(line, 0, formatter.processLine(line.toCharArray(), 0, line.length(), output));
+			Assert.assertEquals(line, output.toString());
+		}
+	}
+
+	@Test
+	public void testUnclosedStartElements() {
+		// unclosed start elements before a fragment
+		Assert.assertEquals("List<String> <T> value=\n<a>1</a>", format(formatter, "List<String> <T> value=<a>1</a>"));
+
+		StringBuilder line = new StringBuilder("x ");
+		for(int i = 0; i < 40000; i++) {
+			line.append("<a>");
+		}
+		line.append(" <b>1</b>");
+
+		// would be quadratic without a cap on the number of scans to the end of the line
+		long start = System.currentTimeMillis();
+		StringBuilder output = new StringBuilder();
+		Assert.assertEquals(0, formatter.processLine(line.toString().toCharArray(), 0, line.length(), output));
+		Assert.assertEquals(line.toString(), output.toString());
+		Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+	}
+
+	@Test
+	public void testLines() throws Exception {
+		String log = "first <a>1</a>\r\nsecond <b><c/></b>\n\nlast <d>unterminated\n<e/>";
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertEquals(3, formatter.processLines(log.toCharArray(), 0, log.length(), output));
+		Assert.assertEquals("first \n<a>1</a>\r\nsecond \n<b>\n\t<c/>\n</b>\n\nlast <d>unterminated\n\n<e/>", output.toString());
+
+		StringBuilder reader = new StringBuilder();
+		Assert.assertEquals(3, formatter.process(new StringReader(log), reader));
+		Assert.assertEquals(output.toString(), reader.toString());
+	}
+
+	@Test
+	public void testInvalidFragment() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setAnonymizeFilters(new String[]{"//password"});
+		LogStreamFormatter formatter = factory.newLogStreamFormatter();
+
+		// balanced, but not well-formed, so pretty printing fails
+		String line = "user=<user><password>secret</password></user> bad=<a><!-- --</a>";
+		Assert.assertEquals("user=\n<user>\n\t<password>[*****]</password>\n</user> bad=<a><!-- --</a>", format(formatter, line));
+	}
+
+	@Test
+	public void testFile() throws Exception {
+		StringBuilder log = new StringBuilder();
+		for(int i = 0; i < 1000; i++) {
+			log.append("2026-10-18 12:00:").append(i).append(" INFO ");
+			if(i % 3 == 0) {
+				log.append("payload=<soap:Envelope xmlns:soap=\"http://www.w3.org/2003/05/soap-envelope\"><soap:Body><order id=\"").append(i).append("\">\u00e6\u00f8\u00e5</order></soap:Body></soap:Envelope>");
+			}
+			if(i % 5 == 0) {
+				log.append(" response=<status>").append(i).append("</status>");
+			}
+			if(i % 97 == 0) {
+				// line longer than a chunk
+				for(int k = 0; k < 100; k++) {
+					log.append("<x>").append(k).append("</x>");
+				}
+			}
+			log.append(" done\n");
+		}
+		log.append("no terminator <a/>");
+
+		StringBuilder expected = new StringBuilder();
+		long count = formatter.process(new StringReader(log.toString()), expected);
+		Assert.assertEquals(334 + 200 + 11 * 100 + 1, count);
+
+		Path input = Files.createTempFile("log", ".txt");
+		Path output = Files.createTempFile("log", ".formatted.txt");
+		try {
+			Files.write(input, log.toString().getBytes(UTF_8));
+
+			for(int threads = 1; threads <= 4; threads++) {
+				for(int chunkLength : new int[]{7, 64, 1000, 1024 * 1024}) {
+					Assert.assertEquals(count, formatter.process(input, output, threads, chunkLength));
+					Assert.assertEquals(threads + " " + chunkLength, expected.toString(), new String(Files.readAllBytes(output), UTF_8));
+				}
+			}
+
+			// empty file
+			Files.write(input, new byte[0]);
+			Assert.assertEquals(0, formatter.process(input, output));
+			Assert.assertEquals(0, new File(output.toString()).length());
+		} finally {
+			Files.delete(input);
+			Files.delete(output);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidArguments() {
+		new LogStreamFormatter(null);
+	}
+}
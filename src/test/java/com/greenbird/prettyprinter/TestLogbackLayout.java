@@ -0,0 +1,102 @@
+package com.greenbird.prettyprinter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MarkerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+import com.greenbird.xml.prettyprinter.logback.XmlPrettyPrintLayout;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractFilterPrettyPrinter;
+
+/**
+ *
+ * Test the Logback layout.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestLogbackLayout {
+
+	private LoggerContext context;
+	private Logger logger;
+
+	@Before
+	public void init() {
+		context = new LoggerContext();
+		logger = context.getLogger("test");
+	}
+
+	private XmlPrettyPrintLayout newLayout() {
+		XmlPrettyPrintLayout layout = new XmlPrettyPrintLayout();
+		layout.setContext(context);
+		layout.setPattern("%level %msg");
+		layout.setIndentationCharacter("space");
+		layout.setIndentationMultiplier(2);
+		return layout;
+	}
+
+	private LoggingEvent newEvent(String message, Object argument, boolean marker) {
+		LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, message, null, argument != null ? new Object[]{argument} : null);
+		if(marker) {
+			event.setMarker(MarkerFactory.getMarker(XmlPrettyPrintLayout.DEFAULT_MARKER));
+		}
+		return event;
+	}
+
+	@Test
+	public void testMarker() {
+		XmlPrettyPrintLayout layout = newLayout();
+		layout.start();
+		Assert.assertTrue(layout.isStarted());
+
+		Assert.assertEquals("INFO Received \n<a>\n  <b>c</b>\n</a>", layout.doLayout(newEvent("Received {}", "<a><b>c</b></a>", true)));
+		Assert.assertEquals("INFO \n<a>\n  <b>c</b>\n</a>", layout.doLayout(newEvent("<a><b>c</b></a>", null, true)));
+
+		// not marked
+		Assert.assertEquals("INFO <a><b>c</b></a>", layout.doLayout(newEvent("<a><b>c</b></a>", null, false)));
+		// invalid XML
+		Assert.assertEquals("INFO <a><b>c</a>", layout.doLayout(newEvent("<a><b>c</a>", null, true)));
+	}
+
+	@Test
+	public void testMdcKey() {
+		XmlPrettyPrintLayout layout = newLayout();
+		layout.setMdcKey("xml");
+		layout.start();
+
+		LoggingEvent event = newEvent("<a><b>c</b></a>", null, false);
+		Map<String, String> mdc = new HashMap<String, String>();
+		mdc.put("xml", "true");
+		event.setMDCPropertyMap(mdc);
+
+		Assert.assertEquals("INFO \n<a>\n  <b>c</b>\n</a>", layout.doLayout(event));
+	}
+
+	@Test
+	public void testFilters() {
+		XmlPrettyPrintLayout layout = newLayout();
+		layout.addAnonymize("/a/b");
+		layout.addPrune("/a/c");
+		layout.start();
+
+		Assert.assertEquals("INFO \n<a>\n  <b>" + AbstractFilterPrettyPrinter.FILTER_ANONYMIZE_MESSAGE + "</b>\n  <c>\n    " + AbstractFilterPrettyPrinter.FILTER_PRUNE_MESSAGE + "\n  </c>\n</a>", layout.doLayout(newEvent("<a><b>secret</b><c><d/></c></a>", null, true)));
+	}
+
+	@Test
+	public void testInvalidConfiguration() {
+		XmlPrettyPrintLayout layout = newLayout();
+		layout.setIndentationCharacter("tabs");
+		layout.start();
+
+		Assert.assertFalse(layout.isStarted());
+	}
+}
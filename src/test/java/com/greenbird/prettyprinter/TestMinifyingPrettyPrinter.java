@@ -0,0 +1,152 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterBuilder;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterMinifyingPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.ws.PlainMinifyingPrettyPrinter;
+
+/**
+ *
+ * Test minifying, i.e. removing indentation rather than adding it.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestMinifyingPrettyPrinter {
+
+	private static final String INDENTED = "<?xml version=\"1.0\"?>\n"
+			+ "<a>\n"
+			+ "\t<b>  text  </b>\n"
+			+ "\t<c>mixed <d/> content</c>\n"
+			+ "\t<!-- comment -->\n"
+			+ "\t<e><![CDATA[ cdata ]]></e>\n"
+			+ "\t<f attr=\"value\"/>\n"
+			+ "\t<g>\r\n"
+			+ "\t\t<h>secret</h>\n"
+			+ "\t</g>\n"
+			+ "</a>\n";
+
+	private static final String MINIFIED = "<a><b>  text  </b><c>mixed <d/> content</c><!-- comment --><e><![CDATA[ cdata ]]></e><f attr=\"value\"/><g><h>secret</h></g></a>";
+
+	@Test
+	public void testMinify() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setMinify(true);
+
+		PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+		Assert.assertTrue(prettyPrinter instanceof PlainMinifyingPrettyPrinter);
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(INDENTED, output));
+		Assert.assertEquals(MINIFIED, output.toString());
+
+		factory.setXmlDeclaration(true);
+		prettyPrinter = factory.newPrettyPrinter();
+
+		output.setLength(0);
+		Assert.assertTrue(prettyPrinter.process(INDENTED, output));
+		Assert.assertEquals("<?xml version=\"1.0\"?>" + MINIFIED, output.toString());
+
+		// already minified
+		output.setLength(0);
+		Assert.assertTrue(prettyPrinter.process(MINIFIED, output));
+		Assert.assertEquals(MINIFIED, output.toString());
+
+		// not well-formed
+		output.setLength(0);
+		for(String xml : new String[]{"<a>\n\t<b>\n</a>", "<a><![CDATA[x"}) {
+			Assert.assertFalse(xml, prettyPrinter.process(xml, output));
+			Assert.assertEquals(0, output.length());
+		}
+	}
+
+	@Test
+	public void testMinifyWithFilters() {
+		PrettyPrinter prettyPrinter = PrettyPrinterBuilder.newPrettyPrinter().minify().anonymize(new String[]{"/a/b"}).prune(new String[]{"/a/g"}).build();
+		Assert.assertTrue(prettyPrinter instanceof MultiFilterMinifyingPrettyPrinter);
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(INDENTED, output));
+		Assert.assertEquals("<a><b>[*****]</b><c>mixed <d/> content</c><!-- comment --><e><![CDATA[ cdata ]]></e><f attr=\"value\"/><g><!-- [SUBTREE REMOVED] --></g></a>", output.toString());
+
+		prettyPrinter = PrettyPrinterBuilder.newPrettyPrinter().minify().anonymize(new String[]{"//h"}).maxTextNodeLength(4).build();
+		Assert.assertTrue(prettyPrinter instanceof MultiFilterMinifyingPrettyPrinter);
+
+		output.setLength(0);
+		Assert.assertTrue(prettyPrinter.process(INDENTED, output));
+		Assert.assertEquals("<a><b>  te...[TRUNCATED BY 4]</b><c>mixed <d/> content</c><!-- comment --><e><![CDATA[ cdata ]]></e><f attr=\"value\"/><g><h>[*****]</h></g></a>", output.toString());
+
+		// incomplete
+		output.setLength(0);
+		for(String xml : new String[]{"<", "<a", "a<", "<a/><", "<a><![CDATA[x"}) {
+			Assert.assertFalse(xml, prettyPrinter.process(xml, output));
+			Assert.assertEquals(0, output.length());
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setIgnoreWhitespace(true);
+		PrettyPrinter ignoreWhitespace = factory.newPrettyPrinter();
+
+		factory.setMinify(true);
+		PrettyPrinter minifying = factory.newPrettyPrinter();
+
+		for(File file : files) {
+			String xml = FileUtils.read(file);
+
+			StringBuilder expected = new StringBuilder();
+			if(!ignoreWhitespace.process(xml, expected)) {
+				Assert.assertFalse(file.toString(), minifying.process(xml, new StringBuilder()));
+
+				continue;
+			}
+
+			StringBuilder minified = new StringBuilder();
+			Assert.assertTrue(file.toString(), minifying.process(xml, minified));
+			Assert.assertTrue(file.toString(), minified.length() <= xml.length());
+
+			StringBuilder output = new StringBuilder();
+			Assert.assertTrue(file.toString(), ignoreWhitespace.process(minified.toString(), output));
+			Assert.assertEquals(file.toString(), expected.toString(), output.toString());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupported1() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setMinify(true);
+		factory.setRobustness(true);
+
+		factory.newPrettyPrinter();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupported2() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setMinify(true);
+		factory.setPrettyPrintCData(true);
+
+		factory.newPrettyPrinter();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupported3() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setMinify(true);
+
+		factory.newUtf8PrettyPrinter();
+	}
+}
@@ -0,0 +1,146 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterBuilder;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.plain.ParallelPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
+
+/**
+ * 
+ * Test that pretty-printing segments in parallel gives the same result as the sequential pretty-printer.
+ * 
+ * @author thomas
+ *
+ */
+
+public class TestParallelPrettyPrinter {
+
+	@Test
+	public void testSameAsSequential() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+		Assert.assertFalse(files.isEmpty());
+
+		for(boolean declaration : new boolean[]{true, false}) {
+			PlainPrettyPrinter sequential = new PlainPrettyPrinter(declaration, ' ', 2);
+			for(int depth = 0; depth < 3; depth++) {
+				for(int segmentLength : new int[]{1, 7, 64}) {
+					ParallelPrettyPrinter parallel = new ParallelPrettyPrinter(declaration, ' ', 2, depth, segmentLength);
+
+					for(File file : files) {
+						String xml = FileUtils.read(file);
+
+						StringBuilder expected = new StringBuilder("prefix");
+						boolean success = sequential.process(xml, expected);
+
+						StringBuilder output = new StringBuilder("prefix");
+						Assert.assertEquals(file + " / " + parallel, success, parallel.process(xml, output));
+						Assert.assertEquals(file + " / " + parallel, expected.toString(), output.toString());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLargeDocument() throws Exception {
+		StringBuilder builder = new StringBuilder("<?xml version=\"1.0\"?><!-- export --><export>");
+		for(int i = 0; i < 10000; i++) {
+			builder.append("<record id=\"").append(i).append("\"><name>Name ").append(i).append("</name>");
+			builder.append("<![CDATA[<data>").append(i).append("</data>]]><empty/><?pi ").append(i).append("?></record>");
+			if(i % 100 == 0) {
+				builder.append("<!-- ").append(i).append(" -->text");
+			}
+		}
+		builder.append("</export>");
+		String xml = builder.toString();
+
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(new PlainPrettyPrinter(false).process(xml, expected));
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ParallelPrettyPrinter parallel = new ParallelPrettyPrinter(false, '\t', 1, 1, 4096, pool);
+
+			StringBuilder output = new StringBuilder();
+			Assert.assertTrue(parallel.process(xml, output));
+			Assert.assertEquals(expected.toString(), output.toString());
+
+			// unbalanced within the last segment
+			xml = xml.replace("</export>", "<unclosed></export>");
+			output.setLength(0);
+			Assert.assertFalse(parallel.process(xml, output));
+			Assert.assertEquals(0, output.length());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testFactory() throws Exception {
+		String xml = FileUtils.read(new File("src/test/resources/all/basic/basic1.xml"));
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			PrettyPrinterFactory factory = new PrettyPrinterFactory();
+			factory.setParallel(true);
+			factory.setParallelDepth(0);
+			factory.setParallelSegmentLength(16);
+			factory.setParallelPool(pool);
+
+			PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+			Assert.assertTrue(prettyPrinter instanceof ParallelPrettyPrinter);
+
+			StringBuilder expected = new StringBuilder();
+			Assert.assertTrue(new PlainPrettyPrinter(false).process(xml, expected));
+
+			StringBuilder output = new StringBuilder();
+			Assert.assertTrue(prettyPrinter.process(xml, output));
+			Assert.assertEquals(expected.toString(), output.toString());
+
+			factory.setParallel(false);
+			Assert.assertFalse(factory.newPrettyPrinter() instanceof ParallelPrettyPrinter);
+		} finally {
+			pool.shutdown();
+		}
+
+		Assert.assertTrue(PrettyPrinterBuilder.newPrettyPrinter().parallel().build() instanceof ParallelPrettyPrinter);
+		Assert.assertTrue(PrettyPrinterBuilder.newPrettyPrinter().parallel(1, 4096, null).keepXMLDeclaration().indentate(' ', 2).build() instanceof ParallelPrettyPrinter);
+	}
+
+	@Test
+	public void testOnlyPlainConfiguration() {
+		List<PrettyPrinterBuilder> builders = new ArrayList<PrettyPrinterBuilder>();
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().robust().prettyPrintCData());
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().ignoreWhitespace());
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().minify());
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().prettyPrintComments());
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().prettyPrintTextNodes());
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().maxNodeLength(16));
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().prune(new String[]{"/a/b"}));
+		builders.add(PrettyPrinterBuilder.newPrettyPrinter().parallel().anonymize(new String[]{"/a/b"}));
+
+		for(PrettyPrinterBuilder builder : builders) {
+			try {
+				builder.build();
+				Assert.fail();
+			} catch(IllegalArgumentException e) {
+				// pass
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalSegmentLength() {
+		new ParallelPrettyPrinter(true, '\t', 1, 1, 0);
+	}
+}
@@ -0,0 +1,192 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.cache.PrefixCachingPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
+
+/**
+ *
+ * Test that resuming from a known document prefix gives the same result as processing the whole document.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestPrefixCachingPrettyPrinter {
+
+	private static final String HEADER = "<?xml version=\"1.0\"?>"
+			+ "<soap:Envelope xmlns:soap=\"http://www.w3.org/2003/05/soap-envelope\" xmlns:wsa=\"http://www.w3.org/2005/08/addressing\">"
+			+ "<soap:Header><wsa:Action>urn:order</wsa:Action><wsa:To>http://example.com/orders</wsa:To>"
+			+ "<wsse:Security><wsse:UsernameToken><wsse:Username>user</wsse:Username><wsse:Password>secret</wsse:Password></wsse:UsernameToken></wsse:Security>"
+			+ "<!-- header > comment --></soap:Header>";
+
+	private static String newMessage(int i) {
+		return HEADER + "<soap:Body attr=\"a>b\"><order id=\"" + i + "\"><item>" + i + "</item><creditCard>1234-" + i + "</creditCard></order></soap:Body></soap:Envelope>";
+	}
+
+	@Test
+	public void testSameAsWholeDocument() throws Exception {
+		PrettyPrinterFactory[] factories = new PrettyPrinterFactory[4];
+		for(int i = 0; i < factories.length; i++) {
+			factories[i] = PrettyPrinterFactory.newInstance();
+		}
+		factories[1].setAnonymizeFilters(new String[]{"/Envelope/Header/Security/UsernameToken/Password", "//creditCard"});
+		factories[2].setPruneFilters(new String[]{"/Envelope/Header/Security", "/Envelope/Body/order/item"});
+		// boundary element is anonymized itself
+		factories[3].setAnonymizeFilters(new String[]{"/Envelope/Body"});
+		factories[3].setIndentationCharacter(' ');
+		factories[3].setIndentationMultiplier(2);
+
+		for(int f = 0; f < factories.length; f++) {
+			PrettyPrinterFactory factory = factories[f];
+			PrettyPrinter expectedPrettyPrinter = factory.newPrettyPrinter();
+			PrefixCachingPrettyPrinter prettyPrinter = (PrefixCachingPrettyPrinter)factory.newPrefixCachingPrettyPrinter(PrefixCachingPrettyPrinter.DEFAULT_BOUNDARY_ELEMENT);
+
+			for(int i = 0; i < 10; i++) {
+				String xml = newMessage(i);
+
+				StringBuilder expected = new StringBuilder();
+				Assert.assertTrue(expectedPrettyPrinter.process(xml, expected));
+
+				StringBuilder output = new StringBuilder("prefix");
+				Assert.assertTrue(prettyPrinter.process(xml, output));
+				Assert.assertEquals(prettyPrinter.toString(), "prefix" + expected, output.toString());
+
+				StringWriter writer = new StringWriter();
+				Assert.assertTrue(prettyPrinter.process(xml.toCharArray(), 0, xml.length(), writer));
+				Assert.assertEquals(prettyPrinter.toString(), expected.toString(), writer.toString());
+			}
+			if(f < 3) {
+				Assert.assertEquals(19, prettyPrinter.getHits());
+			} else {
+				// the > within the attribute value starts anonymized text, so the prefix ends within a construct
+				Assert.assertEquals(0, prettyPrinter.getHits());
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidRemainder() {
+		PrefixCachingPrettyPrinter prettyPrinter = new PrefixCachingPrettyPrinter(new PlainPrettyPrinter(false));
+
+		Assert.assertTrue(prettyPrinter.process(newMessage(1), new StringBuilder()));
+
+		StringBuilder output = new StringBuilder("prefix");
+		Assert.assertFalse(prettyPrinter.process(HEADER + "<soap:Body attr=\"a>b\"><order></soap:Body></soap:Envelope>", output));
+		Assert.assertEquals("prefix", output.toString());
+		Assert.assertEquals(1, prettyPrinter.getHits());
+
+		// invalid prefix
+		Assert.assertFalse(prettyPrinter.process("<a></b><Body></Body></a>", output));
+		Assert.assertEquals("prefix", output.toString());
+	}
+
+	@Test
+	public void testBoundary() {
+		PrefixCachingPrettyPrinter prettyPrinter = new PrefixCachingPrettyPrinter(new PlainPrettyPrinter(false), "Body", 64, 4);
+
+		// no boundary, similar name or too long prefix
+		String[] xml = new String[]{"<a><b/></a>", "<a><Bodyguard/><x:Bodies/></a>", "<a><c>" + new String(new char[64]).replace('\0', 'x') + "</c><Body/></a>"};
+		for(int i = 0; i < 2; i++) {
+			for(String string : xml) {
+				Assert.assertTrue(string, prettyPrinter.process(string, new StringBuilder()));
+			}
+		}
+		Assert.assertEquals(0, prettyPrinter.getHits() + prettyPrinter.getMisses());
+
+		// empty element and namespace prefix
+		for(int i = 0; i < 2; i++) {
+			StringBuilder output = new StringBuilder();
+			Assert.assertTrue(prettyPrinter.process("<a><x:Body/></a>", output));
+			Assert.assertEquals("\n<a>\n\t<x:Body/>\n</a>", output.toString());
+		}
+		Assert.assertEquals(1, prettyPrinter.getHits());
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+
+		PlainPrettyPrinter plain = new PlainPrettyPrinter(true);
+		PrettyPrinter[] prettyPrinters = new PrettyPrinter[]{
+				new PrefixCachingPrettyPrinter(plain),
+				new PrefixCachingPrettyPrinter(plain, "child", 1024, 16)
+		};
+
+		for(PrettyPrinter prettyPrinter : prettyPrinters) {
+			for(int k = 0; k < 2; k++) {
+				for(File file : files) {
+					String xml = FileUtils.read(file);
+
+					StringBuilder expected = new StringBuilder();
+					if(!plain.process(xml, expected)) {
+						continue;
+					}
+					StringBuilder output = new StringBuilder();
+					Assert.assertTrue(file.toString(), prettyPrinter.process(xml, output));
+					Assert.assertEquals(file.toString(), expected.toString(), output.toString());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCorpusWithFilters() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+
+		PrettyPrinterFactory[] factories = new PrettyPrinterFactory[6];
+		for(int i = 0; i < factories.length; i++) {
+			factories[i] = PrettyPrinterFactory.newInstance();
+			factories[i].setXmlDeclaration(true);
+		}
+		factories[1].setAnonymizeFilters(new String[]{"/aparent/achild/@attr", "//Price"});
+		factories[2].setAnonymizeFilters(new String[]{"/aparent/achild/@*"});
+		factories[2].setPruneFilters(new String[]{"//agrandchild", "/parent/child"});
+		// element filters only
+		factories[3].setAnonymizeFilters(new String[]{"//b"});
+		factories[3].setPruneFilters(new String[]{"//c"});
+		factories[4].setAnonymizeFilters(new String[]{"/aparent/achild"});
+		factories[5].setPruneFilters(new String[]{"/aparent/achild"});
+
+		for(PrettyPrinterFactory factory : factories) {
+			PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+
+			for(String boundaryElement : new String[]{"Body", "achild", "child"}) {
+				PrettyPrinter cachingPrettyPrinter = factory.newPrefixCachingPrettyPrinter(boundaryElement);
+
+				for(int k = 0; k < 2; k++) {
+					for(File file : files) {
+						String xml = FileUtils.read(file);
+
+						StringBuilder expected = new StringBuilder();
+						boolean success = prettyPrinter.process(xml, expected);
+
+						// a cache never changes the result
+						StringBuilder output = new StringBuilder();
+						Assert.assertEquals(file + " / " + cachingPrettyPrinter, success, cachingPrettyPrinter.process(xml, output));
+						if(success) {
+							Assert.assertEquals(file + " / " + cachingPrettyPrinter, expected.toString(), output.toString());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupported() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setRobustness(true);
+
+		factory.newPrefixCachingPrettyPrinter("Body");
+	}
+}
@@ -15,6 +15,7 @@ import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterForTextNodesWithX
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterForTextNodesWithXMLAndMaxNodeLength;
 import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinterWithMaxNodeLength;
 import com.greenbird.xml.prettyprinter.plain.RobustPlainPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainIndentedPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinter;
 import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinterForCDataAndComments;
 import com.greenbird.xml.prettyprinter.plain.filter.MultiFilterPlainPrettyPrinterForCDataAndCommentsWithMaxNodeLength;
@@ -458,10 +459,16 @@ public class TestPrettyPrinterFactory extends AbstractNodeTest {
 		PrettyPrinterBuilder.newPrettyPrinter().anonymize(new String[]{"/abcd/@e"}).build();
 	}
 
+	@Test
+	public void testIgnoreWhitespaceWithMaxNodeLength() {
+		PrettyPrinter prettyPrinter = PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().maxNodeLength(1024).build();
+		assertEquals(MultiFilterPlainIndentedPrettyPrinter.class, prettyPrinter.getClass());
+	}
+
 	@Test
 	public void testUnsupported1() {
 		try {
-			PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().maxNodeLength(1024).build();
+			PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().prettyPrintCData().maxNodeLength(1024).build();
 
 			Assert.fail();
 		} catch(Exception e) {
@@ -469,6 +476,34 @@ public class TestPrettyPrinterFactory extends AbstractNodeTest {
 		}
 	}
 
+	@Test
+	public void testUnsupportedRobustnessWhileIgnoringWhitespace() {
+		// rejected with and without filters
+		String[][] filters = new String[][]{null, new String[]{"/a"}};
+		for(String[] filter : filters) {
+			for(int i = 0; i < 4; i++) {
+				PrettyPrinterBuilder builder = PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().robust().maxNodeLength(1024);
+				if(filter != null) {
+					builder.anonymize(filter);
+				}
+				if(i == 1) {
+					builder.prettyPrintCData();
+				} else if(i == 2) {
+					builder.prettyPrintComments();
+				} else if(i == 3) {
+					builder.prettyPrintTextNodes();
+				}
+				try {
+					builder.build();
+
+					Assert.fail(filter + " " + i);
+				} catch(IllegalArgumentException e) {
+					// pass
+				}
+			}
+		}
+	}
+
 	@Test
 	public void testInvalidConfiguration2() {
 		try {
@@ -491,10 +526,19 @@ public class TestPrettyPrinterFactory extends AbstractNodeTest {
 		}
 	}
 
+	@Test
+	public void testIgnoreWhitespaceWithFilters() {
+		PrettyPrinter prettyPrinter = PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().anonymize(new String[]{"/a"}).build();
+		assertEquals(MultiFilterPlainIndentedPrettyPrinter.class, prettyPrinter.getClass());
+
+		prettyPrinter = PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().prune(new String[]{"/a"}).maxNodeLength(1024).build();
+		assertEquals(MultiFilterPlainIndentedPrettyPrinter.class, prettyPrinter.getClass());
+	}
+
 	@Test
 	public void testUnsupported3() {
 		try {
-			PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().anonymize(new String[]{"/a"}).build();
+			PrettyPrinterBuilder.newPrettyPrinter().ignoreWhitespace().prettyPrintComments().anonymize(new String[]{"/a"}).build();
 
 			Assert.fail();
 		} catch(Exception e) {
@@ -0,0 +1,126 @@
+package com.greenbird.prettyprinter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.metrics.LatencyHistogram;
+import com.greenbird.xml.prettyprinter.metrics.PrettyPrinterMetrics;
+import com.greenbird.xml.prettyprinter.metrics.StripedCounter;
+
+/**
+ * 
+ * Test metrics recording.
+ * 
+ * @author thomas
+ *
+ */
+
+public class TestPrettyPrinterMetrics {
+
+	@Test
+	public void testInstrumentedPrettyPrinter() throws Exception {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setAnonymizeFilters(new String[]{"/a/b", "/a/c/@d"});
+		factory.setPruneFilters(new String[]{"/a/e"});
+
+		PrettyPrinterMetrics metrics = new PrettyPrinterMetrics();
+		PrettyPrinter prettyPrinter = factory.newInstrumentedPrettyPrinter(metrics);
+
+		String xml = "<a><b>1</b><c d=\"2\">3</c><e><f/></e></a>";
+
+		StringBuilder output = new StringBuilder("prefix");
+		Assert.assertTrue(prettyPrinter.process(xml, output));
+		Assert.assertFalse(prettyPrinter.process("<a><b>", output));
+
+		StringBuilder expected = new StringBuilder("prefix");
+		Assert.assertTrue(factory.newPrettyPrinter().process(xml, expected));
+		Assert.assertEquals(expected.toString(), output.toString());
+
+		Assert.assertEquals(1, metrics.getSuccesses());
+		Assert.assertEquals(1, metrics.getFailures());
+		Assert.assertEquals(xml.length() + "<a><b>".length(), metrics.getInputCharacters());
+		Assert.assertEquals(output.length() - "prefix".length(), metrics.getOutputCharacters());
+		Assert.assertEquals(2, metrics.getLatency().getCount());
+
+		// the failed document also matched /a/b
+		Assert.assertEquals(2, metrics.getAnonymizedElements());
+		Assert.assertEquals(1, metrics.getAnonymizedAttributes());
+		Assert.assertEquals(1, metrics.getPrunedElements());
+
+		// cached instance is not instrumented
+		factory.newPrettyPrinter().process(xml, new StringBuilder());
+		Assert.assertEquals(2, metrics.getLatency().getCount());
+		Assert.assertEquals(1, metrics.getPrunedElements());
+
+		metrics.reset();
+		Assert.assertEquals(0, metrics.getSuccesses());
+		Assert.assertEquals(0, metrics.getLatency().getCount());
+	}
+
+	@Test
+	public void testTruncatedNodes() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		// more than one filter, so that the multi-filter pretty printer is used
+		factory.setPruneFilters(new String[]{"/a/e", "/a/f"});
+		factory.setMaxTextNodeLength(2);
+		factory.setMaxCDATANodeLength(2);
+
+		PrettyPrinterMetrics metrics = new PrettyPrinterMetrics();
+		PrettyPrinter prettyPrinter = factory.newInstrumentedPrettyPrinter(metrics);
+
+		Assert.assertTrue(prettyPrinter.process("<a><b>123</b><c><![CDATA[456]]></c><d>7</d></a>", new StringBuilder()));
+		Assert.assertEquals(2, metrics.getTruncatedNodes());
+
+		metrics.reset();
+		Assert.assertEquals(0, metrics.getTruncatedNodes());
+	}
+
+	@Test
+	public void testHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+
+		for(int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+		Assert.assertEquals(1000, histogram.getCount());
+
+		// within the bucket precision of 1/16
+		assertWithin(500000, histogram.getValueAtPercentile(50));
+		assertWithin(990000, histogram.getValueAtPercentile(99));
+		assertWithin(1000000, histogram.getMax());
+
+		histogram.record(7);
+		Assert.assertEquals(7, histogram.getValueAtPercentile(0));
+
+		histogram.record(Long.MAX_VALUE);
+		Assert.assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+	}
+
+	private static void assertWithin(long expected, long value) {
+		Assert.assertTrue(expected + " vs " + value, value >= expected && value <= expected + expected / 16);
+	}
+
+	@Test
+	public void testStripedCounter() throws Exception {
+		final StripedCounter counter = new StripedCounter();
+
+		Thread[] threads = new Thread[4];
+		for(int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for(int k = 0; k < 10000; k++) {
+						counter.increment();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(40000, counter.sum());
+	}
+}
@@ -0,0 +1,127 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.plain.PrettyPrinterSpecializer;
+
+/**
+ * 
+ * Test that specialized pretty printers produce the same output as the regular pretty printers.
+ * 
+ * @author thomas
+ *
+ */
+
+public class TestPrettyPrinterSpecializer {
+
+	@Test
+	public void testSameAsRegularPrettyPrinter() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+		Assert.assertFalse(files.isEmpty());
+
+		List<String> xmls = new ArrayList<String>();
+		for(File file : files) {
+			xmls.add(FileUtils.read(file));
+		}
+
+		for(int i = 0; i < 1 << 7; i++) {
+			PrettyPrinterFactory factory = newFactory(i);
+			
+			PrettyPrinter regular;
+			try {
+				regular = factory.newPrettyPrinter();
+			} catch(IllegalArgumentException e) {
+				// unsupported configuration
+				continue;
+			}
+			
+			factory.setSpecialize(true);
+			PrettyPrinter specialized = factory.newPrettyPrinter();
+			
+			Assert.assertFalse(PrettyPrinterSpecializer.isSpecialized(regular));
+			Assert.assertTrue(regular.toString(), PrettyPrinterSpecializer.isSpecialized(specialized));
+			Assert.assertTrue(regular.getClass().isInstance(specialized));
+			
+			for(String xml : xmls) {
+				StringBuilder expected = new StringBuilder();
+				StringBuilder output = new StringBuilder();
+				
+				Assert.assertEquals(regular.toString(), regular.process(xml, expected), specialized.process(xml, output));
+				Assert.assertEquals(regular.toString(), expected.toString(), output.toString());
+			}
+		}
+	}
+
+	@Test
+	public void testSameClassForSameConfiguration() throws Exception {
+		PrettyPrinterFactory factory = newFactory(3);
+		factory.setSpecialize(true);
+		
+		PrettyPrinter first = factory.newPrettyPrinter();
+		factory.setPrettyPrintComments(true); // resets cached instance
+		factory.setPrettyPrintComments(false);
+		PrettyPrinter second = factory.newPrettyPrinter();
+		
+		Assert.assertNotSame(first, second);
+		Assert.assertSame(first.getClass(), second.getClass());
+		
+		factory.setMaxTextNodeLength(20);
+		Assert.assertNotSame(first.getClass(), factory.newPrettyPrinter().getClass());
+	}
+
+	@Test
+	public void testBoundedNumberOfClasses() throws Exception {
+		String xml = "<a><b>text</b></a>";
+		
+		int regular = 0;
+		for(int i = 0; i < 100; i++) {
+			PrettyPrinterFactory factory = new PrettyPrinterFactory();
+			factory.setMaxTextNodeLength(1000 + i);
+			PrettyPrinter expected = factory.newPrettyPrinter();
+			
+			factory.setSpecialize(true);
+			PrettyPrinter prettyPrinter = factory.newPrettyPrinter();
+			if(!PrettyPrinterSpecializer.isSpecialized(prettyPrinter)) {
+				regular++;
+			}
+			
+			StringBuilder output = new StringBuilder();
+			Assert.assertTrue(prettyPrinter.process(xml, output));
+			Assert.assertEquals(prettyPrinter.toString(), process(expected, xml), output.toString());
+		}
+		// beyond the max number of classes for the pretty-printer class
+		Assert.assertTrue(regular > 0);
+	}
+	
+	private static String process(PrettyPrinter prettyPrinter, String xml) {
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml, output));
+		return output.toString();
+	}
+
+	private static PrettyPrinterFactory newFactory(int flags) {
+		PrettyPrinterFactory factory = new PrettyPrinterFactory();
+		factory.setXmlDeclaration((flags & 1) != 0);
+		factory.setPrettyPrintCData((flags & 2) != 0);
+		factory.setPrettyPrintComments((flags & 4) != 0);
+		factory.setPrettyPrintTextNodes((flags & 8) != 0);
+		factory.setRobustness((flags & 16) != 0);
+		if((flags & 32) != 0) {
+			factory.setMaxTextNodeLength(20);
+			factory.setMaxCDATANodeLength(30);
+		}
+		if((flags & 64) != 0) {
+			factory.setAnonymizeFilters(new String[]{"//name", "/Envelope/Body/*/*/@attr"});
+			factory.setPruneFilters(new String[]{"/Envelope/Header"});
+		}
+		return factory;
+	}
+}
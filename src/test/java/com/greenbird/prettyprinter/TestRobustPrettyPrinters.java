@@ -3,6 +3,7 @@ package com.greenbird.prettyprinter;
 import java.io.File;
 import java.io.FileFilter;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.greenbird.xml.prettyprinter.PrettyPrinter;
@@ -153,5 +154,28 @@ public class TestRobustPrettyPrinters extends AbstractNodeTest {
 		process(robustAlmostXML, robustAlmostXMLOutput, prettyPrinter, false, 1, false);
 	}
 
+	@Test
+	public void testNestedTextNodeXML() throws Exception {
+		PrettyPrinter prettyPrinter = new PlainPrettyPrinterForTextNodesWithXML(false, false, false, false, '\t', 1);
+		
+		// three levels, the innermost text escaped twice
+		String xml = "<a><b>&lt;c&gt;&lt;d&gt;&amp;lt;e attr=&amp;quot;&amp;#38;&amp;quot;&amp;gt;x&amp;lt;/e&amp;gt;&lt;/d&gt;&lt;/c&gt;</b><b>&lt;c&gt;y&lt;/c&gt;</b></a>";
+		
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(xml, output));
+		Assert.assertEquals("\n<a>\n\t<b>\n\t\t<c>\n\t\t\t<d>\n\t\t\t\t<e attr=\"&#38;\">x</e>\n\t\t\t</d>\n\t\t</c>\n\t</b>\n\t<b>\n\t\t<c>y</c>\n\t</b>\n</a>", output.toString());
+		
+		// unknown entity
+		Assert.assertFalse(prettyPrinter.process("<a><b>&lt;c&gt;&unknown;&lt;/c&gt;</b></a>", output));
+
+		// payload larger than the retained unescape arrays, then a smaller one at the same level
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i < 20000; i++) {
+			text.append('x');
+		}
+		output.setLength(0);
+		Assert.assertTrue(prettyPrinter.process("<a><b>&lt;c&gt;" + text + "&lt;/c&gt;</b><b>&lt;c&gt;y&lt;/c&gt;</b></a>", output));
+		Assert.assertEquals("\n<a>\n\t<b>\n\t\t<c>" + text + "</c>\n\t</b>\n\t<b>\n\t\t<c>y</c>\n\t</b>\n</a>", output.toString());
+	}
 
 }
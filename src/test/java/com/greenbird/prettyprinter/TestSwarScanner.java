@@ -0,0 +1,62 @@
+package com.greenbird.prettyprinter;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.plain.utf8.SwarScanner;
+
+/**
+ *
+ * Test word-at-a-time scanning against a byte-by-byte scan.
+ *
+ * @author thomas
+ *
+ */
+
+public class TestSwarScanner {
+
+	@Test
+	public void testIndexOf() {
+		Random random = new Random(1);
+		
+		byte[] bytes = new byte[256];
+		for(int i = 0; i < 100; i++) {
+			random.nextBytes(bytes);
+			
+			// sparse delimiters, and bytes which differ from the delimiter in the high bit only
+			for(int k = 0; k < bytes.length; k++) {
+				if(bytes[k] == '<' && random.nextInt(4) != 0) {
+					bytes[k] = (byte)('<' | 0x80);
+				}
+			}
+			if(i % 2 == 0) {
+				bytes[random.nextInt(bytes.length)] = '<';
+			}
+			
+			ByteBuffer words = SwarScanner.wrap(bytes);
+			for(int offset = 0; offset < bytes.length; offset++) {
+				for(int limit = offset; limit <= bytes.length; limit += 1 + random.nextInt(17)) {
+					Assert.assertEquals(indexOf(bytes, offset, limit, (byte)'<'), SwarScanner.indexOf(words, offset, limit, SwarScanner.LESS_THAN));
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonAsciiPattern() {
+		SwarScanner.pattern('\u00e6');
+	}
+
+	private static int indexOf(byte[] bytes, int offset, int limit, byte b) {
+		while(offset < limit) {
+			if(bytes[offset] == b) {
+				return offset;
+			}
+			offset++;
+		}
+		return limit;
+	}
+}
@@ -0,0 +1,149 @@
+package com.greenbird.prettyprinter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.prettyprinter.utils.FileUtils;
+import com.greenbird.xml.prettyprinter.ByteArrayBuilder;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterBuilder;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.Utf8PrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.utf8.PlainUtf8PrettyPrinter;
+
+/**
+ * 
+ * Test that the UTF-8 pretty printer produces the same output as its char equivalent.
+ * 
+ * @author thomas
+ *
+ */
+
+public class TestUtf8PrettyPrinter {
+
+	@Test
+	public void testSameAsPlainPrettyPrinter() throws Exception {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+		Assert.assertFalse(files.isEmpty());
+
+		for(int i = 0; i < 2; i++) {
+			boolean declaration = i == 0;
+			
+			PrettyPrinter prettyPrinter = new PlainPrettyPrinter(declaration, ' ', 2);
+			Utf8PrettyPrinter utf8PrettyPrinter = new PlainUtf8PrettyPrinter(declaration, ' ', 2);
+			
+			for(File file : files) {
+				String xml = FileUtils.read(file);
+				
+				StringBuilder expected = new StringBuilder();
+				boolean success = prettyPrinter.process(xml, expected);
+				
+				ByteArrayBuilder output = new ByteArrayBuilder();
+				byte[] bytes = xml.getBytes("UTF-8");
+				Assert.assertEquals(file.toString(), success, utf8PrettyPrinter.process(bytes, 0, bytes.length, output));
+				if(success) {
+					Assert.assertEquals(file.toString(), expected.toString(), output.toString());
+				} else {
+					Assert.assertEquals(file.toString(), 0, output.length());
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testMultiByteCharacters() throws IOException {
+		String xml = "<a><b attr=\"æøå\">€ 😀</b><c/></a>";
+		
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(new PlainPrettyPrinter(false).process(xml, expected));
+		
+		byte[] bytes = xml.getBytes("UTF-8");
+
+		ByteArrayBuilder output = new ByteArrayBuilder(4);
+		Assert.assertTrue(new PlainUtf8PrettyPrinter(false, ' ', 1).process(bytes, 0, bytes.length, output));
+		Assert.assertEquals(expected.toString().replace('\t', ' '), output.toString());
+	}
+
+	@Test
+	public void testByteBuffer() throws IOException {
+		Utf8PrettyPrinter prettyPrinter = PrettyPrinterBuilder.newPrettyPrinter().buildUtf8();
+		
+		byte[] bytes = "xx<a><b>text</b></a>".getBytes("UTF-8");
+		
+		ByteArrayBuilder heap = new ByteArrayBuilder();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.position(2);
+		Assert.assertTrue(prettyPrinter.process(buffer, heap));
+		Assert.assertEquals(2, buffer.position());
+		
+		ByteArrayBuilder direct = new ByteArrayBuilder();
+		ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+		directBuffer.put(bytes);
+		directBuffer.position(2);
+		Assert.assertTrue(prettyPrinter.process(directBuffer, direct));
+		Assert.assertEquals(2, directBuffer.position());
+		
+		Assert.assertEquals("\n<a>\n\t<b>text</b>\n</a>", heap.toString());
+		Assert.assertEquals(heap.toString(), direct.toString());
+	}
+
+	@Test
+	public void testOutputUnaffectedByFailure() throws IOException {
+		Utf8PrettyPrinter prettyPrinter = new PlainUtf8PrettyPrinter(true);
+
+		ByteArrayBuilder output = new ByteArrayBuilder();
+		output.append("<x/>".getBytes("UTF-8"));
+		
+		for(String xml : new String[]{"<parent><child></parent>", "<a><![CDATA[x"}) {
+			byte[] bytes = xml.getBytes("UTF-8");
+			Assert.assertFalse(xml, prettyPrinter.process(bytes, 0, bytes.length, output));
+			Assert.assertEquals(xml, "<x/>", output.toString());
+		}
+	}
+
+	@Test
+	public void testMappedFiles() throws IOException {
+		List<File> files = FileUtils.getXMLFiles(new File("src/test/resources"));
+
+		PlainUtf8PrettyPrinter prettyPrinter = new PlainUtf8PrettyPrinter(false, ' ', 2);
+
+		File input = File.createTempFile("input", ".xml");
+		File output = File.createTempFile("output", ".xml");
+		try {
+			for(File file : files) {
+				byte[] bytes = FileUtils.read(file).getBytes("UTF-8");
+				Files.write(input.toPath(), bytes);
+
+				ByteArrayBuilder expected = new ByteArrayBuilder();
+				boolean success = prettyPrinter.process(bytes, 0, bytes.length, expected);
+
+				// small windows, so that constructs cross window boundaries
+				for(int windowLength : new int[]{7, 64, 1024 * 1024}) {
+					Assert.assertEquals(file + " " + windowLength, success, prettyPrinter.process(input.toPath(), output.toPath(), windowLength));
+					if(success) {
+						Assert.assertEquals(file + " " + windowLength, expected.toString(), new String(Files.readAllBytes(output.toPath()), "UTF-8"));
+					} else {
+						Assert.assertEquals(0, output.length());
+					}
+				}
+			}
+		} finally {
+			input.delete();
+			output.delete();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupported() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setPrettyPrintTextNodes(true);
+		factory.newUtf8PrettyPrinter();
+	}
+}
@@ -0,0 +1,133 @@
+package com.greenbird.prettyprinter.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.greenbird.xml.prettyprinter.ByteArrayBuilder;
+import com.greenbird.xml.prettyprinter.plain.PlainPrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.utf8.PlainUtf8PrettyPrinter;
+import com.greenbird.xml.prettyprinter.plain.utf8.SwarScanner;
+
+/**
+ *
+ * JMH benchmark for text-heavy documents, i.e. SOAP messages carrying base64 attachments.
+ * <br>
+ * Compares a byte-by-byte scan to the word-at-a-time {@linkplain SwarScanner}, 
+ * and the char based {@linkplain PlainPrettyPrinter} to the {@linkplain PlainUtf8PrettyPrinter} which uses it.
+ *
+ * @author thomas
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class Base64TextBenchmark {
+
+	/** length of each base64 text node */
+	@Param({"256", "65536"})
+	public int textLength;
+
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+	private byte[] bytes;
+	private ByteBuffer words;
+	private char[] chars;
+
+	private final PlainPrettyPrinter prettyPrinter = new PlainPrettyPrinter(true);
+	private final PlainUtf8PrettyPrinter utf8PrettyPrinter = new PlainUtf8PrettyPrinter(true);
+
+	private final StringBuilder builder = new StringBuilder();
+	private final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+
+	@Setup
+	public void setup() throws Exception {
+		Random random = new Random(1);
+		StringBuilder document = new StringBuilder();
+		document.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Envelope><Header><id>1</id></Header><Body><attachments>");
+		for(int i = 0; i < 8; i++) {
+			document.append("<attachment name=\"file").append(i).append(".bin\">");
+			for(int k = 0; k < textLength; k++) {
+				document.append(BASE64[random.nextInt(BASE64.length)]);
+			}
+			document.append("</attachment>");
+		}
+		document.append("</attachments></Body></Envelope>");
+
+		chars = document.toString().toCharArray();
+		bytes = document.toString().getBytes("UTF-8");
+		words = SwarScanner.wrap(bytes);
+
+		// fail early rather than measure the failure path
+		if(!prettyPrinter.process(chars, 0, chars.length, builder) || !utf8PrettyPrinter.process(bytes, 0, bytes.length, byteArrayBuilder)) {
+			throw new IllegalArgumentException("Unable to pretty-print document");
+		}
+	}
+
+	@Benchmark
+	public int scanScalar() {
+		int count = 0;
+		int offset = 0;
+		while(offset < bytes.length) {
+			if(bytes[offset] == '<') {
+				count++;
+			}
+			offset++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int scanSwar() {
+		int count = 0;
+		int offset = SwarScanner.indexOf(words, 0, bytes.length, SwarScanner.LESS_THAN);
+		while(offset < bytes.length) {
+			count++;
+			offset = SwarScanner.indexOf(words, offset + 1, bytes.length, SwarScanner.LESS_THAN);
+		}
+		return count;
+	}
+
+	@Benchmark
+	public boolean processChars() {
+		builder.setLength(0);
+
+		return prettyPrinter.process(chars, 0, chars.length, builder);
+	}
+
+	@Benchmark
+	public boolean processUtf8() {
+		byteArrayBuilder.setLength(0);
+
+		return utf8PrettyPrinter.process(bytes, 0, bytes.length, byteArrayBuilder);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(Base64TextBenchmark.class.getSimpleName())
+				.build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,168 @@
+package com.greenbird.prettyprinter.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+
+/**
+ *
+ * JMH benchmark for the pretty-printers produced by the {@linkplain com.greenbird.xml.prettyprinter.PrettyPrinterFactory},
+ * using the documents in the <code>all</code> test resource directory.
+ * <br>
+ * Reports throughput (including processed characters per second), sampled latency percentiles and, when run via {@linkplain #main(String[])},
+ * allocation rate and a MB/s summary.
+ *
+ * @author thomas
+ *
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PrettyPrinterBenchmark {
+
+	public static final String CHARACTERS = "characters";
+
+	@Param
+	public PrettyPrinterConfiguration configuration;
+
+	@Param({"basic/basic1.xml", "basic/indented/basic1.xml", "real/soap/soap1.xml", "real/soap/indented/soap1.xml"})
+	public String document;
+
+	private PrettyPrinter prettyPrinter;
+	private char[] chars;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+
+		/** input characters processed, reported as a rate */
+		public long characters;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			characters = 0;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Output {
+
+		private final StringBuilder builder = new StringBuilder(1024 * 16);
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		chars = read("/all/" + document);
+		prettyPrinter = configuration.newPrettyPrinter();
+
+		// fail early rather than measure the failure path
+		if(!prettyPrinter.process(chars, 0, chars.length, new StringBuilder())) {
+			throw new IllegalArgumentException("Unable to pretty-print " + document + " using " + prettyPrinter);
+		}
+	}
+
+	@Benchmark
+	public boolean process(Output output, Counters counters) {
+		StringBuilder builder = output.builder;
+		builder.setLength(0);
+
+		counters.characters += chars.length;
+
+		return prettyPrinter.process(chars, 0, chars.length, builder);
+	}
+
+	private static char[] read(String resource) throws IOException {
+		InputStream in = PrettyPrinterBenchmark.class.getResourceAsStream(resource);
+		if(in == null) {
+			throw new IllegalArgumentException("Unable to find " + resource);
+		}
+		try {
+			Reader reader = new InputStreamReader(in, "UTF-8");
+
+			StringBuilder builder = new StringBuilder();
+			char[] buffer = new char[4096];
+			int read;
+			while((read = reader.read(buffer)) != -1) {
+				builder.append(buffer, 0, read);
+			}
+
+			char[] chars = new char[builder.length()];
+			builder.getChars(0, chars.length, chars, 0);
+
+			return chars;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Run the benchmark with the GC profiler and print the throughput in MB/s.
+	 * Accepts the regular JMH command line options, i.e. <code>-p configuration=PLAIN,MULTI_FILTER</code>.
+	 *
+	 * @param args JMH command line arguments
+	 * @throws Exception if the benchmark fails
+	 */
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(PrettyPrinterBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		Collection<RunResult> results = new Runner(options).run();
+
+		System.out.println();
+		System.out.println("Results (configuration, document, rate):");
+		for(RunResult result : results) {
+			if(result.getParams().getMode() != Mode.Throughput) {
+				continue;
+			}
+			Result<?> characters = result.getSecondaryResults().get(CHARACTERS);
+			if(characters == null) {
+				continue;
+			}
+
+			StringBuilder builder = new StringBuilder();
+			builder.append(result.getParams().getParam("configuration"));
+			builder.append(',');
+			builder.append(result.getParams().getParam("document"));
+			builder.append(',');
+			// characters per microsecond, assuming single-byte characters
+			builder.append(String.format("%.1f", characters.getScore() * TimeUnit.SECONDS.toMicros(1) / (1024 * 1024)));
+			builder.append("MB/s");
+
+			System.out.println(builder);
+		}
+	}
+}
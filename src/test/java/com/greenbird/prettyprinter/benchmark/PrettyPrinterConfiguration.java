@@ -0,0 +1,205 @@
+package com.greenbird.prettyprinter.benchmark;
+
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+
+/**
+ *
+ * Factory configurations, one for each of the pretty-printer implementations the {@linkplain PrettyPrinterFactory} can produce.
+ *
+ * @author thomas
+ *
+ */
+
+public enum PrettyPrinterConfiguration {
+
+	PLAIN() {
+		protected void configure(PrettyPrinterFactory factory) {
+		}
+	},
+	PLAIN_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			maxNodeLength(factory);
+		}
+	},
+	CDATA_AND_COMMENTS() {
+		protected void configure(PrettyPrinterFactory factory) {
+			cdataAndComments(factory);
+		}
+	},
+	CDATA_AND_COMMENTS_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			cdataAndComments(factory);
+			maxNodeLength(factory);
+		}
+	},
+	TEXT_NODES() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setPrettyPrintTextNodes(true);
+		}
+	},
+	TEXT_NODES_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setPrettyPrintTextNodes(true);
+			maxNodeLength(factory);
+		}
+	},
+	ROBUST() {
+		protected void configure(PrettyPrinterFactory factory) {
+			robust(factory);
+		}
+	},
+	ROBUST_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			robust(factory);
+			maxNodeLength(factory);
+		}
+	},
+	IGNORE_WHITESPACE() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setIgnoreWhitespace(true);
+		}
+	},
+	IGNORE_WHITESPACE_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setIgnoreWhitespace(true);
+			maxNodeLength(factory);
+		}
+	},
+	IGNORE_WHITESPACE_MULTI_FILTER() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setIgnoreWhitespace(true);
+			filters(factory);
+		}
+	},
+	ROBUST_IGNORE_WHITESPACE() {
+		protected void configure(PrettyPrinterFactory factory) {
+			robust(factory);
+			factory.setIgnoreWhitespace(true);
+		}
+	},
+	MINIFY() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setMinify(true);
+		}
+	},
+	MINIFY_MULTI_FILTER() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setMinify(true);
+			filters(factory);
+		}
+	},
+	SINGLE_FILTER() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setAnonymizeFilters(new String[]{ANONYMIZE});
+		}
+	},
+	SINGLE_FILTER_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			factory.setAnonymizeFilters(new String[]{ANONYMIZE});
+			maxNodeLength(factory);
+		}
+	},
+	MULTI_FILTER() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+		}
+	},
+	MULTI_FILTER_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			maxNodeLength(factory);
+		}
+	},
+	MULTI_FILTER_CDATA_AND_COMMENTS() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			cdataAndComments(factory);
+		}
+	},
+	MULTI_FILTER_CDATA_AND_COMMENTS_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			cdataAndComments(factory);
+			maxNodeLength(factory);
+		}
+	},
+	MULTI_FILTER_TEXT_NODES() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			factory.setPrettyPrintTextNodes(true);
+		}
+	},
+	MULTI_FILTER_TEXT_NODES_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			factory.setPrettyPrintTextNodes(true);
+			maxNodeLength(factory);
+		}
+	},
+	MULTI_FILTER_ROBUST() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			robust(factory);
+		}
+	},
+	MULTI_FILTER_ROBUST_MAX_NODE_LENGTH() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			robust(factory);
+			maxNodeLength(factory);
+		}
+	},
+	ROBUST_MAX_NODE_LENGTH_SPECIALIZED() {
+		protected void configure(PrettyPrinterFactory factory) {
+			robust(factory);
+			maxNodeLength(factory);
+			factory.setSpecialize(true);
+		}
+	},
+	MULTI_FILTER_ROBUST_MAX_NODE_LENGTH_SPECIALIZED() {
+		protected void configure(PrettyPrinterFactory factory) {
+			filters(factory);
+			robust(factory);
+			maxNodeLength(factory);
+			factory.setSpecialize(true);
+		}
+	};
+
+	public static final String ANONYMIZE = "/Envelope/Body/GetStockPriceResponse/Price";
+	public static final String PRUNE = "//grandchild";
+
+	public static final int MAX_NODE_LENGTH = 26;
+
+	protected abstract void configure(PrettyPrinterFactory factory);
+
+	public PrettyPrinter newPrettyPrinter() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+
+		configure(factory);
+
+		return factory.newPrettyPrinter();
+	}
+
+	private static void maxNodeLength(PrettyPrinterFactory factory) {
+		factory.setMaxTextNodeLength(MAX_NODE_LENGTH);
+		factory.setMaxCDATANodeLength(MAX_NODE_LENGTH);
+	}
+
+	private static void cdataAndComments(PrettyPrinterFactory factory) {
+		factory.setPrettyPrintCData(true);
+		factory.setPrettyPrintComments(true);
+	}
+
+	private static void robust(PrettyPrinterFactory factory) {
+		cdataAndComments(factory);
+		factory.setPrettyPrintTextNodes(true);
+		factory.setRobustness(true);
+	}
+
+	private static void filters(PrettyPrinterFactory factory) {
+		factory.setAnonymizeFilters(new String[]{ANONYMIZE});
+		factory.setPruneFilters(new String[]{PRUNE});
+	}
+
+}
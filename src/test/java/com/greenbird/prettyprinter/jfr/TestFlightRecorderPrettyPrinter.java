@@ -0,0 +1,164 @@
+package com.greenbird.prettyprinter.jfr;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.greenbird.xml.prettyprinter.IncrementalPrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinter;
+import com.greenbird.xml.prettyprinter.PrettyPrinterFactory;
+import com.greenbird.xml.prettyprinter.jfr.FlightRecorderPrettyPrinter;
+import com.greenbird.xml.prettyprinter.jfr.PrettyPrintEvent;
+import com.greenbird.xml.prettyprinter.jfr.PrettyPrintStatisticsEvent;
+import com.greenbird.xml.prettyprinter.plain.filter.AbstractMultiFilterPrettyPrinter.FilterType;
+import com.greenbird.xml.prettyprinter.plain.filter.FilterListener;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * 
+ * Test Flight Recorder events.
+ * 
+ * @author thomas
+ *
+ */
+
+public class TestFlightRecorderPrettyPrinter {
+
+	private static final String XML = "<a><b>secret</b><c><d>1</d><e>removed</e></c></a>";
+
+	private final AtomicInteger filtered = new AtomicInteger();
+
+	private PrettyPrinter newPrettyPrinter() {
+		PrettyPrinterFactory factory = newFactory();
+		factory.setPruneFilters(new String[]{"/a/c/e"});
+
+		return factory.newPrettyPrinter();
+	}
+
+	private PrettyPrinterFactory newFactory() {
+		PrettyPrinterFactory factory = PrettyPrinterFactory.newInstance();
+		factory.setAnonymizeFilters(new String[]{"/a/b"});
+		factory.setFlightRecorderEvents(true);
+		factory.setFilterListener(new FilterListener() {
+			public void elementFiltered(FilterType filterType) {
+				filtered.incrementAndGet();
+			}
+
+			public void attributeAnonymized() {
+				filtered.incrementAndGet();
+			}
+
+			public void nodeTruncated() {
+				filtered.incrementAndGet();
+			}
+		});
+
+		return factory;
+	}
+
+	@Test
+	public void testDisabled() {
+		PrettyPrinter prettyPrinter = newPrettyPrinter();
+		Assert.assertTrue(prettyPrinter instanceof FlightRecorderPrettyPrinter);
+
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(((FlightRecorderPrettyPrinter)prettyPrinter).getPrettyPrinter().process(XML, expected));
+
+		StringBuilder output = new StringBuilder();
+		Assert.assertTrue(prettyPrinter.process(XML, output));
+		Assert.assertEquals(expected.toString(), output.toString());
+	}
+
+	@Test
+	public void testIncremental() throws Exception {
+		// single filter, which is replaced by the equivalent multi-filter pretty printer
+		PrettyPrinterFactory factory = newFactory();
+		Assert.assertTrue(factory.newPrettyPrinter() instanceof FlightRecorderPrettyPrinter);
+
+		StringBuilder expected = new StringBuilder();
+		Assert.assertTrue(factory.newPrettyPrinter().process(XML, expected));
+
+		for(int i = 0; i < 2; i++) {
+			factory.setSpecialize(i == 1);
+
+			StringBuilder output = new StringBuilder();
+			IncrementalPrettyPrinter session = factory.newIncrementalPrettyPrinter(output);
+			char[] chars = XML.toCharArray();
+			Assert.assertTrue(session.feed(chars, 0, 5));
+			Assert.assertTrue(session.feed(chars, 5, chars.length - 5));
+			Assert.assertTrue(session.finish());
+
+			Assert.assertEquals(expected.toString(), output.toString());
+			// listener applies to the replacement
+			Assert.assertEquals(1 + i, filtered.get());
+		}
+	}
+
+	@Test
+	public void testEvents() throws Exception {
+		PrettyPrinter prettyPrinter = newPrettyPrinter();
+
+		File file = File.createTempFile("pretty-printer", ".jfr");
+		try {
+			Recording recording = new Recording();
+			try {
+				recording.enable(PrettyPrintEvent.class);
+				// emit totals when the recording stops
+				recording.enable(PrettyPrintStatisticsEvent.class).with("period", "endChunk");
+				recording.start();
+
+				Assert.assertTrue(prettyPrinter.process(XML, new StringBuilder()));
+				Assert.assertTrue(prettyPrinter.process(XML, new StringWriter()));
+				Assert.assertFalse(prettyPrinter.process("<a><b>", new StringBuilder()));
+
+				recording.stop();
+				recording.dump(file.toPath());
+			} finally {
+				recording.close();
+			}
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+
+			int operations = 0;
+			boolean statistics = false;
+			for(RecordedEvent event : events) {
+				String name = event.getEventType().getName();
+				if(name.equals(PrettyPrintEvent.NAME)) {
+					if(event.getBoolean("success")) {
+						Assert.assertEquals(XML.length(), event.getLong("inputLength"));
+						// also known for appendable output
+						Assert.assertEquals(1, event.getInt("anonymized"));
+						Assert.assertEquals(1, event.getInt("pruned"));
+						Assert.assertEquals(0, event.getInt("truncated"));
+						if(event.getLong("outputLength") != -1) {
+							// a, c and d
+							Assert.assertEquals(3, event.getInt("depth"));
+						} else {
+							Assert.assertEquals(-1, event.getInt("depth"));
+						}
+					} else {
+						Assert.assertEquals(0, event.getLong("outputLength"));
+					}
+					Assert.assertTrue(event.getString("engine").contains("MultiFilter"));
+					operations++;
+				} else if(name.equals(PrettyPrintStatisticsEvent.NAME)) {
+					statistics = true;
+				}
+			}
+			Assert.assertEquals(3, operations);
+			Assert.assertTrue(statistics);
+
+			// configured listener is still called, also for the incomplete document
+			Assert.assertEquals(5, filtered.get());
+		} finally {
+			file.delete();
+		}
+	}
+}
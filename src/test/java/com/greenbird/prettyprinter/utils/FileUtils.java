@@ -8,6 +8,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -111,4 +113,25 @@ public class FileUtils {
 	public static FileDirectoryValue getValue(String input, final FileFilter filter) throws FileNotFoundException, IOException {
 		return directoryCache.getValue(input, filter);
 	}
+
+	public static List<File> getXMLFiles(File directory) {
+		List<File> files = new ArrayList<File>();
+		
+		addXMLFiles(directory, files);
+		
+		return files;
+	}
+
+	private static void addXMLFiles(File directory, List<File> files) {
+		File[] children = directory.listFiles();
+		if(children != null) {
+			for(File child : children) {
+				if(child.isDirectory()) {
+					addXMLFiles(child, files);
+				} else if(child.getName().endsWith(".xml")) {
+					files.add(child);
+				}
+			}
+		}
+	}
 }